@@ -3,12 +3,14 @@ package com.clinic;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories; // Importuj tę adnotację
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Główna klasa aplikacji Spring Boot dla systemu Przychodni.
  */
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.clinic.repository") // Jawne skanowanie repozytoriów JPA
+@EnableScheduling // Zadania okresowe (np. czyszczenie wygasłych kluczy idempotencji)
 public class ClinicApplication {
 
     public static void main(String[] args) {
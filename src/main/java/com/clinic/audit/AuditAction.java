@@ -0,0 +1,28 @@
+package com.clinic.audit;
+
+/**
+ * Enum definiujący rodzaje audytowanego dostępu do dokumentacji medycznej.
+ * Kod jest zapisywany w pliku logu jako pojedynczy bajt - nie zmieniać kolejności istniejących wartości.
+ */
+public enum AuditAction {
+    READ_DOCUMENT,
+    LIST_PATIENT_DOCUMENTS,
+    UPDATE_DOCUMENT_CONTENT;
+
+    /**
+     * Zwraca akcję na podstawie kodu zapisanego w logu.
+     * @param code Kod akcji.
+     * @return Akcja audytu.
+     */
+    public static AuditAction fromCode(byte code) {
+        return values()[code];
+    }
+
+    /**
+     * Zwraca kod akcji zapisywany w logu.
+     * @return Kod akcji.
+     */
+    public byte code() {
+        return (byte) ordinal();
+    }
+}
@@ -0,0 +1,103 @@
+package com.clinic.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Narzędzie do przeszukiwania segmentowanego logu audytu.
+ * Wpisy z niepoprawną sumą kontrolną są pomijane.
+ */
+public class AuditLogReader {
+
+    private final Path directory;
+
+    public AuditLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Wyszukuje wpisy audytu spełniające wszystkie podane kryteria (null oznacza brak filtra).
+     * @param patientId ID pacjenta.
+     * @param userEmail Adres e-mail użytkownika.
+     * @param from Początek przedziału czasowego (włącznie).
+     * @param to Koniec przedziału czasowego (wyłącznie).
+     * @param limit Maksymalna liczba zwróconych wpisów.
+     * @return Lista wpisów w kolejności zapisu.
+     */
+    public List<AuditRecord> search(Long patientId, String userEmail, Instant from, Instant to, int limit) throws IOException {
+        List<AuditRecord> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        ByteBuffer buffer = ByteBuffer.allocate(AuditRecord.SIZE * 1024);
+
+        for (Path segment : listSegments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long position = 0;
+                while (true) {
+                    buffer.clear();
+                    int read = channel.read(buffer, position);
+                    if (read <= 0) {
+                        break;
+                    }
+                    int whole = read - (read % AuditRecord.SIZE);
+                    if (whole == 0) {
+                        break; // Niedokończony wpis na końcu segmentu
+                    }
+                    position += whole;
+                    buffer.flip();
+                    buffer.limit(whole);
+                    while (buffer.hasRemaining()) {
+                        AuditRecord record = AuditRecord.decode(buffer);
+                        if (record != null && matches(record, patientId, userEmail, fromMillis, toMillis)) {
+                            result.add(record);
+                            if (result.size() >= limit) {
+                                return result;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(AuditRecord record, Long patientId, String userEmail, long fromMillis, long toMillis) {
+        return record.getTimestamp() >= fromMillis
+                && record.getTimestamp() < toMillis
+                && (patientId == null || record.getPatientId() == patientId)
+                && (userEmail == null || userEmail.equals(record.getUserEmail()));
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(AuditLogWriter.SEGMENT_PREFIX) && name.endsWith(AuditLogWriter.SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static String segmentFileName(long number) {
+        return String.format("%s%020d%s", AuditLogWriter.SEGMENT_PREFIX, number, AuditLogWriter.SEGMENT_SUFFIX);
+    }
+
+    static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(AuditLogWriter.SEGMENT_PREFIX.length(),
+                name.length() - AuditLogWriter.SEGMENT_SUFFIX.length()));
+    }
+}
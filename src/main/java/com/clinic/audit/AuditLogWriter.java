@@ -0,0 +1,131 @@
+package com.clinic.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Zapisuje wpisy audytu do segmentowanego pliku logu (audit-00000000000000000001.log, ...).
+ * Wpisy są dopisywane paczkami, a fsync wykonywany jest raz na paczkę.
+ * Po przekroczeniu rozmiaru segmentu otwierany jest kolejny plik.
+ * Klasa nie jest bezpieczna wielowątkowo - używa jej wyłącznie wątek zapisujący.
+ */
+public class AuditLogWriter implements Closeable {
+
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSizeBytes;
+    private final ByteBuffer batchBuffer;
+
+    private FileChannel channel;
+    private long segmentNumber;
+    private long segmentPosition;
+    private boolean unsynced;
+
+    /**
+     * @param directory Katalog z segmentami logu.
+     * @param segmentSizeBytes Maksymalny rozmiar pojedynczego segmentu.
+     * @param batchSize Maksymalna liczba wpisów w jednej paczce.
+     */
+    public AuditLogWriter(Path directory, long segmentSizeBytes, int batchSize) throws IOException {
+        this.directory = directory;
+        this.segmentSizeBytes = Math.max(segmentSizeBytes, AuditRecord.SIZE);
+        this.batchBuffer = ByteBuffer.allocateDirect(batchSize * AuditRecord.SIZE);
+        Files.createDirectories(directory);
+        List<Path> segments = AuditLogReader.listSegments(directory);
+        this.segmentNumber = segments.isEmpty() ? 1 : AuditLogReader.segmentNumber(segments.get(segments.size() - 1));
+        openSegment();
+    }
+
+    /**
+     * Dodaje wpis do bieżącej paczki.
+     * @return false, jeśli paczka jest pełna i należy wywołać {@link #flush()}.
+     */
+    public boolean append(long timestamp, byte action, long patientId, long documentId, String userEmail) {
+        if (batchBuffer.remaining() < AuditRecord.SIZE) {
+            return false;
+        }
+        AuditRecord.encode(batchBuffer, timestamp, action, patientId, documentId, userEmail);
+        return true;
+    }
+
+    /**
+     * Zapisuje bieżącą paczkę na dysk i wykonuje fsync.
+     * Po błędzie zapisu niezapisane wpisy pozostają w paczce (a niezsynchronizowany zapis - do ponownego fsync),
+     * więc kolejne wywołanie ponawia zapis od pierwszego niezapisanego wpisu.
+     */
+    public void flush() throws IOException {
+        if (batchBuffer.position() == 0 && !unsynced) {
+            return;
+        }
+        batchBuffer.flip();
+        try {
+            while (batchBuffer.hasRemaining()) {
+                if (segmentPosition >= segmentSizeBytes) {
+                    rollSegment();
+                }
+                // Do bieżącego segmentu trafiają tylko całe wpisy, które się w nim mieszczą
+                long space = segmentSizeBytes - segmentPosition;
+                int records = (int) Math.max(1, Math.min(batchBuffer.remaining(), space) / AuditRecord.SIZE);
+                ByteBuffer slice = batchBuffer.slice();
+                slice.limit(records * AuditRecord.SIZE);
+                long start = segmentPosition;
+                try {
+                    while (slice.hasRemaining()) {
+                        segmentPosition += channel.write(slice, segmentPosition);
+                    }
+                } catch (IOException e) {
+                    segmentPosition = start; // Częściowo zapisane wpisy zostaną nadpisane przy ponowieniu
+                    throw e;
+                }
+                batchBuffer.position(batchBuffer.position() + records * AuditRecord.SIZE);
+                unsynced = true;
+            }
+        } finally {
+            batchBuffer.compact(); // Niezapisane wpisy przechodzą na początek paczki
+        }
+        channel.force(false);
+        unsynced = false;
+    }
+
+    /**
+     * @return true, jeśli paczka zawiera wpisy niezapisane lub niezsynchronizowane z dyskiem (np. po błędzie zapisu).
+     */
+    public boolean hasPending() {
+        return batchBuffer.position() > 0 || unsynced;
+    }
+
+    private void rollSegment() throws IOException {
+        // Kanał jest już zamknięty, jeśli poprzednia próba nie otworzyła nowego segmentu
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+            segmentNumber++;
+        }
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        Path segment = directory.resolve(AuditLogReader.segmentFileName(segmentNumber));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Obcięcie niedokończonego wpisu po ewentualnej awarii
+        long size = channel.size();
+        segmentPosition = size - (size % AuditRecord.SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.clinic.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+/**
+ * Pojedynczy wpis audytu dostępu do dokumentacji medycznej.
+ * W pliku logu każdy wpis zajmuje dokładnie {@link #SIZE} bajtów i kończy się sumą kontrolną CRC32.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditRecord {
+
+    /**
+     * Rozmiar zapisanego wpisu w bajtach.
+     */
+    public static final int SIZE = 128;
+
+    /**
+     * Maksymalna liczba bajtów (UTF-8) adresu e-mail użytkownika; dłuższe adresy są obcinane.
+     */
+    public static final int MAX_USER_BYTES = 96;
+
+    private static final int PAYLOAD_SIZE = SIZE - Integer.BYTES;
+
+    /**
+     * Czas zdarzenia w milisekundach od epoki.
+     */
+    private long timestamp;
+
+    /**
+     * Rodzaj dostępu.
+     */
+    private AuditAction action;
+
+    /**
+     * ID pacjenta, którego dotyczy dokumentacja.
+     */
+    private long patientId;
+
+    /**
+     * ID dokumentu (0, jeśli dotyczy listy dokumentów).
+     */
+    private long documentId;
+
+    /**
+     * Adres e-mail zalogowanego użytkownika.
+     */
+    private String userEmail;
+
+    /**
+     * Zwraca czas zdarzenia jako Instant.
+     * @return Czas zdarzenia.
+     */
+    public Instant getInstant() {
+        return Instant.ofEpochMilli(timestamp);
+    }
+
+    /**
+     * Zapisuje wpis do bufora w formacie o stałej długości.
+     * @param buffer Bufor docelowy z co najmniej {@link #SIZE} wolnymi bajtami.
+     */
+    public static void encode(ByteBuffer buffer, long timestamp, byte action, long patientId, long documentId, String userEmail) {
+        int start = buffer.position();
+        buffer.putLong(timestamp);
+        buffer.putLong(patientId);
+        buffer.putLong(documentId);
+        buffer.put(action);
+        byte[] user = userEmail == null ? new byte[0] : userEmail.getBytes(StandardCharsets.UTF_8);
+        int userLength = Math.min(user.length, MAX_USER_BYTES);
+        buffer.put((byte) userLength);
+        buffer.put(user, 0, userLength);
+        // Dopełnienie zerami do stałego rozmiaru
+        while (buffer.position() < start + PAYLOAD_SIZE) {
+            buffer.put((byte) 0);
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start).limit(start + PAYLOAD_SIZE);
+        crc.update(payload);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Odczytuje wpis z bufora i weryfikuje sumę kontrolną.
+     * @param buffer Bufor ustawiony na początku wpisu.
+     * @return Odczytany wpis lub null, jeśli suma kontrolna się nie zgadza (np. niedokończony zapis).
+     */
+    public static AuditRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start).limit(start + PAYLOAD_SIZE);
+        crc.update(payload);
+        int expected = buffer.getInt(start + PAYLOAD_SIZE);
+        if ((int) crc.getValue() != expected) {
+            buffer.position(start + SIZE);
+            return null;
+        }
+        long timestamp = buffer.getLong();
+        long patientId = buffer.getLong();
+        long documentId = buffer.getLong();
+        byte action = buffer.get();
+        int userLength = buffer.get() & 0xFF;
+        byte[] user = new byte[userLength];
+        buffer.get(user);
+        buffer.position(start + SIZE);
+        return new AuditRecord(timestamp, AuditAction.fromCode(action), patientId, documentId,
+                new String(user, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package com.clinic.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bezblokadowy bufor cykliczny o stałej pojemności dla wpisów audytu
+ * (wielu producentów - wątki żądań HTTP, jeden konsument - wątek zapisujący log).
+ *
+ * Sloty są prealokowane jako tablice prymitywów, więc publikacja wpisu nie alokuje obiektów
+ * (poza referencją do adresu e-mail). Gdy bufor jest pełny, publikacja nie przyjmuje wpisu (jest zliczana),
+ * a wywołujący ponawia ją po zwolnieniu miejsca przez konsumenta.
+ */
+public class AuditRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+
+    private final long[] timestamps;
+    private final long[] patientIds;
+    private final long[] documentIds;
+    private final byte[] actions;
+    private final String[] userEmails;
+
+    /**
+     * Numer sekwencji opublikowanej w danym slocie; slot jest gotowy do odczytu,
+     * gdy zawiera numer oczekiwany przez konsumenta.
+     */
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong(0);
+    private final AtomicLong consumed = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    /**
+     * @param capacity Pojemność bufora; zaokrąglana w górę do potęgi dwójki.
+     */
+    public AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.patientIds = new long[size];
+        this.documentIds = new long[size];
+        this.actions = new byte[size];
+        this.userEmails = new String[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Publikuje wpis w buforze. Metoda nie blokuje.
+     * @return true, jeśli wpis został przyjęty; false, jeśli bufor był pełny (wpis należy opublikować ponownie).
+     */
+    public boolean publish(long timestamp, AuditAction action, long patientId, long documentId, String userEmail) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= capacity) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        timestamps[index] = timestamp;
+        patientIds[index] = patientId;
+        documentIds[index] = documentId;
+        actions[index] = action.code();
+        userEmails[index] = userEmail;
+        published.lazySet(index, sequence); // Zapis release - pola slotu widoczne przed numerem sekwencji
+        return true;
+    }
+
+    /**
+     * Pobiera opublikowane wpisy (w kolejności sekwencji) i przekazuje je do konsumenta.
+     * Wpis odrzucony przez konsumenta (np. pełna paczka zapisu) kończy pobieranie i pozostaje w buforze
+     * do następnego wywołania. Może być wywoływana tylko z jednego wątku.
+     * @param consumer Odbiorca wpisów.
+     * @param maxRecords Maksymalna liczba wpisów do pobrania.
+     * @return Liczba pobranych (przyjętych przez konsumenta) wpisów.
+     */
+    public int drain(Consumer consumer, int maxRecords) {
+        long next = consumed.get();
+        int count = 0;
+        while (count < maxRecords) {
+            int index = (int) (next & mask);
+            if (published.get(index) != next) {
+                break;
+            }
+            if (!consumer.accept(timestamps[index], actions[index], patientIds[index], documentIds[index], userEmails[index])) {
+                break;
+            }
+            userEmails[index] = null;
+            next++;
+            count++;
+            consumed.lazySet(next); // Zwolnienie slotu dla producentów
+        }
+        return count;
+    }
+
+    /**
+     * @return Liczba wpisów oczekujących na zapis.
+     */
+    public long size() {
+        return claimed.get() - consumed.get();
+    }
+
+    /**
+     * @return Liczba nieudanych publikacji z powodu przepełnienia bufora.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Odbiorca wpisów pobieranych z bufora.
+     */
+    @FunctionalInterface
+    public interface Consumer {
+        /**
+         * @return false, jeśli wpis nie został przyjęty i ma pozostać w buforze.
+         */
+        boolean accept(long timestamp, byte action, long patientId, long documentId, String userEmail);
+    }
+}
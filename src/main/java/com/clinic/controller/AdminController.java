@@ -0,0 +1,220 @@
+package com.clinic.controller;
+
+import com.clinic.audit.AuditRecord;
+import com.clinic.dto.TenantConnectionStats;
+import com.clinic.dto.VisitStatisticsReport;
+import com.clinic.model.JobCheckpoint;
+import com.clinic.service.AuditService;
+import com.clinic.service.FlightRecorderService;
+import com.clinic.service.VisitArchiveService;
+import com.clinic.service.VisitStatisticsService;
+import com.clinic.service.VisitSweeperService;
+import com.clinic.tenancy.TenantRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Kontroler RESTowy z narzędziami administracyjnymi.
+ * Udostępnia sterowanie nagraniami Java Flight Recorder, przeszukiwanie logu audytu
+ * raporty statystyk wizyt, porządkowanie przeterminowanych wizyt oraz archiwizację wizyt.
+ * Dostępny tylko dla ADMIN.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@Data
+@AllArgsConstructor
+public class AdminController {
+
+    private final FlightRecorderService flightRecorderService;
+    private final AuditService auditService;
+    private final VisitStatisticsService visitStatisticsService;
+    private final VisitSweeperService visitSweeperService;
+    private final VisitArchiveService visitArchiveService;
+    private final TenantRegistry tenantRegistry;
+
+    /**
+     * Rozpoczyna nagranie JFR.
+     * @return Status 200 lub 409, jeśli nagranie już trwa.
+     */
+    @PostMapping("/jfr/start")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> startRecording() {
+        try {
+            flightRecorderService.startRecording();
+            return ResponseEntity.ok("Nagranie JFR rozpoczęte.");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Zatrzymuje nagranie JFR i zapisuje je na dysk.
+     * @return Ścieżka do zapisanego pliku .jfr lub status 409, jeśli nagranie nie trwa.
+     */
+    @PostMapping("/jfr/stop")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> stopRecording() {
+        try {
+            Path file = flightRecorderService.stopRecording();
+            return ResponseEntity.ok(file.toString());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Błąd zapisu nagrania JFR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Zwraca informację, czy nagranie JFR jest aktywne.
+     * @return true, jeśli trwa nagrywanie.
+     */
+    @GetMapping("/jfr/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Boolean> recordingStatus() {
+        return ResponseEntity.ok(flightRecorderService.isRecording());
+    }
+
+    /**
+     * Przeszukuje log audytu dostępu do dokumentacji medycznej.
+     * @param patientId Opcjonalne ID pacjenta.
+     * @param user Opcjonalny adres e-mail użytkownika.
+     * @param from Opcjonalny początek przedziału czasowego (ISO_LOCAL_DATE_TIME, np. "2025-07-01T00:00:00").
+     * @param to Opcjonalny koniec przedziału czasowego (ISO_LOCAL_DATE_TIME).
+     * @param limit Maksymalna liczba wpisów (domyślnie 1000).
+     * @return Lista wpisów audytu.
+     */
+    @GetMapping("/audit")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AuditRecord>> searchAuditLog(
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            Instant fromInstant = from == null ? null : LocalDateTime.parse(from).atZone(ZoneId.systemDefault()).toInstant();
+            Instant toInstant = to == null ? null : LocalDateTime.parse(to).atZone(ZoneId.systemDefault()).toInstant();
+            return ResponseEntity.ok(auditService.search(patientId, user, fromInstant, toInstant, limit));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * Zwraca raport statystyk wizyt (liczby wizyt według statusu, odsetek anulowań i niezrealizowanych wizyt).
+     * @param from Pierwszy dzień (ISO_LOCAL_DATE, np. "2025-07-01").
+     * @param to Ostatni dzień (ISO_LOCAL_DATE).
+     * @param groupBy Grupowanie: "doctor" (domyślnie), "specialization" lub "day".
+     * @return Wiersze raportu lub status 400 przy niepoprawnych parametrach.
+     */
+    @GetMapping("/statistics/visits")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<VisitStatisticsReport>> visitStatistics(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "doctor") String groupBy) {
+        try {
+            LocalDate fromDate = LocalDate.parse(from);
+            LocalDate toDate = LocalDate.parse(to);
+            return switch (groupBy) {
+                case "doctor" -> ResponseEntity.ok(visitStatisticsService.reportByDoctor(fromDate, toDate));
+                case "specialization" -> ResponseEntity.ok(visitStatisticsService.reportBySpecialization(fromDate, toDate));
+                case "day" -> ResponseEntity.ok(visitStatisticsService.reportByDay(fromDate, toDate));
+                default -> ResponseEntity.badRequest().body(null);
+            };
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /**
+     * Przelicza od nowa liczniki statystyk wizyt na podstawie tabeli wizyt (np. po imporcie danych).
+     * @param from Opcjonalny pierwszy dzień (ISO_LOCAL_DATE); domyślnie data najstarszej wizyty.
+     * @param to Opcjonalny ostatni dzień (ISO_LOCAL_DATE); domyślnie data najpóźniejszej wizyty.
+     * @return Liczba przeliczonych dni lub status 400 przy niepoprawnych parametrach.
+     */
+    @PostMapping("/statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> rebuildStatistics(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            long days = visitStatisticsService.rebuild(
+                    from == null ? null : LocalDate.parse(from),
+                    to == null ? null : LocalDate.parse(to));
+            return ResponseEntity.ok("Przeliczono statystyki dla dni: " + days);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Uruchamia natychmiast porządkowanie przeterminowanych wizyt SCHEDULED (poza harmonogramem).
+     * @return Liczba zmienionych wizyt.
+     */
+    @PostMapping("/sweeper/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Long> runVisitSweeper() {
+        return ResponseEntity.ok(visitSweeperService.sweep());
+    }
+
+    /**
+     * Zwraca punkt kontrolny porządkowania przeterminowanych wizyt.
+     * @return Punkt kontrolny lub status 404, jeśli porządkowanie jeszcze nic nie zmieniło.
+     */
+    @GetMapping("/sweeper")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<JobCheckpoint> visitSweeperCheckpoint() {
+        return visitSweeperService.getCheckpoint()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Uruchamia natychmiast archiwizację zakończonych wizyt starszych niż app.archive.ageDays (poza harmonogramem).
+     * @return Liczba zarchiwizowanych wizyt.
+     */
+    @PostMapping("/archive/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Long> runVisitArchive() {
+        return ResponseEntity.ok(visitArchiveService.archive());
+    }
+
+    /**
+     * Zwraca punkt kontrolny archiwizacji wizyt.
+     * @return Punkt kontrolny lub status 404, jeśli archiwizacja jeszcze nic nie przeniosła.
+     */
+    @GetMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<JobCheckpoint> visitArchiveCheckpoint() {
+        return visitArchiveService.getCheckpoint()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Zwraca metryki połączeń z bazą danych każdej kliniki (tryb wielu klinik): limit, użycie,
+     * odmowy po wyczerpaniu limitu i średni czas oczekiwania.
+     * @return Lista metryk klinik.
+     */
+    @GetMapping("/tenants")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<TenantConnectionStats>> tenantConnectionStats() {
+        return ResponseEntity.ok(tenantRegistry.getStats());
+    }
+}
@@ -0,0 +1,44 @@
+package com.clinic.controller;
+
+import com.clinic.dto.BatchRequest;
+import com.clinic.dto.BatchResponse;
+import com.clinic.service.BatchService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Kontroler RESTowy żądań zbiorczych - wiele operacji API w jednym żądaniu HTTP.
+ * Każda operacja podlega tym samym regułom dostępu co wywołana bezpośrednio.
+ */
+@RestController
+@RequestMapping("/api/batch")
+@Data
+@AllArgsConstructor
+public class BatchController {
+
+    private final BatchService batchService;
+
+    /**
+     * Wykonuje operacje w podanej kolejności i zwraca ich wyniki (status, nagłówki, ciało).
+     * Dostępne dla każdego zalogowanego użytkownika.
+     * @param batch Lista operacji i tryb wykonania (transakcyjny lub nie).
+     * @param request Żądanie HTTP.
+     * @param response Odpowiedź HTTP.
+     * @return Wyniki operacji lub status 400 dla niepoprawnego żądania zbiorczego.
+     */
+    @PostMapping
+    public ResponseEntity<BatchResponse> executeBatch(@RequestBody BatchRequest batch, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            return ResponseEntity.ok(batchService.execute(batch, request, response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+}
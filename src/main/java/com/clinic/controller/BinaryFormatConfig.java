@@ -0,0 +1,31 @@
+package com.clinic.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binarne formaty odpowiedzi dla integracji (laboratorium, rozliczenia).
+ *
+ * Każdy endpoint /api/** zwracający JSON zwraca CBOR (Accept: application/cbor) lub Smile
+ * (Accept: application/x-jackson-smile) i przyjmuje ciało żądania w tych formatach (Content-Type).
+ * Konwertery korzystają z tej samej konfiguracji Jacksona co JSON (moduły, format dat, serializatory DTO),
+ * więc struktura danych jest identyczna. Bez nagłówka Accept odpowiedzią pozostaje JSON.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -1,16 +1,23 @@
 package com.clinic.controller;
 
+import com.clinic.dto.AvailableSlot;
 import com.clinic.model.Doctor;
 import com.clinic.model.Visit;
+import com.clinic.service.AvailabilityService;
 import com.clinic.service.DoctorService;
+import com.clinic.service.FieldProjection;
+import com.clinic.service.MergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -24,14 +31,23 @@ import java.util.List;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final AvailabilityService availabilityService;
 
     /**
      * Pobiera wszystkich lekarzy. Dostępne dla wszystkich zalogowanych użytkowników.
-     * @return Lista lekarzy.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami (np. "id,nazwisko,specjalizacja") - z bazy pobierane są tylko one.
+     * @return Lista lekarzy lub status 400 dla nieznanego pola.
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()") // Wszyscy zalogowani użytkownicy mogą przeglądać listę lekarzy
-    public ResponseEntity<List<Doctor>> getAllDoctors() {
+    public ResponseEntity<?> getAllDoctors(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(doctorService.getAllDoctorFields(FieldProjection.DOCTOR.parse(fields)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         List<Doctor> doctors = doctorService.getAllDoctors();
         return ResponseEntity.ok(doctors);
     }
@@ -39,11 +55,23 @@ public class DoctorController {
     /**
      * Pobiera lekarza po ID. Dostępne dla wszystkich zalogowanych użytkowników.
      * @param id ID lekarza.
-     * @return Lekarz lub status 404.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
+     * @return Lekarz lub status 400/404.
      */
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Doctor> getDoctorById(@PathVariable Long id) {
+    public ResponseEntity<?> getDoctorById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            List<String> selected;
+            try {
+                selected = FieldProjection.DOCTOR.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            return doctorService.getDoctorFieldsById(id, selected)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        }
         return doctorService.getDoctorById(id)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
@@ -83,8 +111,27 @@ public class DoctorController {
         }
     }
 
+    /**
+     * Częściowo aktualizuje dane lekarza (JSON Merge Patch) - wystarczy przesłać zmieniane pola. Dostępne dla ADMIN.
+     * @param id ID lekarza do aktualizacji.
+     * @param patch Dokument z polami do zmiany, np. {"telefon": "600100200"}.
+     * @return Zaktualizowany lekarz lub status 400/404.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Doctor> patchDoctor(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            return doctorService.patchDoctor(id, patch)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     /**
      * Usuwa lekarza po ID. Dostępne tylko dla ADMIN.
+     * Lekarz znika od razu, a jego wizyty i historia są usuwane w tle.
      * @param id ID lekarza do usunięcia.
      * @return Status 204 No Content lub 404 Not Found.
      */
@@ -113,4 +160,34 @@ public class DoctorController {
         List<Visit> availableTerms = doctorService.getAvailableTerms(doctorId, LocalDateTime.now());
         return ResponseEntity.ok(availableTerms);
     }
+
+    /**
+     * Wyszukuje najwcześniejsze wolne terminy u wszystkich lekarzy danej specjalizacji.
+     * Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA, PACJENT.
+     * @param specjalizacja Specjalizacja lekarza (bez rozróżniania wielkości liter), np. "Kardiolog".
+     * @param from Opcjonalny początek przedziału (ISO_LOCAL_DATE_TIME), domyślnie teraz.
+     * @param to Opcjonalny koniec przedziału (ISO_LOCAL_DATE_TIME), domyślnie app.availability.defaultDays dni od początku.
+     * @param duration Opcjonalna długość wizyty w minutach.
+     * @param limit Opcjonalna liczba terminów.
+     * @param resourceIds Opcjonalne ID zasobów (gabinet, sprzęt), które muszą być wolne w tym samym terminie.
+     * @return Lista terminów od najwcześniejszego lub status 400.
+     */
+    @GetMapping("/available-slots")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA', 'PACJENT')")
+    public ResponseEntity<List<AvailableSlot>> findAvailableSlots(
+            @RequestParam String specjalizacja,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer duration,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) List<Long> resourceIds) {
+        try {
+            LocalDateTime fromDateTime = from == null ? null : LocalDateTime.parse(from);
+            LocalDateTime toDateTime = to == null ? null : LocalDateTime.parse(to);
+            return ResponseEntity.ok(availabilityService.findEarliestSlots(specjalizacja, fromDateTime, toDateTime,
+                    duration, limit, resourceIds));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -1,10 +1,16 @@
 package com.clinic.controller;
 
+import com.clinic.audit.AuditAction;
 import com.clinic.model.MedicalDocument;
 import com.clinic.model.Patient;
 import com.clinic.model.User;
+import com.clinic.service.AuditService;
+import com.clinic.service.FieldProjection;
+import com.clinic.service.IdempotencyKeyMismatchException;
+import com.clinic.service.IdempotencyService;
 import com.clinic.service.MedicalDocumentService;
 import com.clinic.service.PatientService;
+import com.clinic.service.ProjectionService;
 import com.clinic.service.UserService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -31,14 +37,25 @@ public class MedicalDocumentController {
     private final MedicalDocumentService medicalDocumentService;
     private final PatientService patientService;
     private final UserService userService;
+    private final AuditService auditService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Pobiera wszystkie dokumenty medyczne. Dostępne dla ADMIN.
-     * @return Lista dokumentów medycznych.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami (np. "id,name,creationDate") - z bazy pobierane są
+     *               tylko one, w szczególności treść dokumentu tylko przy wybranym polu content.
+     * @return Lista dokumentów medycznych lub status 400 dla nieznanego pola.
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<MedicalDocument>> getAllMedicalDocuments() {
+    public ResponseEntity<?> getAllMedicalDocuments(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(medicalDocumentService.getAllMedicalDocumentFields(FieldProjection.MEDICAL_DOCUMENT.parse(fields)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         List<MedicalDocument> documents = medicalDocumentService.getAllMedicalDocuments();
         return ResponseEntity.ok(documents);
     }
@@ -48,13 +65,36 @@ public class MedicalDocumentController {
      * ADMIN, LEKARZ, RECEPCJONISTA mają dostęp do każdego dokumentu.
      * PACJENT ma dostęp tylko do swoich dokumentów.
      * @param id ID dokumentu.
-     * @return Dokument medyczny lub status 404/403.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
+     * @return Dokument medyczny lub status 400/404/403.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<MedicalDocument> getMedicalDocumentById(@PathVariable Long id) {
+    public ResponseEntity<?> getMedicalDocumentById(@PathVariable Long id, @RequestParam(required = false) String fields) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalEmail = authentication.getName();
 
+        if (fields != null) {
+            Optional<ProjectionService.ProjectedRow> row;
+            try {
+                row = medicalDocumentService.getMedicalDocumentFieldsById(id, FieldProjection.MEDICAL_DOCUMENT.parse(fields));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            if (row.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // ADMIN, LEKARZ, RECEPCJONISTA - każdy dokument; PACJENT - tylko własne dokumenty
+            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") ||
+                    a.getAuthority().equals("ROLE_LEKARZ") ||
+                    a.getAuthority().equals("ROLE_RECEPCJONISTA"))
+                    || (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_PACJENT"))
+                    && currentPrincipalEmail.equals(row.get().ownerEmail()))) {
+                auditService.recordAccess(AuditAction.READ_DOCUMENT, currentPrincipalEmail, row.get().ownerId(), id);
+                return ResponseEntity.ok(row.get().fields());
+            }
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
         Optional<MedicalDocument> document = medicalDocumentService.getMedicalDocumentById(id);
 
         if (document.isPresent()) {
@@ -65,11 +105,13 @@ public class MedicalDocumentController {
             if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") ||
                     a.getAuthority().equals("ROLE_LEKARZ") ||
                     a.getAuthority().equals("ROLE_RECEPCJONISTA"))) {
+                auditService.recordAccess(AuditAction.READ_DOCUMENT, currentPrincipalEmail, document.get().getPatient().getId(), id);
                 return ResponseEntity.ok(document.get());
             }
             // Jeśli użytkownik jest PACJENTEM, musi to być jego własny dokument
             else if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_PACJENT"))) {
                 if (document.get().getPatient().getEmail().equals(currentPrincipalEmail)) {
+                    auditService.recordAccess(AuditAction.READ_DOCUMENT, currentPrincipalEmail, document.get().getPatient().getId(), id);
                     return ResponseEntity.ok(document.get());
                 } else {
                     return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Brak dostępu do cudzych danych
@@ -88,6 +130,7 @@ public class MedicalDocumentController {
      * @param visitId Opcjonalne ID wizyty.
      * @param name Nazwa dokumentu.
      * @param content Treść dokumentu.
+     * @param idempotencyKey Opcjonalny klucz idempotencji; ponowienie z tym samym kluczem zwraca pierwotną odpowiedź.
      * @return Utworzony dokument.
      */
     @PostMapping
@@ -96,7 +139,22 @@ public class MedicalDocumentController {
             @RequestParam Long patientId,
             @RequestParam(required = false) Long visitId,
             @RequestParam String name,
-            @RequestParam String content) {
+            @RequestParam String content,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return doCreateMedicalDocument(patientId, visitId, name, content);
+        }
+        String currentPrincipalEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            return idempotencyService.execute("create-document:" + currentPrincipalEmail, idempotencyKey,
+                    patientId + "|" + visitId + "|" + name + "|" + content.hashCode() + "|" + content.length(),
+                    MedicalDocument.class, () -> doCreateMedicalDocument(patientId, visitId, name, content));
+        } catch (IdempotencyKeyMismatchException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build(); // Klucz użyty z innymi parametrami
+        }
+    }
+
+    private ResponseEntity<MedicalDocument> doCreateMedicalDocument(Long patientId, Long visitId, String name, String content) {
         try {
             MedicalDocument createdDocument = medicalDocumentService.createMedicalDocument(patientId, visitId, name, content);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdDocument);
@@ -116,7 +174,12 @@ public class MedicalDocumentController {
     @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
     public ResponseEntity<MedicalDocument> updateMedicalDocumentContent(@PathVariable Long id, @RequestBody String updatedContent) {
         try {
+            String currentPrincipalEmail = SecurityContextHolder.getContext().getAuthentication().getName();
             return medicalDocumentService.updateMedicalDocumentContent(id, updatedContent)
+                    .map(document -> {
+                        auditService.recordAccess(AuditAction.UPDATE_DOCUMENT_CONTENT, currentPrincipalEmail, document.getPatient().getId(), id);
+                        return document;
+                    })
                     .map(ResponseEntity::ok)
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (IllegalArgumentException e) {
@@ -145,10 +208,11 @@ public class MedicalDocumentController {
      * ADMIN, LEKARZ, RECEPCJONISTA mają dostęp do wszystkich.
      * PACJENT ma dostęp tylko do swoich dokumentów.
      * @param patientId ID pacjenta.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
      * @return Lista dokumentów.
      */
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<List<MedicalDocument>> getMedicalDocumentsForPatient(@PathVariable Long patientId) {
+    public ResponseEntity<?> getMedicalDocumentsForPatient(@PathVariable Long patientId, @RequestParam(required = false) String fields) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalEmail = authentication.getName();
 
@@ -165,8 +229,20 @@ public class MedicalDocumentController {
         }
 
 
+        List<String> selected = null;
+        if (fields != null) {
+            try {
+                selected = FieldProjection.MEDICAL_DOCUMENT.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+
         try {
-            List<MedicalDocument> documents = medicalDocumentService.getMedicalDocumentsForPatient(patientId);
+            List<?> documents = selected != null
+                    ? medicalDocumentService.getMedicalDocumentFieldsForPatient(patientId, selected)
+                    : medicalDocumentService.getMedicalDocumentsForPatient(patientId);
+            auditService.recordAccess(AuditAction.LIST_PATIENT_DOCUMENTS, currentPrincipalEmail, patientId, null);
             return ResponseEntity.ok(documents);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -176,13 +252,25 @@ public class MedicalDocumentController {
     /**
      * Pobiera dokumenty medyczne powiązane z daną wizytą. Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA.
      * @param visitId ID wizyty.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
      * @return Lista dokumentów.
      */
     @GetMapping("/visit/{visitId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
-    public ResponseEntity<List<MedicalDocument>> getMedicalDocumentsForVisit(@PathVariable Long visitId) {
+    public ResponseEntity<?> getMedicalDocumentsForVisit(@PathVariable Long visitId, @RequestParam(required = false) String fields) {
+        List<String> selected = null;
+        if (fields != null) {
+            try {
+                selected = FieldProjection.MEDICAL_DOCUMENT.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+
         try {
-            List<MedicalDocument> documents = medicalDocumentService.getMedicalDocumentsForVisit(visitId);
+            List<?> documents = selected != null
+                    ? medicalDocumentService.getMedicalDocumentFieldsForVisit(visitId, selected)
+                    : medicalDocumentService.getMedicalDocumentsForVisit(visitId);
             return ResponseEntity.ok(documents);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -1,12 +1,22 @@
 package com.clinic.controller;
 
+import com.clinic.audit.AuditAction;
+import com.clinic.dto.PatientSummary;
+import com.clinic.dto.TimelinePage;
 import com.clinic.model.Patient;
 import com.clinic.model.User;
+import com.clinic.service.AuditService;
+import com.clinic.service.FieldProjection;
+import com.clinic.service.MergePatch;
 import com.clinic.service.PatientService;
+import com.clinic.service.ProjectionService;
+import com.clinic.service.TimelineService;
 import com.clinic.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -28,15 +38,25 @@ public class PatientController {
 
     private final PatientService patientService;
     private final UserService userService; // Potrzebne do pobrania informacji o zalogowanym użytkowniku
+    private final TimelineService timelineService;
+    private final AuditService auditService;
 
     /**
-     * Pobiera wszystkich pacjentów. Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA.
-     * @return Lista pacjentów.
+     * Pobiera wszystkich pacjentów (bez wizyt i dokumentacji). Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami (np. "id,imie,nazwisko") - z bazy pobierane są tylko one.
+     * @return Lista pacjentów lub status 400 dla nieznanego pola.
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
-    public ResponseEntity<List<Patient>> getAllPatients() {
-        List<Patient> patients = patientService.getAllPatients();
+    public ResponseEntity<?> getAllPatients(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(patientService.getAllPatientFields(FieldProjection.PATIENT.parse(fields)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+        List<PatientSummary> patients = patientService.getAllPatients();
         return ResponseEntity.ok(patients);
     }
 
@@ -45,13 +65,35 @@ public class PatientController {
      * ADMIN, LEKARZ, RECEPCJONISTA mają dostęp do każdego pacjenta.
      * PACJENT ma dostęp tylko do swoich danych.
      * @param id ID pacjenta.
-     * @return Pacjent lub status 404/403.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
+     * @return Pacjent lub status 400/404/403.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Patient> getPatientById(@PathVariable Long id) {
+    public ResponseEntity<?> getPatientById(@PathVariable Long id, @RequestParam(required = false) String fields) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalEmail = authentication.getName();
 
+        if (fields != null) {
+            Optional<ProjectionService.ProjectedRow> row;
+            try {
+                row = patientService.getPatientFieldsById(id, FieldProjection.PATIENT.parse(fields));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            if (row.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // ADMIN, LEKARZ, RECEPCJONISTA - każdy pacjent; PACJENT - tylko własne dane
+            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") ||
+                    a.getAuthority().equals("ROLE_LEKARZ") ||
+                    a.getAuthority().equals("ROLE_RECEPCJONISTA"))
+                    || (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_PACJENT"))
+                    && currentPrincipalEmail.equals(row.get().ownerEmail()))) {
+                return ResponseEntity.ok(row.get().fields());
+            }
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
         Optional<Patient> patient = patientService.getPatientById(id);
 
         if (patient.isPresent()) {
@@ -79,6 +121,50 @@ public class PatientController {
         }
     }
 
+    /**
+     * Pobiera oś czasu pacjenta - wizyty (także zarchiwizowane) i dokumenty medyczne (bez treści) w jednym
+     * strumieniu, najnowsze najpierw.
+     * ADMIN, LEKARZ, RECEPCJONISTA mają dostęp do każdego pacjenta.
+     * PACJENT ma dostęp tylko do swojej osi czasu.
+     * @param id ID pacjenta.
+     * @param cursor Opcjonalny kursor kolejnej strony (nextCursor z poprzedniej odpowiedzi).
+     * @param limit Opcjonalna liczba pozycji na stronie.
+     * @return Strona osi czasu lub status 400/403/404.
+     */
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<TimelinePage> getPatientTimeline(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String currentPrincipalEmail = authentication.getName();
+
+        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_PACJENT"))) {
+            Optional<Patient> loggedInPatient = patientService.getPatientByEmail(currentPrincipalEmail);
+            if (loggedInPatient.isEmpty() || !loggedInPatient.get().getId().equals(id)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Pacjent nie ma dostępu do cudzej osi czasu
+            }
+        } else if (!authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") ||
+                a.getAuthority().equals("ROLE_LEKARZ") ||
+                a.getAuthority().equals("ROLE_RECEPCJONISTA"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        TimelineService.Cursor after;
+        try {
+            after = cursor == null ? null : TimelineService.Cursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            TimelinePage page = timelineService.getPatientTimeline(id, after, limit);
+            auditService.recordAccess(AuditAction.LIST_PATIENT_DOCUMENTS, currentPrincipalEmail, id, null);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 
     /**
      * Tworzy nowego pacjenta. Dostępne dla ADMIN, RECEPCJONISTA.
@@ -146,8 +232,41 @@ public class PatientController {
         }
     }
 
+    /**
+     * Częściowo aktualizuje dane pacjenta (JSON Merge Patch) - wystarczy przesłać zmieniane pola,
+     * null usuwa wartość pola opcjonalnego.
+     * ADMIN, LEKARZ, RECEPCJONISTA mogą aktualizować każdego pacjenta, PACJENT - tylko swoje dane.
+     * @param id ID pacjenta do aktualizacji.
+     * @param patch Dokument z polami do zmiany, np. {"telefon": "600100200"}.
+     * @return Zaktualizowany pacjent lub status 400/403/404.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Patient> patchPatient(@PathVariable Long id, @RequestBody JsonNode patch) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_PACJENT"))) {
+            Optional<Patient> loggedInPatient = patientService.getPatientByEmail(authentication.getName());
+            if (loggedInPatient.isEmpty() || !loggedInPatient.get().getId().equals(id)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Pacjent może aktualizować tylko swoje dane
+            }
+        } else if (!authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") ||
+                a.getAuthority().equals("ROLE_LEKARZ") ||
+                a.getAuthority().equals("ROLE_RECEPCJONISTA"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            return patientService.patchPatient(id, patch)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     /**
      * Usuwa pacjenta po ID. Dostępne tylko dla ADMIN.
+     * Pacjent znika od razu, a jego wizyty i dokumentacja są usuwane w tle.
      * @param id ID pacjenta do usunięcia.
      * @return Status 204 No Content lub 404 Not Found.
      */
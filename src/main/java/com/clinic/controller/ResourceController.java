@@ -0,0 +1,81 @@
+package com.clinic.controller;
+
+import com.clinic.model.ClinicResource;
+import com.clinic.service.ResourceService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Kontroler RESTowy do zarządzania zasobami przychodni (gabinety, sprzęt).
+ * Zasoby są rezerwowane razem z lekarzem przy planowaniu wizyty (parametr resourceIds w /api/visits/schedule).
+ */
+@RestController
+@RequestMapping("/api/resources")
+@Data
+@AllArgsConstructor
+public class ResourceController {
+
+    private final ResourceService resourceService;
+
+    /**
+     * Pobiera wszystkie zasoby. Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA.
+     * @return Lista zasobów.
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
+    public ResponseEntity<List<ClinicResource>> getAllResources() {
+        return ResponseEntity.ok(resourceService.getAllResources());
+    }
+
+    /**
+     * Pobiera zasób po ID. Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA.
+     * @param id ID zasobu.
+     * @return Zasób lub status 404.
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
+    public ResponseEntity<ClinicResource> getResourceById(@PathVariable Long id) {
+        return resourceService.getResourceById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Tworzy nowy zasób. Dostępne tylko dla ADMIN.
+     * @param resource Zasób (nazwa i typ: ROOM lub EQUIPMENT).
+     * @return Utworzony zasób lub status 400.
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ClinicResource> createResource(@RequestBody ClinicResource resource) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(resourceService.createResource(resource));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /**
+     * Usuwa zasób. Dostępne tylko dla ADMIN.
+     * @param id ID zasobu.
+     * @return Status 204, 404 lub 409 (zasób zarezerwowany dla zaplanowanych wizyt).
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> deleteResource(@PathVariable Long id) {
+        try {
+            resourceService.deleteResource(id);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
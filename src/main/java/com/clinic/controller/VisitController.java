@@ -1,21 +1,41 @@
 package com.clinic.controller;
 
+import com.clinic.dto.AgendaEntry;
+import com.clinic.dto.VisitSeriesRequest;
+import com.clinic.dto.VisitSeriesResult;
+import com.clinic.dto.VisitSeriesUpdate;
+import com.clinic.model.Doctor;
 import com.clinic.model.Patient;
 import com.clinic.model.Visit;
 import com.clinic.model.User;
+import com.clinic.service.AgendaService;
+import com.clinic.service.DoctorService;
+import com.clinic.service.FieldProjection;
+import com.clinic.service.IdempotencyKeyMismatchException;
+import com.clinic.service.IdempotencyService;
+import com.clinic.service.MergePatch;
 import com.clinic.service.PatientService;
+import com.clinic.service.ProjectionService;
+import com.clinic.service.SlotUnavailableException;
 import com.clinic.service.UserService;
+import com.clinic.service.VisitEventHub;
+import com.clinic.service.VisitSeriesService;
 import com.clinic.service.VisitService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,14 +53,27 @@ public class VisitController {
     private final VisitService visitService;
     private final PatientService patientService;
     private final UserService userService;
+    private final IdempotencyService idempotencyService;
+    private final AgendaService agendaService;
+    private final DoctorService doctorService;
+    private final VisitEventHub visitEventHub;
+    private final VisitSeriesService visitSeriesService;
 
     /**
      * Pobiera wszystkie wizyty. Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA.
-     * @return Lista wizyt.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami (np. "id,visitDateTime,status") - z bazy pobierane są tylko one.
+     * @return Lista wizyt lub status 400 dla nieznanego pola.
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
-    public ResponseEntity<List<Visit>> getAllVisits() {
+    public ResponseEntity<?> getAllVisits(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(visitService.getAllVisitFields(FieldProjection.VISIT.parse(fields)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         List<Visit> visits = visitService.getAllVisits();
         return ResponseEntity.ok(visits);
     }
@@ -50,13 +83,35 @@ public class VisitController {
      * ADMIN, LEKARZ, RECEPCJONISTA mają dostęp do każdej wizyty.
      * PACJENT ma dostęp tylko do swoich wizyt.
      * @param id ID wizyty.
-     * @return Wizyta lub status 404/403.
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
+     * @return Wizyta lub status 400/404/403.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Visit> getVisitById(@PathVariable Long id) {
+    public ResponseEntity<?> getVisitById(@PathVariable Long id, @RequestParam(required = false) String fields) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalEmail = authentication.getName();
 
+        if (fields != null) {
+            Optional<ProjectionService.ProjectedRow> row;
+            try {
+                row = visitService.getVisitFieldsById(id, FieldProjection.VISIT.parse(fields));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            if (row.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // ADMIN, LEKARZ, RECEPCJONISTA - każda wizyta; PACJENT - tylko własne wizyty
+            if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") ||
+                    a.getAuthority().equals("ROLE_LEKARZ") ||
+                    a.getAuthority().equals("ROLE_RECEPCJONISTA"))
+                    || (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_PACJENT"))
+                    && currentPrincipalEmail.equals(row.get().ownerEmail()))) {
+                return ResponseEntity.ok(row.get().fields());
+            }
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
         Optional<Visit> visit = visitService.getVisitById(id);
 
         if (visit.isPresent()) {
@@ -90,13 +145,17 @@ public class VisitController {
      * @param patientId ID pacjenta.
      * @param doctorId ID lekarza.
      * @param visitDateTime Data i godzina wizyty w formacie ISO_LOCAL_DATE_TIME (np. "2023-10-26T10:00:00").
-     * @return Utworzona wizyta.
+     * @param resourceIds Opcjonalne ID zasobów (gabinet, sprzęt) rezerwowanych razem z lekarzem.
+     * @param idempotencyKey Opcjonalny klucz idempotencji; ponowienie z tym samym kluczem zwraca pierwotną odpowiedź.
+     * @return Utworzona wizyta (201), status 409, jeśli lekarz lub zasób jest zajęty w tym terminie, lub 400/403/422.
      */
     @PostMapping("/schedule")
     public ResponseEntity<Visit> scheduleVisit(
             @RequestParam Long patientId,
             @RequestParam Long doctorId,
-            @RequestParam String visitDateTime) {
+            @RequestParam String visitDateTime,
+            @RequestParam(required = false) List<Long> resourceIds,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalEmail = authentication.getName();
 
@@ -111,15 +170,87 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        if (idempotencyKey == null) {
+            return doScheduleVisit(patientId, doctorId, visitDateTime, resourceIds);
+        }
+        try {
+            return idempotencyService.execute("schedule-visit:" + currentPrincipalEmail, idempotencyKey,
+                    patientId + "|" + doctorId + "|" + visitDateTime + (resourceIds != null ? "|" + resourceIds : ""),
+                    Visit.class, () -> doScheduleVisit(patientId, doctorId, visitDateTime, resourceIds));
+        } catch (IdempotencyKeyMismatchException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build(); // Klucz użyty z innymi parametrami
+        }
+    }
+
+    private ResponseEntity<Visit> doScheduleVisit(Long patientId, Long doctorId, String visitDateTime, List<Long> resourceIds) {
         try {
             LocalDateTime dateTime = LocalDateTime.parse(visitDateTime);
-            Visit scheduledVisit = visitService.scheduleVisit(patientId, doctorId, dateTime);
+            Visit scheduledVisit = visitService.scheduleVisit(patientId, doctorId, dateTime,
+                    resourceIds != null ? resourceIds : List.of());
             return ResponseEntity.status(HttpStatus.CREATED).body(scheduledVisit);
+        } catch (SlotUnavailableException e) {
+            // Konflikt terminu zależy od chwilowego stanu - nie jest zapamiętywany dla klucza idempotencji
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
         }
     }
 
+    /**
+     * Tworzy cykliczną serię wizyt (np. co tydzień przez kilka miesięcy) w jednej transakcji.
+     * Dostępne dla ADMIN, RECEPCJONISTA.
+     * @param request Reguła powtarzania i sposób obsługi kolizji (SKIP, SHIFT, FAIL).
+     * @return Wystąpienia serii (status 201) lub status 400 z opisem błędu (np. kolizja przy FAIL).
+     */
+    @PostMapping("/series")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPCJONISTA')")
+    public ResponseEntity<?> createVisitSeries(@RequestBody VisitSeriesRequest request) {
+        try {
+            VisitSeriesResult result = visitSeriesService.createSeries(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Przesuwa zaplanowane wizyty serii od podanej chwili i/lub przenosi je do innego lekarza.
+     * Dostępne dla ADMIN, RECEPCJONISTA.
+     * @param id ID serii.
+     * @param update Zmiana serii.
+     * @return Zmienione wizyty lub status 400/404.
+     */
+    @PutMapping("/series/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPCJONISTA')")
+    public ResponseEntity<?> updateVisitSeries(@PathVariable Long id, @RequestBody VisitSeriesUpdate update) {
+        try {
+            return visitSeriesService.updateSeries(id, update)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Anuluje zaplanowane wizyty serii od podanej chwili. Dostępne dla ADMIN, RECEPCJONISTA.
+     * @param id ID serii.
+     * @param from Opcjonalny początek (ISO_LOCAL_DATE_TIME), domyślnie teraz.
+     * @return Anulowane wizyty lub status 400/404.
+     */
+    @PostMapping("/series/{id}/cancel")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPCJONISTA')")
+    public ResponseEntity<VisitSeriesResult> cancelVisitSeries(@PathVariable Long id, @RequestParam(required = false) String from) {
+        try {
+            LocalDateTime fromDateTime = from == null ? null : LocalDateTime.parse(from);
+            return visitSeriesService.cancelSeries(id, fromDateTime)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Aktualizuje dane wizyty. Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA.
      * Lekarz może aktualizować swoje wizyty.
@@ -159,6 +290,41 @@ public class VisitController {
         }
     }
 
+    /**
+     * Częściowo aktualizuje wizytę (JSON Merge Patch) polami visitDateTime, status i doctorId.
+     * Dostępne dla ADMIN, LEKARZ (tylko swoje wizyty), RECEPCJONISTA.
+     * @param id ID wizyty.
+     * @param patch Dokument z polami do zmiany, np. {"status": "COMPLETED"}.
+     * @return Zaktualizowana wizyta lub status 400/403/404.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
+    public ResponseEntity<Visit> patchVisit(@PathVariable Long id, @RequestBody JsonNode patch) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // Jeśli LEKARZ, upewnij się, że aktualizuje swoją wizytę
+        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_LEKARZ"))) {
+            Optional<Visit> existingVisit = visitService.getVisitById(id);
+            if (existingVisit.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!existingVisit.get().getDoctor().getEmail().equals(authentication.getName())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        } else if (!authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") ||
+                a.getAuthority().equals("ROLE_RECEPCJONISTA"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            return visitService.patchVisit(id, patch)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     /**
      * Anuluje wizytę. Dostępne dla ADMIN, LEKARZ, RECEPCJONISTA, PACJENT.
      * Pacjent może anulować tylko swoje wizyty.
@@ -262,11 +428,19 @@ public class VisitController {
      * Pobiera historię wizyt dla danego pacjenta.
      * ADMIN, LEKARZ, RECEPCJONISTA mają dostęp do każdej historii.
      * PACJENT ma dostęp tylko do swojej historii.
+     * Przedział sięgający przed horyzont archiwizacji obejmuje także wizyty zarchiwizowane.
      * @param patientId ID pacjenta.
+     * @param from Opcjonalny początek przedziału (ISO_LOCAL_DATE_TIME, np. "2024-01-01T00:00:00").
+     * @param to Opcjonalny koniec przedziału (ISO_LOCAL_DATE_TIME).
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
      * @return Lista wizyt pacjenta.
      */
     @GetMapping("/patient/{patientId}/history")
-    public ResponseEntity<List<Visit>> getPatientVisitHistory(@PathVariable Long patientId) {
+    public ResponseEntity<?> getPatientVisitHistory(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String fields) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalEmail = authentication.getName();
 
@@ -282,9 +456,25 @@ public class VisitController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        List<String> selected = null;
+        if (fields != null) {
+            try {
+                selected = FieldProjection.VISIT.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+
         try {
-            List<Visit> history = visitService.getPatientVisitHistory(patientId);
+            LocalDateTime fromDateTime = from == null ? null : LocalDateTime.parse(from);
+            LocalDateTime toDateTime = to == null ? null : LocalDateTime.parse(to);
+            if (selected != null) {
+                return ResponseEntity.ok(visitService.getPatientVisitHistoryFields(patientId, fromDateTime, toDateTime, selected));
+            }
+            List<Visit> history = visitService.getPatientVisitHistory(patientId, fromDateTime, toDateTime);
             return ResponseEntity.ok(history);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -293,12 +483,20 @@ public class VisitController {
     /**
      * Pobiera historię wizyt dla danego lekarza. Dostępne dla ADMIN, RECEPCJONISTA.
      * Lekarz ma dostęp tylko do swoich wizyt.
+     * Przedział sięgający przed horyzont archiwizacji obejmuje także wizyty zarchiwizowane.
      * @param doctorId ID lekarza.
+     * @param from Opcjonalny początek przedziału (ISO_LOCAL_DATE_TIME, np. "2024-01-01T00:00:00").
+     * @param to Opcjonalny koniec przedziału (ISO_LOCAL_DATE_TIME).
+     * @param fields Opcjonalna lista pól rozdzielonych przecinkami - z bazy pobierane są tylko one.
      * @return Lista wizyt lekarza.
      */
     @GetMapping("/doctor/{doctorId}/history")
     @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
-    public ResponseEntity<List<Visit>> getDoctorVisitHistory(@PathVariable Long doctorId) {
+    public ResponseEntity<?> getDoctorVisitHistory(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String fields) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalEmail = authentication.getName();
 
@@ -310,11 +508,99 @@ public class VisitController {
             }
         }
 
+        List<String> selected = null;
+        if (fields != null) {
+            try {
+                selected = FieldProjection.VISIT.parse(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+
         try {
-            List<Visit> history = visitService.getDoctorVisitHistory(doctorId);
+            LocalDateTime fromDateTime = from == null ? null : LocalDateTime.parse(from);
+            LocalDateTime toDateTime = to == null ? null : LocalDateTime.parse(to);
+            if (selected != null) {
+                return ResponseEntity.ok(visitService.getDoctorVisitHistoryFields(doctorId, fromDateTime, toDateTime, selected));
+            }
+            List<Visit> history = visitService.getDoctorVisitHistory(doctorId, fromDateTime, toDateTime);
             return ResponseEntity.ok(history);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Pobiera agendę lekarza (wizyty z danymi pacjentów) dla przedziału dni.
+     * Dostępne dla ADMIN, RECEPCJONISTA; LEKARZ ma dostęp tylko do swojej agendy.
+     * @param doctorId ID lekarza.
+     * @param from Pierwszy dzień w formacie ISO_LOCAL_DATE (domyślnie dzisiaj).
+     * @param to Ostatni dzień w formacie ISO_LOCAL_DATE (domyślnie równy from).
+     * @return Lista wizyt posortowana chronologicznie.
+     */
+    @GetMapping("/doctor/{doctorId}/agenda")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
+    public ResponseEntity<List<AgendaEntry>> getDoctorAgenda(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String currentPrincipalEmail = authentication.getName();
+
+        // Jeśli LEKARZ, upewnij się, że pobiera swoją agendę
+        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_LEKARZ"))) {
+            Optional<Doctor> loggedInDoctor = doctorService.getDoctorByEmail(currentPrincipalEmail);
+            if (loggedInDoctor.isEmpty() || !loggedInDoctor.get().getId().equals(doctorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        }
+
+        try {
+            LocalDate fromDate = from == null ? LocalDate.now() : LocalDate.parse(from);
+            LocalDate toDate = to == null ? fromDate : LocalDate.parse(to);
+            return ResponseEntity.ok(agendaService.getAgenda(doctorId, fromDate, toDate));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /**
+     * Strumień zmian wizyt (Server-Sent Events) dla tablic recepcji i kolejek lekarzy - zastępuje cykliczne odpytywanie.
+     * Zdarzenia: SCHEDULED, UPDATED, CANCELLED, COMPLETED, DELETED; po ponownym połączeniu z nagłówkiem
+     * Last-Event-ID odtwarzane są pominięte zdarzenia, a gdy nie jest to możliwe - wysyłane jest zdarzenie "reset".
+     * Dostępne dla ADMIN, LEKARZ (tylko z własnym doctorId), RECEPCJONISTA.
+     * @param doctorId Opcjonalny filtr - ID lekarza.
+     * @param date Opcjonalny filtr - dzień wizyt (ISO_LOCAL_DATE, np. "2025-07-15").
+     * @param lastEventId Nagłówek Last-Event-ID wysyłany automatycznie przez EventSource przy ponownym połączeniu.
+     * @return Strumień SSE lub status 400/403/503.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
+    public ResponseEntity<SseEmitter> streamVisitChanges(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) String date,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String currentPrincipalEmail = authentication.getName();
+
+        // Jeśli LEKARZ, może subskrybować tylko swoje wizyty
+        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_LEKARZ"))) {
+            Optional<Doctor> loggedInDoctor = doctorService.getDoctorByEmail(currentPrincipalEmail);
+            if (loggedInDoctor.isEmpty() || !loggedInDoctor.get().getId().equals(doctorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        }
+
+        try {
+            LocalDate day = date == null ? null : LocalDate.parse(date);
+            Long lastId = lastEventId == null || lastEventId.isBlank() ? null : Long.valueOf(lastEventId.trim());
+            return ResponseEntity.ok(visitEventHub.subscribe(doctorId, day, lastId));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
 }
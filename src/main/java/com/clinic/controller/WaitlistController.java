@@ -0,0 +1,94 @@
+package com.clinic.controller;
+
+import com.clinic.model.Doctor;
+import com.clinic.model.WaitlistEntry;
+import com.clinic.service.DoctorService;
+import com.clinic.service.WaitlistService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Kontroler RESTowy do zarządzania listą oczekujących na zwolnione terminy.
+ * Anulowane terminy są automatycznie przydzielane oczekującym (zob. WaitlistService).
+ */
+@RestController
+@RequestMapping("/api/waitlist")
+@Data
+@AllArgsConstructor
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+    private final DoctorService doctorService;
+
+    /**
+     * Zapisuje pacjenta na listę oczekujących. Dostępne dla ADMIN, RECEPCJONISTA.
+     * @param patientId ID pacjenta.
+     * @param doctorId ID lekarza.
+     * @param from Początek preferowanego przedziału (ISO_LOCAL_DATE_TIME, np. "2025-07-15T08:00:00").
+     * @param to Koniec preferowanego przedziału (ISO_LOCAL_DATE_TIME).
+     * @param priority Priorytet (domyślnie 0; wyższy - obsługiwany wcześniej).
+     * @return Utworzony wpis lub status 400.
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPCJONISTA')")
+    public ResponseEntity<WaitlistEntry> joinWaitlist(
+            @RequestParam Long patientId,
+            @RequestParam Long doctorId,
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "0") int priority) {
+        try {
+            WaitlistEntry entry = waitlistService.join(patientId, doctorId,
+                    LocalDateTime.parse(from), LocalDateTime.parse(to), priority);
+            return ResponseEntity.status(HttpStatus.CREATED).body(entry);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    /**
+     * Pobiera oczekujących na termin u lekarza w kolejności obsługi.
+     * Dostępne dla ADMIN, RECEPCJONISTA oraz LEKARZ (tylko własna lista).
+     * @param doctorId ID lekarza.
+     * @return Lista oczekujących.
+     */
+    @GetMapping("/doctor/{doctorId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LEKARZ', 'RECEPCJONISTA')")
+    public ResponseEntity<List<WaitlistEntry>> getDoctorWaitlist(@PathVariable Long doctorId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // Jeśli LEKARZ, upewnij się, że pobiera swoją listę
+        if (authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_LEKARZ"))) {
+            Optional<Doctor> loggedInDoctor = doctorService.getDoctorByEmail(authentication.getName());
+            if (loggedInDoctor.isEmpty() || !loggedInDoctor.get().getId().equals(doctorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        }
+        return ResponseEntity.ok(waitlistService.getWaiting(doctorId));
+    }
+
+    /**
+     * Wypisuje pacjenta z listy oczekujących. Dostępne dla ADMIN, RECEPCJONISTA.
+     * @param id ID wpisu.
+     * @return Status 204 lub 404, jeśli wpis nie istnieje lub już nie oczekuje.
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPCJONISTA')")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long id) {
+        if (waitlistService.leave(id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
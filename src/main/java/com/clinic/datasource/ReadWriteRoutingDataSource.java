@@ -0,0 +1,34 @@
+package com.clinic.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Źródło danych kierujące połączenia do bazy głównej lub repliki.
+ *
+ * Transakcje oznaczone @Transactional(readOnly = true) otrzymują połączenie z puli repliki, wszystkie
+ * pozostałe (oraz odczyty użytkownika przypiętego przez ReadYourWritesTracker) - z puli bazy głównej.
+ * Flaga readOnly jest ustawiana dopiero po rozpoczęciu transakcji, dlatego źródło musi być opakowane
+ * w LazyConnectionDataSourceProxy, który pobiera fizyczne połączenie przy pierwszym poleceniu SQL.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !readYourWritesTracker.isPinnedToPrimary()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
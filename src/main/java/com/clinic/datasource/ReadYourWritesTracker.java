@@ -0,0 +1,74 @@
+package com.clinic.datasource;
+
+import com.clinic.tenancy.TenantContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zapewnia spójność "czytaj własne zapisy" przy odczytach z repliki.
+ *
+ * Po zatwierdzeniu transakcji zapisującej (np. umówieniu wizyty) zalogowany użytkownik jest przez
+ * app.datasource.replica.readYourWritesMs milisekund "przypięty" do bazy głównej - jego transakcje
+ * tylko do odczytu nie trafiają wtedy do repliki, która mogłaby jeszcze nie zawierać zmiany.
+ * Pozostali użytkownicy nadal czytają z repliki. Okno 0 wyłącza przypinanie.
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    private final long windowMs;
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * Przypina bieżącego użytkownika do bazy głównej po zatwierdzeniu transakcji zapisującej.
+     */
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || windowMs <= 0) {
+            return;
+        }
+        String user = currentUser();
+        if (user != null) {
+            pinnedUntil.put(user, System.currentTimeMillis() + windowMs);
+        }
+    }
+
+    /**
+     * Sprawdza, czy odczyty bieżącego użytkownika muszą trafić do bazy głównej.
+     * @return true, jeśli użytkownik niedawno zapisywał dane.
+     */
+    public boolean isPinnedToPrimary() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long until = pinnedUntil.get(user);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Usuwa wygasłe przypięcia.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.pinCleanupMs:60000}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        pinnedUntil.values().removeIf(until -> until <= now);
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return TenantContext.getTenant() + '/' + authentication.getName();
+    }
+}
@@ -0,0 +1,24 @@
+package com.clinic.dto;
+
+import com.clinic.model.VisitStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pozycja agendy lekarza - wizyta wraz z imieniem i nazwiskiem pacjenta.
+ * Tworzona bezpośrednio w zapytaniu JPQL (projekcja konstruktorowa), bez ładowania encji.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgendaEntry {
+    private Long visitId;
+    private LocalDateTime visitDateTime;
+    private VisitStatus status;
+    private Long patientId;
+    private String patientImie;
+    private String patientNazwisko;
+}
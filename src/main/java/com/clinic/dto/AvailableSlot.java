@@ -0,0 +1,21 @@
+package com.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wolny termin u lekarza - wynik wyszukiwania najbliższych terminów dla specjalizacji.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableSlot {
+    private Long doctorId;
+    private String doctorImie;
+    private String doctorNazwisko;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
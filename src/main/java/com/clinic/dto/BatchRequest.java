@@ -0,0 +1,58 @@
+package com.clinic.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Żądanie POST /api/batch - uporządkowana lista operacji API wykonywanych w jednym żądaniu HTTP.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+
+    /**
+     * Czy wszystkie operacje mają się wykonać w jednej transakcji. Pierwsza nieudana operacja (status 4xx/5xx)
+     * wycofuje wtedy zmiany poprzednich, a kolejne operacje nie są wykonywane.
+     */
+    private boolean transactional;
+
+    /**
+     * Operacje w kolejności wykonania.
+     */
+    private List<Operation> requests;
+
+    /**
+     * Pojedyncza operacja - odpowiednik jednego żądania do API.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+
+        /**
+         * Metoda HTTP (GET, POST, PUT, DELETE).
+         */
+        private String method;
+
+        /**
+         * Ścieżka wraz z parametrami zapytania, np. /api/visits/patient/5/history?from=2024-01-01T00:00:00.
+         */
+        private String path;
+
+        /**
+         * Dodatkowe nagłówki operacji (np. Idempotency-Key).
+         */
+        private Map<String, String> headers;
+
+        /**
+         * Ciało żądania: JSON, tekst (przekazywany jako text/plain) lub null.
+         */
+        private JsonNode body;
+    }
+}
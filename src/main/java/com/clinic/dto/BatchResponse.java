@@ -0,0 +1,52 @@
+package com.clinic.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Odpowiedź POST /api/batch - wyniki operacji w kolejności ich podania.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+
+    /**
+     * Czy zmiany zostały wycofane (tylko w trybie transakcyjnym, po nieudanej operacji).
+     */
+    private boolean rolledBack;
+
+    /**
+     * Wyniki wykonanych operacji. W trybie transakcyjnym lista kończy się na pierwszej nieudanej operacji.
+     */
+    private List<Result> results;
+
+    /**
+     * Wynik pojedynczej operacji - odpowiednik odpowiedzi HTTP.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+
+        /**
+         * Kod statusu HTTP.
+         */
+        private int status;
+
+        /**
+         * Nagłówki odpowiedzi (np. Location, Content-Type).
+         */
+        private Map<String, String> headers;
+
+        /**
+         * Ciało odpowiedzi: JSON, tekst lub null.
+         */
+        private JsonNode body;
+    }
+}
@@ -0,0 +1,52 @@
+package com.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Zdarzenie unieważnienia pamięci podręcznej zgłoszone przez inną instancję aplikacji.
+ * Publikowane lokalnie przez ClusterCoordinator po odczytaniu wpisu z dziennika zmian.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationEvent {
+
+    /**
+     * Agenda lekarza (AgendaService) - unieważniany dzień lekarza.
+     */
+    public static final String AGENDA = "agenda";
+
+    /**
+     * Kolejka oczekujących lekarza (WaitlistService) - przeładowywana z bazy.
+     */
+    public static final String WAITLIST = "waitlist";
+
+    /**
+     * Unieważnienia tokenów JWT (TokenRevocationService) - filtr kliniki uzupełniany z bazy.
+     */
+    public static final String TOKEN_REVOCATION = "token-revocation";
+
+    /**
+     * Klinika, której dotyczy zmiana (zob. TenantContext).
+     */
+    private String tenant;
+
+    /**
+     * Nazwa pamięci podręcznej.
+     */
+    private String cacheName;
+
+    /**
+     * ID lekarza, którego dotyczy zmiana.
+     */
+    private Long doctorId;
+
+    /**
+     * Dzień, którego dotyczy zmiana, lub null.
+     */
+    private LocalDate day;
+}
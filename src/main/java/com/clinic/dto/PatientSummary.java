@@ -0,0 +1,28 @@
+package com.clinic.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Dane pacjenta zwracane na liście pacjentów - bez wizyt i dokumentacji medycznej.
+ * Tworzone bezpośrednio w zapytaniu JPQL (projekcja konstruktorowa), bez ładowania encji,
+ * i zapisywane do JSON przez PatientSummarySerializer (bez refleksji).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = PatientSummarySerializer.class)
+public class PatientSummary {
+    private Long id;
+    private String imie;
+    private String nazwisko;
+    private LocalDate dataUrodzenia;
+    private String email;
+    private String telefon;
+    private String pesel;
+    private String adres;
+}
@@ -0,0 +1,59 @@
+package com.clinic.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Strumieniowy zapis PatientSummary do JSON.
+ *
+ * Nazwy pól są zakodowane raz (SerializedString), a wartości zapisywane bezpośrednio do JsonGenerator -
+ * bez introspekcji klasy i wywołań getterów przez refleksję. Format jest taki sam jak przy domyślnej
+ * serializacji Jacksona (daty w ISO-8601, pola null zapisywane jako null).
+ */
+public class PatientSummarySerializer extends StdSerializer<PatientSummary> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString IMIE = new SerializedString("imie");
+    private static final SerializedString NAZWISKO = new SerializedString("nazwisko");
+    private static final SerializedString DATA_URODZENIA = new SerializedString("dataUrodzenia");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString TELEFON = new SerializedString("telefon");
+    private static final SerializedString PESEL = new SerializedString("pesel");
+    private static final SerializedString ADRES = new SerializedString("adres");
+
+    public PatientSummarySerializer() {
+        super(PatientSummary.class);
+    }
+
+    @Override
+    public void serialize(PatientSummary patient, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(patient);
+        generator.writeFieldName(ID);
+        if (patient.getId() != null) {
+            generator.writeNumber(patient.getId());
+        } else {
+            generator.writeNull();
+        }
+        writeString(generator, IMIE, patient.getImie());
+        writeString(generator, NAZWISKO, patient.getNazwisko());
+        writeString(generator, DATA_URODZENIA, patient.getDataUrodzenia() != null ? patient.getDataUrodzenia().toString() : null);
+        writeString(generator, EMAIL, patient.getEmail());
+        writeString(generator, TELEFON, patient.getTelefon());
+        writeString(generator, PESEL, patient.getPesel());
+        writeString(generator, ADRES, patient.getAdres());
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, SerializedString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metryki połączeń z bazą danych jednej kliniki (GET /api/admin/tenants).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TenantConnectionStats {
+
+    /**
+     * Identyfikator kliniki (nazwa schematu).
+     */
+    private String tenant;
+
+    /**
+     * Limit jednocześnie używanych połączeń kliniki.
+     */
+    private int maxConnections;
+
+    /**
+     * Liczba połączeń używanych w tej chwili.
+     */
+    private int activeConnections;
+
+    /**
+     * Największa liczba jednocześnie używanych połączeń od startu aplikacji.
+     */
+    private int peakConnections;
+
+    /**
+     * Liczba wydanych połączeń od startu aplikacji.
+     */
+    private long acquiredTotal;
+
+    /**
+     * Liczba odmów (limit kliniki wyczerpany dłużej niż app.tenancy.acquireTimeoutMs).
+     */
+    private long rejectedTotal;
+
+    /**
+     * Średni czas oczekiwania na połączenie w limicie kliniki (ms).
+     */
+    private double averageWaitMs;
+}
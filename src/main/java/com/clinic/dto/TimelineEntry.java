@@ -0,0 +1,45 @@
+package com.clinic.dto;
+
+import com.clinic.model.VisitStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pozycja osi czasu pacjenta - wizyta (także zarchiwizowana) albo dokument medyczny.
+ * Pola niedotyczące danego typu pozycji są pomijane w JSON.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TimelineEntry {
+
+    public static final String VISIT = "VISIT";
+    public static final String DOCUMENT = "DOCUMENT";
+
+    /**
+     * Typ pozycji: VISIT lub DOCUMENT.
+     */
+    private String type;
+    private Long id;
+    /**
+     * Data wizyty albo data utworzenia dokumentu.
+     */
+    private LocalDateTime timestamp;
+    /**
+     * Dla wizyt: czy wizyta pochodzi z archiwum.
+     */
+    private Boolean archived;
+    private VisitStatus status;
+    private Long doctorId;
+    /**
+     * Dla dokumentów: nazwa dokumentu (treść nie jest pobierana).
+     */
+    private String name;
+    private Long visitId;
+    private Long archivedVisitId;
+}
@@ -0,0 +1,19 @@
+package com.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Strona osi czasu pacjenta. Kolejną stronę pobiera się, przekazując nextCursor jako parametr cursor;
+ * brak nextCursor oznacza koniec osi czasu.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelinePage {
+    private List<TimelineEntry> entries;
+    private String nextCursor;
+}
@@ -0,0 +1,51 @@
+package com.clinic.dto;
+
+import com.clinic.model.VisitStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Zdarzenie zmiany wizyty wysyłane do subskrybentów strumienia SSE (tablice recepcji, kolejki lekarzy).
+ * Publikowane przez VisitService, rozsyłane dopiero po zatwierdzeniu transakcji.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitChangeEvent {
+
+    /**
+     * Rodzaj zmiany wizyty.
+     */
+    public enum Type {
+        SCHEDULED,
+        UPDATED,
+        CANCELLED,
+        COMPLETED,
+        DELETED
+    }
+
+    /**
+     * Numer zdarzenia (rosnący), nadawany przy rozsyłaniu; używany jako Last-Event-ID.
+     */
+    private long id;
+
+    private Type type;
+    private Long visitId;
+    private Long doctorId;
+    private Long patientId;
+    private LocalDateTime visitDateTime;
+    private VisitStatus status;
+
+    /**
+     * Lekarz przed zmianą (tylko dla UPDATED), aby subskrybenci dotychczasowego lekarza zobaczyli przeniesienie wizyty.
+     */
+    private Long previousDoctorId;
+
+    /**
+     * Termin przed zmianą (tylko dla UPDATED).
+     */
+    private LocalDateTime previousVisitDateTime;
+}
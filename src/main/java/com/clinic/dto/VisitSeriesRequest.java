@@ -0,0 +1,48 @@
+package com.clinic.dto;
+
+import com.clinic.model.RecurrenceFrequency;
+import com.clinic.model.SeriesConflictPolicy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Żądanie POST /api/visits/series - reguła powtarzania cyklicznej serii wizyt.
+ * Liczbę wystąpień określa count albo until (co najwyżej app.visitSeries.maxOccurrences).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitSeriesRequest {
+    private Long patientId;
+    private Long doctorId;
+
+    /**
+     * Termin pierwszej wizyty serii.
+     */
+    private LocalDateTime start;
+
+    private RecurrenceFrequency frequency;
+
+    /**
+     * Odstęp między wizytami w jednostkach częstotliwości (domyślnie 1).
+     */
+    private Integer interval;
+
+    /**
+     * Liczba wystąpień.
+     */
+    private Integer count;
+
+    /**
+     * Ostatni możliwy termin wizyty (włącznie) - alternatywa dla count.
+     */
+    private LocalDateTime until;
+
+    /**
+     * Obsługa wystąpień kolidujących z istniejącymi wizytami lekarza (domyślnie FAIL).
+     */
+    private SeriesConflictPolicy conflictPolicy;
+}
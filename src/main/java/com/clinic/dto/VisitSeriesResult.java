@@ -0,0 +1,54 @@
+package com.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Wynik operacji na serii wizyt - wystąpienia serii wraz z informacją, jak zostały obsłużone.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitSeriesResult {
+    private Long seriesId;
+    private List<Occurrence> occurrences;
+
+    /**
+     * Wystąpienie serii.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Occurrence {
+
+        public static final String SCHEDULED = "SCHEDULED";
+        public static final String SHIFTED = "SHIFTED";
+        public static final String SKIPPED = "SKIPPED";
+        public static final String UPDATED = "UPDATED";
+        public static final String CANCELLED = "CANCELLED";
+
+        /**
+         * Termin wynikający z reguły powtarzania (lub termin przed zmianą serii).
+         */
+        private LocalDateTime requested;
+
+        /**
+         * Termin wizyty po operacji lub null dla pominiętego wystąpienia.
+         */
+        private LocalDateTime visitDateTime;
+
+        /**
+         * ID wizyty lub null dla pominiętego wystąpienia.
+         */
+        private Long visitId;
+
+        /**
+         * Sposób obsługi: SCHEDULED, SHIFTED, SKIPPED, UPDATED lub CANCELLED.
+         */
+        private String outcome;
+    }
+}
@@ -0,0 +1,32 @@
+package com.clinic.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Żądanie PUT /api/visits/series/{id} - zmiana wszystkich zaplanowanych wizyt serii od podanej chwili.
+ * Kolizja którejkolwiek zmienionej wizyty odrzuca całą zmianę.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitSeriesUpdate {
+
+    /**
+     * Zmieniane są wizyty od tej chwili (domyślnie od teraz).
+     */
+    private LocalDateTime from;
+
+    /**
+     * Przesunięcie terminów w minutach (np. 60 - godzinę później), opcjonalne.
+     */
+    private Integer shiftMinutes;
+
+    /**
+     * Nowy lekarz wizyt, opcjonalny.
+     */
+    private Long doctorId;
+}
@@ -0,0 +1,49 @@
+package com.clinic.dto;
+
+import com.clinic.model.VisitStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Wiersz raportu statystyk wizyt dla jednej grupy (lekarz, specjalizacja lub dzień).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitStatisticsReport {
+
+    /**
+     * Klucz grupy: ID lekarza, nazwa specjalizacji lub data (ISO_LOCAL_DATE).
+     */
+    private String group;
+
+    /**
+     * Liczba wizyt w podziale na status.
+     */
+    private Map<VisitStatus, Long> countsByStatus = new EnumMap<>(VisitStatus.class);
+
+    /**
+     * Łączna liczba wizyt.
+     */
+    private long total;
+
+    /**
+     * Liczba wizyt niezrealizowanych: status NO_SHOW oraz wizyty, które w dniu, który już minął,
+     * nadal mają status SCHEDULED (jeszcze nieobjęte porządkowaniem).
+     */
+    private long noShows;
+
+    /**
+     * Odsetek wizyt anulowanych (0..1).
+     */
+    private double cancellationRate;
+
+    /**
+     * Odsetek wizyt niezrealizowanych (0..1).
+     */
+    private double noShowRate;
+}
@@ -0,0 +1,62 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca zarchiwizowaną wizytę (tabela visit_archive).
+ * Zakończone wizyty starsze niż zadany wiek są przenoszone z tabeli visit, aby tabela wizyt
+ * (sprawdzanie kolizji, agenda, bieżące historie) obejmowała tylko ostatnie miesiące.
+ * Wizyta zachowuje swoje ID. Wizyty usuniętego lekarza lub pacjenta są pomijane jak w Visit.
+ */
+@Entity
+@SQLRestriction("not exists (select 1 from doctor d where d.id = doctor_id and d.deleted_at is not null) " +
+        "and not exists (select 1 from patient p where p.id = patient_id and p.deleted_at is not null)")
+@Table(name = "visit_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedVisit {
+
+    /**
+     * Identyfikator wizyty (taki sam jak przed archiwizacją).
+     */
+    @Id
+    private Long id;
+
+    /**
+     * Data i godzina wizyty.
+     */
+    @Column(nullable = false)
+    private LocalDateTime visitDateTime;
+
+    /**
+     * Status wizyty w chwili archiwizacji.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private VisitStatus status;
+
+    /**
+     * ID lekarza.
+     */
+    @Column(nullable = false)
+    private Long doctorId;
+
+    /**
+     * ID pacjenta.
+     */
+    @Column(nullable = false)
+    private Long patientId;
+
+    /**
+     * Data i godzina archiwizacji.
+     */
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
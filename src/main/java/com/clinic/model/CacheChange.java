@@ -0,0 +1,58 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca wpis dziennika zmian (tabela cache_change_log).
+ * Zapisywana w transakcji zmieniającej dane; pozostałe instancje aplikacji odczytują dziennik
+ * i unieważniają odpowiednie wpisy swoich pamięci podręcznych.
+ */
+@Entity
+@Table(name = "cache_change_log")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheChange {
+
+    /**
+     * Unikalny identyfikator wpisu. Generowany automatycznie.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Identyfikator instancji, która zapisała zmianę.
+     */
+    @Column(nullable = false, length = 64)
+    private String nodeId;
+
+    /**
+     * Nazwa pamięci podręcznej (zob. CacheInvalidationEvent).
+     */
+    @Column(nullable = false, length = 32)
+    private String cacheName;
+
+    /**
+     * ID lekarza, którego dotyczy zmiana.
+     */
+    private Long doctorId;
+
+    /**
+     * Dzień, którego dotyczy zmiana (jeśli pamięć podręczna jest podzielona na dni).
+     */
+    @Column(name = "change_day")
+    private LocalDate day;
+
+    /**
+     * Czas zapisu wpisu (tuż przed zatwierdzeniem transakcji).
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+
+/**
+ * Encja reprezentująca zasób przychodni (gabinet, urządzenie - np. USG), który wizyta może wymagać
+ * oprócz lekarza. Zasób może być w danym terminie zarezerwowany tylko dla jednej zaplanowanej wizyty.
+ */
+@Entity
+@Table(name = "clinic_resource")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClinicResource {
+
+    /**
+     * Unikalny identyfikator zasobu. Generowany automatycznie.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Nazwa zasobu (np. "Gabinet 12", "USG Voluson"). Musi być unikalna.
+     */
+    @Column(unique = true, nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ResourceType type;
+}
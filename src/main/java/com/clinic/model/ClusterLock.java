@@ -0,0 +1,40 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca blokadę współdzieloną przez instancje aplikacji.
+ * Blokada jest dzierżawiona do określonej chwili - jeśli instancja-właściciel przestanie działać,
+ * po wygaśnięciu dzierżawy blokadę może przejąć inna instancja.
+ */
+@Entity
+@Table(name = "cluster_lock")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterLock {
+
+    /**
+     * Nazwa blokady (np. nazwa zadania wsadowego).
+     */
+    @Id
+    @Column(name = "lock_name", length = 64)
+    private String name;
+
+    /**
+     * Identyfikator instancji, która ostatnio uzyskała blokadę.
+     */
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    /**
+     * Koniec dzierżawy blokady.
+     */
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+}
@@ -4,14 +4,21 @@ import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.Data;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import java.util.List;
 import com.fasterxml.jackson.annotation.JsonManagedReference; // Dodaj ten import
 
 /**
  * Encja reprezentująca lekarza w systemie przychodni.
  * Zawiera dane osobowe lekarza, jego specjalizację oraz powiązania z wizytami.
+ * Hibernate generuje UPDATE tylko dla zmienionych kolumn (DynamicUpdate).
+ * Lekarz usunięty (kolumna deleted_at) jest pomijany przez wszystkie zapytania (SQLRestriction) do czasu
+ * ostatecznego usunięcia wiersza w tle (EntityPurgeService).
  */
 @Entity
+@DynamicUpdate
+@SQLRestriction("deleted_at is null")
 @Table(name = "doctor")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,49 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca punkt kontrolny zadania wsadowego (np. porządkowania przeterminowanych wizyt).
+ * Zapisywana w tej samej transakcji co przetworzona paczka, dzięki czemu postęp przetrwa restart aplikacji.
+ */
+@Entity
+@Table(name = "job_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    /**
+     * Nazwa zadania.
+     */
+    @Id
+    @Column(length = 64)
+    private String jobName;
+
+    /**
+     * Data i godzina ostatniego przetworzonego rekordu.
+     */
+    private LocalDateTime lastDateTime;
+
+    /**
+     * ID ostatniego przetworzonego rekordu.
+     */
+    private Long lastId;
+
+    /**
+     * Łączna liczba przetworzonych rekordów.
+     */
+    @Column(nullable = false)
+    private long processedTotal;
+
+    /**
+     * Czas ostatniej aktualizacji punktu kontrolnego.
+     */
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -5,14 +5,20 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import jakarta.persistence.*;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 
 /**
  * Encja reprezentująca dokument medyczny pacjenta.
  * Może to być historia choroby, wyniki badań, itp.
+ * Dokumenty usuniętego pacjenta oraz dokumenty wizyt usuniętego lekarza są pomijane przez zapytania JPA
+ * do czasu ich usunięcia w tle (EntityPurgeService).
  */
 @Entity
+@SQLRestriction("not exists (select 1 from patient p where p.id = patient_id and p.deleted_at is not null) " +
+        "and not exists (select 1 from visit v, doctor d where v.id = visit_id and d.id = v.doctor_id " +
+        "and d.deleted_at is not null)")
 @Table(name = "medical_document")
 @Data
 @NoArgsConstructor
@@ -66,4 +72,11 @@ public class MedicalDocument {
     @JoinColumn(name = "visit_id")
     @JsonBackReference("visit-medicalDocuments") //
     private Visit visit;
+
+    /**
+     * ID zarchiwizowanej wizyty, z którą dokument był powiązany (zob. ArchivedVisit).
+     * Ustawiane przy archiwizacji wizyty w miejsce relacji z wizytą.
+     */
+    @Column(name = "archived_visit_id")
+    private Long archivedVisitId;
 }
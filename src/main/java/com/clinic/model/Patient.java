@@ -6,14 +6,21 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDate;
 import java.util.List;
 
 /**
  * Encja reprezentująca pacjenta w systemie przychodni.
  * Zawiera podstawowe dane osobowe pacjenta oraz powiązania z wizytami i dokumentacją medyczną.
+ * UPDATE obejmuje tylko zmienione kolumny (DynamicUpdate), np. zmiana samego telefonu nie zapisuje kolumn email i PESEL.
+ * Pacjent usunięty (kolumna deleted_at) jest pomijany przez wszystkie zapytania (SQLRestriction), a jego dane
+ * są usuwane w tle (EntityPurgeService).
  */
 @Entity
+@DynamicUpdate
+@SQLRestriction("deleted_at is null")
 @Table(name = "patient") // Nazwa tabeli w bazie danych
 @Data
 @NoArgsConstructor
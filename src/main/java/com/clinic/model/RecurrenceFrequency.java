@@ -0,0 +1,28 @@
+package com.clinic.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Enum definiujący częstotliwość powtarzania wizyt w serii.
+ */
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * Zwraca termin n-tego wystąpienia serii (liczony od pierwszego terminu, bez kumulowania przesunięć).
+     * @param first Termin pierwszej wizyty.
+     * @param interval Odstęp w jednostkach częstotliwości.
+     * @param n Numer wystąpienia (od 0).
+     * @return Termin wystąpienia.
+     */
+    public LocalDateTime occurrence(LocalDateTime first, int interval, int n) {
+        long steps = (long) interval * n;
+        return switch (this) {
+            case DAILY -> first.plusDays(steps);
+            case WEEKLY -> first.plusWeeks(steps);
+            case MONTHLY -> first.plusMonths(steps);
+        };
+    }
+}
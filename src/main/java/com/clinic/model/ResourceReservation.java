@@ -0,0 +1,40 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca rezerwację zasobu przychodni na wizytę.
+ * Termin wizyty jest powielony (visitDateTime), aby kolizje zasobu były sprawdzane po indeksie (resource_id, visit_date_time).
+ * Rezerwacja blokuje zasób tylko, dopóki wizyta ma status SCHEDULED.
+ */
+@Entity
+@Table(name = "resource_reservation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceReservation {
+
+    /**
+     * Unikalny identyfikator rezerwacji. Generowany automatycznie.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "resource_id", nullable = false)
+    private Long resourceId;
+
+    @Column(name = "visit_id", nullable = false)
+    private Long visitId;
+
+    /**
+     * Termin wizyty (kopia Visit.visitDateTime, aktualizowana przy zmianie terminu wizyty).
+     */
+    @Column(nullable = false)
+    private LocalDateTime visitDateTime;
+}
@@ -0,0 +1,9 @@
+package com.clinic.model;
+
+/**
+ * Enum definiujący rodzaje zasobów przychodni rezerwowanych dla wizyt.
+ */
+public enum ResourceType {
+    ROOM,
+    EQUIPMENT
+}
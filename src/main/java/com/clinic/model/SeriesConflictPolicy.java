@@ -0,0 +1,10 @@
+package com.clinic.model;
+
+/**
+ * Enum definiujący sposób obsługi wystąpień serii wizyt kolidujących z istniejącymi wizytami lekarza.
+ */
+public enum SeriesConflictPolicy {
+    SKIP,  // Kolidujące wystąpienie jest pomijane
+    SHIFT, // Wystąpienie jest przesuwane na najbliższy wolny termin tego samego dnia (lub pomijane, jeśli go brak)
+    FAIL   // Dowolna kolizja odrzuca całą serię
+}
@@ -0,0 +1,45 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca unieważnienie tokenów JWT użytkownika.
+ * Wszystkie tokeny użytkownika wydane nie później niż revokedBefore są odrzucane.
+ */
+@Entity
+@Table(name = "token_revocation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+
+    /**
+     * Unikalny identyfikator wpisu. Generowany automatycznie.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Adres e-mail użytkownika (subject tokena).
+     */
+    @Column(nullable = false)
+    private String subject;
+
+    /**
+     * Chwila unieważnienia - tokeny wydane do tej chwili włącznie są nieważne.
+     */
+    @Column(nullable = false)
+    private LocalDateTime revokedBefore;
+
+    /**
+     * Chwila, po której wszystkie unieważnione tokeny i tak wygasły (wpis można usunąć).
+     */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -5,6 +5,8 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 import java.util.List;
 import com.fasterxml.jackson.annotation.JsonBackReference;
@@ -13,8 +15,16 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 /**
  * Encja reprezentująca wizytę pacjenta u lekarza.
  * Zawiera informacje o terminie, lekarzu, pacjencie i statusie wizyty.
+ * Wiersz wizyty jest często zmieniany (status, termin), więc UPDATE zapisuje tylko zmienione kolumny (DynamicUpdate).
+ * Wizyty usuniętego lekarza lub pacjenta (deleted_at) są pomijane przez zapytania JPA (SQLRestriction) - także przy
+ * sprawdzaniu kolizji - do czasu ich usunięcia w tle (EntityPurgeService, zapytania natywne). Warunek sprawdza lekarza
+ * i pacjenta każdego wiersza po kluczu głównym (NOT EXISTS), więc jego koszt rośnie z liczbą zwracanych wizyt,
+ * a nie z liczbą lekarzy i pacjentów.
  */
 @Entity
+@DynamicUpdate
+@SQLRestriction("not exists (select 1 from doctor d where d.id = doctor_id and d.deleted_at is not null) " +
+        "and not exists (select 1 from patient p where p.id = patient_id and p.deleted_at is not null)")
 @Table(name = "visit")
 @Data
 @NoArgsConstructor
@@ -77,4 +87,10 @@ public class Visit {
     @OneToMany(mappedBy = "visit", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference("visit-medicalDocuments")
     private List<MedicalDocument> medicalDocuments;
+
+    /**
+     * ID serii wizyt, do której należy wizyta (zob. VisitSeries), lub null dla pojedynczej wizyty.
+     */
+    @Column(name = "series_id")
+    private Long seriesId;
 }
@@ -0,0 +1,61 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca cykliczną serię wizyt pacjenta u lekarza.
+ * Wystąpienia serii są zwykłymi wizytami (Visit) z ustawionym seriesId.
+ */
+@Entity
+@Table(name = "visit_series")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitSeries {
+
+    /**
+     * Unikalny identyfikator serii. Generowany automatycznie.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    /**
+     * Częstotliwość powtarzania wizyt.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecurrenceFrequency frequency;
+
+    /**
+     * Odstęp między wizytami w jednostkach częstotliwości (np. 2 przy WEEKLY - co dwa tygodnie).
+     */
+    @Column(name = "interval_count", nullable = false)
+    private int interval;
+
+    /**
+     * Termin pierwszego wystąpienia serii.
+     */
+    @Column(nullable = false)
+    private LocalDateTime firstVisit;
+
+    /**
+     * Liczba wystąpień wynikająca z reguły powtarzania (przed pominięciem kolidujących).
+     */
+    @Column(nullable = false)
+    private int occurrences;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,60 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Encja reprezentująca licznik wizyt dla pary (lekarz, dzień) w danym statusie.
+ * Liczniki są aktualizowane w tej samej transakcji, co zmiana statusu wizyty,
+ * dzięki czemu raporty nie wymagają przeszukiwania tabeli wizyt.
+ */
+@Entity
+@Table(name = "visit_stats_daily")
+@IdClass(VisitStatistic.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitStatistic {
+
+    /**
+     * ID lekarza.
+     */
+    @Id
+    private Long doctorId;
+
+    /**
+     * Dzień wizyt.
+     */
+    @Id
+    private LocalDate statDate;
+
+    /**
+     * Status wizyt.
+     */
+    @Id
+    @Enumerated(EnumType.STRING)
+    private VisitStatus status;
+
+    /**
+     * Liczba wizyt.
+     */
+    @Column(nullable = false)
+    private Long visitCount;
+
+    /**
+     * Klucz złożony licznika.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long doctorId;
+        private LocalDate statDate;
+        private VisitStatus status;
+    }
+}
@@ -6,5 +6,25 @@ package com.clinic.model;
 public enum VisitStatus {
     SCHEDULED,
     COMPLETED,
-    CANCELLED
+    CANCELLED,
+    NO_SHOW; // Pacjent nie stawił się (ustawiany m.in. przez porządkowanie przeterminowanych wizyt)
+
+    /**
+     * Sprawdza, czy wizyta o tym statusie może przejść do podanego statusu.
+     * Ukończona wizyta nie zmienia już statusu, anulowaną można tylko przywrócić do zaplanowanych,
+     * a niezrealizowaną - przywrócić lub oznaczyć jako ukończoną (np. po błędnym oznaczeniu przez porządkowanie).
+     * @param target Nowy status.
+     * @return true, jeśli zmiana jest dozwolona (także brak zmiany).
+     */
+    public boolean canTransitionTo(VisitStatus target) {
+        if (this == target) {
+            return true;
+        }
+        return switch (this) {
+            case SCHEDULED -> true;
+            case COMPLETED -> false;
+            case CANCELLED -> target == SCHEDULED;
+            case NO_SHOW -> target == SCHEDULED || target == COMPLETED;
+        };
+    }
 }
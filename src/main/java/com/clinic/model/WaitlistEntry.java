@@ -0,0 +1,76 @@
+package com.clinic.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Encja reprezentująca wpis pacjenta na liście oczekujących na termin u lekarza.
+ * Gdy w preferowanym przedziale czasu zwolni się termin (anulowanie wizyty),
+ * wizyta jest automatycznie umawiana dla najlepiej pasującego oczekującego.
+ */
+@Entity
+@Table(name = "waitlist_entry")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+
+    /**
+     * Unikalny identyfikator wpisu. Generowany automatycznie.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ID lekarza, na którego termin czeka pacjent.
+     */
+    @Column(nullable = false)
+    private Long doctorId;
+
+    /**
+     * ID oczekującego pacjenta.
+     */
+    @Column(nullable = false)
+    private Long patientId;
+
+    /**
+     * Początek preferowanego przedziału czasu (włącznie).
+     */
+    @Column(nullable = false)
+    private LocalDateTime windowStart;
+
+    /**
+     * Koniec preferowanego przedziału czasu (wyłącznie).
+     */
+    @Column(nullable = false)
+    private LocalDateTime windowEnd;
+
+    /**
+     * Priorytet - wyższy jest obsługiwany wcześniej; przy równym priorytecie decyduje kolejność zapisu.
+     */
+    @Column(nullable = false)
+    private int priority;
+
+    /**
+     * Data i godzina zapisu na listę.
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Status wpisu.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status;
+
+    /**
+     * ID wizyty umówionej z listy oczekujących (dla statusu BOOKED).
+     */
+    private Long visitId;
+}
@@ -0,0 +1,11 @@
+package com.clinic.model;
+
+/**
+ * Enum definiujący możliwe statusy wpisu na liście oczekujących.
+ */
+public enum WaitlistStatus {
+    WAITING,
+    BOOKED,
+    CANCELLED,
+    EXPIRED
+}
@@ -0,0 +1,37 @@
+package com.clinic.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie Java Flight Recorder rejestrowane przy odczycie i zapisie dokumentów medycznych.
+ */
+@Name("com.clinic.MedicalDocumentIo")
+@Label("Odczyt/zapis dokumentu medycznego")
+@Category({"Clinic", "Medical Documents"})
+@Description("Czas operacji na dokumentach medycznych oraz rozmiar przetworzonej treści.")
+public class MedicalDocumentIoEvent extends Event {
+
+    /**
+     * Rodzaj operacji (READ lub WRITE).
+     */
+    @Label("Operacja")
+    public String operation;
+
+    /**
+     * Liczba dokumentów objętych operacją.
+     */
+    @Label("Liczba dokumentów")
+    public int documentCount;
+
+    /**
+     * Łączny rozmiar treści dokumentów w bajtach (UTF-8).
+     */
+    @Label("Rozmiar")
+    @DataAmount(DataAmount.BYTES)
+    public long sizeInBytes;
+}
@@ -0,0 +1,23 @@
+package com.clinic.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie Java Flight Recorder rejestrowane przy walidacji tokena JWT.
+ */
+@Name("com.clinic.TokenValidation")
+@Label("Walidacja tokena JWT")
+@Category({"Clinic", "Security"})
+@Description("Czas i wynik walidacji tokena JWT.")
+public class TokenValidationEvent extends Event {
+
+    /**
+     * Wynik walidacji (VALID, INVALID_SIGNATURE, MALFORMED, EXPIRED, UNSUPPORTED, EMPTY).
+     */
+    @Label("Wynik")
+    public String outcome;
+}
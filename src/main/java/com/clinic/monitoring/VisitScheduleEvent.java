@@ -0,0 +1,36 @@
+package com.clinic.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie Java Flight Recorder rejestrowane przy każdym planowaniu wizyty.
+ * Czas trwania zdarzenia obejmuje sprawdzenie konfliktów oraz zapis wizyty.
+ */
+@Name("com.clinic.VisitSchedule")
+@Label("Planowanie wizyty")
+@Category({"Clinic", "Visits"})
+@Description("Czas planowania wizyty wraz z liczbą sprawdzonych wizyt kolidujących.")
+public class VisitScheduleEvent extends Event {
+
+    /**
+     * ID lekarza, do którego planowana jest wizyta.
+     */
+    @Label("ID lekarza")
+    public long doctorId;
+
+    /**
+     * Liczba wizyt zwróconych przez zapytanie o konflikty.
+     */
+    @Label("Sprawdzone konflikty")
+    public int conflictsChecked;
+
+    /**
+     * Czy wizyta została zapisana (false, gdy termin był zajęty lub wystąpił błąd).
+     */
+    @Label("Zaplanowano")
+    public boolean scheduled;
+}
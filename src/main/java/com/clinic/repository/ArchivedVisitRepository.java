@@ -0,0 +1,118 @@
+package com.clinic.repository;
+
+import com.clinic.model.ArchivedVisit;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repozytorium do zarządzania archiwum wizyt (ArchivedVisit).
+ */
+@Repository
+public interface ArchivedVisitRepository extends JpaRepository<ArchivedVisit, Long> {
+
+    /**
+     * Znajduje zarchiwizowane wizyty pacjenta w przedziale czasowym, posortowane chronologicznie.
+     * Korzysta z indeksu (patient_id, visit_date_time).
+     * @param patientId ID pacjenta.
+     * @param from Początek przedziału (włącznie).
+     * @param to Koniec przedziału (włącznie).
+     * @return Lista zarchiwizowanych wizyt.
+     */
+    @Query("select a from ArchivedVisit a where a.patientId = :patientId and a.visitDateTime between :from and :to " +
+            "order by a.visitDateTime asc")
+    List<ArchivedVisit> findByPatient(@Param("patientId") Long patientId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Znajduje zarchiwizowane wizyty lekarza w przedziale czasowym, posortowane chronologicznie.
+     * Korzysta z indeksu (doctor_id, visit_date_time).
+     * @param doctorId ID lekarza.
+     * @param from Początek przedziału (włącznie).
+     * @param to Koniec przedziału (włącznie).
+     * @return Lista zarchiwizowanych wizyt.
+     */
+    @Query("select a from ArchivedVisit a where a.doctorId = :doctorId and a.visitDateTime between :from and :to " +
+            "order by a.visitDateTime asc")
+    List<ArchivedVisit> findByDoctor(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Kopiuje podane wizyty z tabeli visit do archiwum jednym poleceniem INSERT ... SELECT.
+     * @param ids ID wizyt.
+     * @param archivedAt Data i godzina archiwizacji.
+     * @return Liczba skopiowanych wizyt.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO visit_archive (id, visit_date_time, status, doctor_id, patient_id, archived_at) " +
+            "SELECT v.id, v.visit_date_time, v.status, v.doctor_id, v.patient_id, :archivedAt FROM visit v " +
+            "WHERE v.id IN (:ids)", nativeQuery = true)
+    int copyFromVisits(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Zwraca datę najwcześniejszej zarchiwizowanej wizyty (null, jeśli archiwum jest puste).
+     * @return Data i czas najwcześniejszej wizyty.
+     */
+    @Query("select min(a.visitDateTime) from ArchivedVisit a")
+    LocalDateTime findMinVisitDateTime();
+
+    /**
+     * Zwraca datę najpóźniejszej zarchiwizowanej wizyty (null, jeśli archiwum jest puste).
+     * @return Data i czas najpóźniejszej wizyty.
+     */
+    @Query("select max(a.visitDateTime) from ArchivedVisit a")
+    LocalDateTime findMaxVisitDateTime();
+
+    /**
+     * Pobiera stronę osi czasu pacjenta - zarchiwizowane wizyty wcześniejsze niż pozycja (beforeTime, beforeId),
+     * najnowsze najpierw. Korzysta z indeksu (patient_id, visit_date_time) w odwrotnej kolejności.
+     * @param patientId ID pacjenta.
+     * @param beforeTime Data wizyty ostatniej pozycji poprzedniej strony.
+     * @param beforeId ID wizyty ostatniej pozycji poprzedniej strony (wizyty z tą samą datą i mniejszym ID są zwracane).
+     * @param limit Maksymalna liczba wizyt.
+     * @return Lista krotek [Long id, LocalDateTime visitDateTime, VisitStatus status, Long doctorId].
+     */
+    @Query("select a.id, a.visitDateTime, a.status, a.doctorId from ArchivedVisit a where a.patientId = :patientId " +
+            "and a.visitDateTime <= :beforeTime and (a.visitDateTime < :beforeTime or a.id < :beforeId) " +
+            "order by a.visitDateTime desc, a.id desc")
+    List<Object[]> findTimelinePage(@Param("patientId") Long patientId, @Param("beforeTime") LocalDateTime beforeTime,
+                                    @Param("beforeId") Long beforeId, Limit limit);
+
+    /**
+     * Pobiera paczkę ID zarchiwizowanych wizyt lekarza (usuwanie danych usuniętego lekarza). Zapytanie natywne -
+     * wizyty usuniętego lekarza są pomijane przez SQLRestriction encji ArchivedVisit.
+     * Korzysta z indeksu (doctor_id, visit_date_time) i zwraca wizyty w jego kolejności.
+     * @param doctorId ID lekarza.
+     * @param limit Rozmiar paczki.
+     * @return Lista ID wizyt.
+     */
+    @Query(value = "SELECT a.id FROM visit_archive a USE INDEX (idx_visit_archive_doctor_datetime) " +
+            "WHERE a.doctor_id = :doctorId ORDER BY a.visit_date_time, a.id", nativeQuery = true)
+    List<Long> findIdsByDoctorId(@Param("doctorId") Long doctorId, Limit limit);
+
+    /**
+     * Pobiera paczkę zarchiwizowanych wizyt pacjenta (usuwanie danych usuniętego pacjenta). Zapytanie natywne,
+     * jak findIdsByDoctorId. Korzysta z indeksu (patient_id, visit_date_time) i zwraca wizyty w jego kolejności.
+     * @param patientId ID pacjenta.
+     * @param limit Rozmiar paczki.
+     * @return Lista krotek [id, doctor_id, visit_date_time, status].
+     */
+    @Query(value = "SELECT a.id, a.doctor_id, a.visit_date_time, a.status FROM visit_archive a " +
+            "USE INDEX (idx_visit_archive_patient_datetime) WHERE a.patient_id = :patientId " +
+            "ORDER BY a.visit_date_time, a.id", nativeQuery = true)
+    List<Object[]> findPurgeBatchByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    /**
+     * Usuwa zarchiwizowane wizyty jednym poleceniem DELETE (powiązania dokumentów są zerowane przez klucz obcy).
+     * Zapytanie natywne - DELETE w JPQL podlega SQLRestriction encji ArchivedVisit.
+     * @param ids ID wizyt.
+     * @return Liczba usuniętych wizyt.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM visit_archive WHERE id IN (:ids)", nativeQuery = true)
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+}
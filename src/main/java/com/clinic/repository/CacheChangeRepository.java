@@ -0,0 +1,31 @@
+package com.clinic.repository;
+
+import com.clinic.model.CacheChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repozytorium dziennika zmian pamięci podręcznych (CacheChange).
+ */
+@Repository
+public interface CacheChangeRepository extends JpaRepository<CacheChange, Long> {
+
+    /**
+     * Pobiera zmiany zapisane przez inne instancje od podanej chwili.
+     */
+    List<CacheChange> findByCreatedAtGreaterThanEqualAndNodeIdNotOrderByIdAsc(LocalDateTime since, String nodeId);
+
+    /**
+     * Usuwa wpisy starsze niż podana chwila.
+     * @return Liczba usuniętych wpisów.
+     */
+    @Modifying
+    @Query("DELETE FROM CacheChange c WHERE c.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,38 @@
+package com.clinic.repository;
+
+import com.clinic.model.ClinicResource;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repozytorium do zarządzania zasobami przychodni (ClinicResource).
+ */
+@Repository
+public interface ClinicResourceRepository extends JpaRepository<ClinicResource, Long> {
+
+    /**
+     * Znajduje zasób po nazwie.
+     * @param name Nazwa zasobu.
+     * @return Opcjonalny obiekt ClinicResource, jeśli znaleziono.
+     */
+    Optional<ClinicResource> findByName(String name);
+
+    /**
+     * Pobiera zasoby z blokadą zapisu wierszy (SELECT ... FOR UPDATE) do końca transakcji, w kolejności rosnącego ID.
+     * Stała kolejność blokad (zawsze najpierw lekarz, potem zasoby według ID) wyklucza zakleszczenia
+     * między równoległymi rezerwacjami tych samych zasobów.
+     * @param ids ID zasobów.
+     * @return Lista zasobów posortowana po ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ClinicResource r where r.id in :ids order by r.id")
+    List<ClinicResource> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,35 @@
+package com.clinic.repository;
+
+import com.clinic.model.ClusterLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repozytorium do zarządzania blokadami współdzielonymi przez instancje aplikacji (ClusterLock).
+ */
+@Repository
+public interface ClusterLockRepository extends JpaRepository<ClusterLock, String> {
+
+    /**
+     * Przejmuje lub przedłuża blokadę, jeśli należy już do danej instancji albo jej dzierżawa wygasła.
+     * @return 1, jeśli blokada została uzyskana; 0 w przeciwnym razie.
+     */
+    @Modifying
+    @Query("UPDATE ClusterLock l SET l.owner = :owner, l.lockedUntil = :until " +
+            "WHERE l.name = :name AND (l.owner = :owner OR l.lockedUntil < :now)")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    /**
+     * Zwalnia blokadę (kończy dzierżawę), jeśli należy do danej instancji.
+     * @return 1, jeśli blokada została zwolniona.
+     */
+    @Modifying
+    @Query("UPDATE ClusterLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -1,9 +1,16 @@
 package com.clinic.repository;
 
 import com.clinic.model.Doctor;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,4 +26,58 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
      * @return Opcjonalny obiekt Doctor, jeśli znaleziono.
      */
     Optional<Doctor> findByEmail(String email);
+
+    /**
+     * Pobiera lekarza z blokadą zapisu wiersza (SELECT ... FOR UPDATE) do końca transakcji.
+     * Szereguje umawianie wizyt u tego samego lekarza (recepcja, lista oczekujących),
+     * aby sprawdzenie kolizji terminów i zapis wizyty były niepodzielne.
+     * @param id ID lekarza.
+     * @return Opcjonalny obiekt Doctor, jeśli znaleziono.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from Doctor d where d.id = :id")
+    Optional<Doctor> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Pobiera (ID, imię, nazwisko) lekarzy danej specjalizacji (bez rozróżniania wielkości liter), bez ładowania encji.
+     * @param specjalizacja Specjalizacja, np. "Kardiolog".
+     * @return Lista krotek [Long id, String imie, String nazwisko] posortowana po ID.
+     */
+    @Query("select d.id, d.imie, d.nazwisko from Doctor d where lower(d.specjalizacja) = lower(:specjalizacja) order by d.id")
+    List<Object[]> findIdsAndNamesBySpecjalizacja(@Param("specjalizacja") String specjalizacja);
+
+    /**
+     * Oznacza lekarza jako usuniętego (miękkie usunięcie) - jedno polecenie UPDATE jednego wiersza.
+     * @param id ID lekarza.
+     * @param deletedAt Chwila usunięcia.
+     * @return 1, jeśli lekarz został oznaczony; 0, jeśli nie istnieje lub jest już usunięty.
+     */
+    @Modifying
+    @Query(value = "UPDATE doctor SET deleted_at = :deletedAt WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Pobiera ID lekarzy oznaczonych jako usunięci, których dane czekają na usunięcie.
+     * @return Lista ID w kolejności usuwania.
+     */
+    @Query(value = "SELECT id FROM doctor WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id", nativeQuery = true)
+    List<Long> findDeletedIds();
+
+    /**
+     * Sprawdza, czy adres e-mail należy do usuniętego lekarza, którego wiersz nie został jeszcze usunięty.
+     * @param email Adres e-mail.
+     * @return true, jeśli taki lekarz istnieje.
+     */
+    @Query(value = "SELECT COUNT(*) > 0 FROM doctor WHERE email = :email AND deleted_at IS NOT NULL", nativeQuery = true)
+    boolean existsDeletedByEmail(@Param("email") String email);
+
+    /**
+     * Usuwa wiersz lekarza oznaczonego jako usunięty (po usunięciu jego wizyt, archiwum i statystyk).
+     * Wpisy listy oczekujących i serie wizyt są usuwane kaskadowo.
+     * @param id ID lekarza.
+     * @return Liczba usuniętych wierszy.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM doctor WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeDeleted(@Param("id") Long id);
 }
@@ -0,0 +1,12 @@
+package com.clinic.repository;
+
+import com.clinic.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repozytorium do zarządzania punktami kontrolnymi zadań wsadowych (JobCheckpoint).
+ */
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -3,9 +3,14 @@ package com.clinic.repository;
 import com.clinic.model.MedicalDocument;
 import com.clinic.model.Patient;
 import com.clinic.model.Visit;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -15,12 +20,23 @@ import java.util.List;
 @Repository
 public interface MedicalDocumentRepository extends JpaRepository<MedicalDocument, Long> {
 
+    /**
+     * Warunek SQLRestriction encji MedicalDocument (pacjent i lekarz wizyty nieusunięci) dla zapytań natywnych z aliasem m.
+     */
+    String NOT_DELETED_OWNER = "NOT EXISTS (SELECT 1 FROM patient p WHERE p.id = m.patient_id AND p.deleted_at IS NOT NULL) " +
+            "AND NOT EXISTS (SELECT 1 FROM visit v, doctor d WHERE v.id = m.visit_id AND d.id = v.doctor_id " +
+            "AND d.deleted_at IS NOT NULL)";
+
     /**
      * Znajduje wszystkie dokumenty medyczne dla danego pacjenta.
+     * Korzysta z indeksu (patient_id, creation_date) - bez wskazówki USE INDEX H2 wybiera indeks klucza obcego patient_id.
+     * Zapytanie natywne nie podlega SQLRestriction encji MedicalDocument, więc warunek jest powtórzony.
      * @param patient Obiekt pacjenta.
-     * @return Lista dokumentów medycznych pacjenta.
+     * @return Lista dokumentów medycznych pacjenta, od najstarszego (kolejność indeksu).
      */
-    List<MedicalDocument> findByPatient(Patient patient);
+    @Query(value = "SELECT m.* FROM medical_document m USE INDEX (idx_medical_document_patient_created) " +
+            "WHERE m.patient_id = :#{#patient.id} AND " + NOT_DELETED_OWNER + " ORDER BY m.creation_date, m.id", nativeQuery = true)
+    List<MedicalDocument> findByPatient(@Param("patient") Patient patient);
 
     /**
      * Znajduje wszystkie dokumenty medyczne powiązane z daną wizytą.
@@ -28,4 +44,66 @@ public interface MedicalDocumentRepository extends JpaRepository<MedicalDocument
      * @return Lista dokumentów medycznych powiązanych z wizytą.
      */
     List<MedicalDocument> findByVisit(Visit visit);
+
+    /**
+     * Znajduje wszystkie dokumenty medyczne powiązane z zarchiwizowaną wizytą.
+     * @param archivedVisitId ID zarchiwizowanej wizyty.
+     * @return Lista dokumentów medycznych.
+     */
+    List<MedicalDocument> findByArchivedVisitId(Long archivedVisitId);
+
+    /**
+     * Przenosi powiązania dokumentów z wizyt archiwizowanych na ich odpowiedniki w archiwum.
+     * @param visitIds ID archiwizowanych wizyt.
+     * @return Liczba zmienionych dokumentów.
+     */
+    @Modifying
+    @Query(value = "UPDATE medical_document SET archived_visit_id = visit_id, visit_id = NULL " +
+            "WHERE visit_id IN (:visitIds)", nativeQuery = true)
+    int moveLinksToArchive(@Param("visitIds") List<Long> visitIds);
+
+    /**
+     * Pobiera stronę osi czasu pacjenta - dokumenty utworzone wcześniej niż pozycja (beforeTime, beforeId),
+     * najnowsze najpierw, bez treści dokumentów. Korzysta z indeksu (patient_id, creation_date) w odwrotnej kolejności.
+     * @param patientId ID pacjenta.
+     * @param beforeTime Data utworzenia ostatniej pozycji poprzedniej strony.
+     * @param beforeId ID ostatniej pozycji poprzedniej strony (dokumenty z tą samą datą i mniejszym ID są zwracane).
+     * @param limit Maksymalna liczba dokumentów.
+     * @return Lista krotek [Long id, LocalDateTime creationDate, String name, Long visitId, Long archivedVisitId].
+     */
+    @Query("select m.id, m.creationDate, m.name, m.visit.id, m.archivedVisitId from MedicalDocument m " +
+            "where m.patient.id = :patientId and m.creationDate <= :beforeTime and (m.creationDate < :beforeTime or m.id < :beforeId) " +
+            "order by m.creationDate desc, m.id desc")
+    List<Object[]> findTimelinePage(@Param("patientId") Long patientId, @Param("beforeTime") LocalDateTime beforeTime,
+                                    @Param("beforeId") Long beforeId, Limit limit);
+
+    /**
+     * Pobiera paczkę ID dokumentów pacjenta (usuwanie danych usuniętego pacjenta). Zapytanie natywne -
+     * dokumenty usuniętego pacjenta są pomijane przez SQLRestriction encji MedicalDocument.
+     * Korzysta z indeksu (patient_id, creation_date) i zwraca dokumenty w jego kolejności.
+     * @param patientId ID pacjenta.
+     * @param limit Rozmiar paczki.
+     * @return Lista ID dokumentów.
+     */
+    @Query(value = "SELECT m.id FROM medical_document m USE INDEX (idx_medical_document_patient_created) " +
+            "WHERE m.patient_id = :patientId ORDER BY m.creation_date, m.id", nativeQuery = true)
+    List<Long> findIdsByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    /**
+     * Usuwa dokumenty powiązane z wizytami jednym poleceniem DELETE (natywnym, jak findIdsByPatientId).
+     * @param visitIds ID wizyt.
+     * @return Liczba usuniętych dokumentów.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM medical_document WHERE visit_id IN (:visitIds)", nativeQuery = true)
+    int deleteByVisitIdIn(@Param("visitIds") List<Long> visitIds);
+
+    /**
+     * Usuwa dokumenty o podanych ID jednym poleceniem DELETE (natywnym, jak findIdsByPatientId).
+     * @param ids ID dokumentów.
+     * @return Liczba usuniętych dokumentów.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM medical_document WHERE id IN (:ids)", nativeQuery = true)
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
 }
@@ -1,9 +1,15 @@
 package com.clinic.repository;
 
+import com.clinic.dto.PatientSummary;
 import com.clinic.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +32,49 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
      * @return Opcjonalny obiekt Patient, jeśli znaleziono.
      */
     Optional<Patient> findByPesel(String pesel);
+
+    /**
+     * Pobiera dane wszystkich pacjentów (bez wizyt i dokumentacji) jako projekcję, bez ładowania encji.
+     * @return Lista pacjentów posortowana po ID.
+     */
+    @Query("SELECT new com.clinic.dto.PatientSummary(p.id, p.imie, p.nazwisko, p.dataUrodzenia, p.email, p.telefon, p.pesel, p.adres) "
+            + "FROM Patient p ORDER BY p.id")
+    List<PatientSummary> findAllSummaries();
+
+    /**
+     * Oznacza pacjenta jako usuniętego (miękkie usunięcie) - jedno polecenie UPDATE jednego wiersza.
+     * @param id ID pacjenta.
+     * @param deletedAt Chwila usunięcia.
+     * @return 1, jeśli pacjent został oznaczony; 0, jeśli nie istnieje lub jest już usunięty.
+     */
+    @Modifying
+    @Query(value = "UPDATE patient SET deleted_at = :deletedAt WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Pobiera ID pacjentów oznaczonych jako usunięci, których dane czekają na usunięcie.
+     * @return Lista ID w kolejności usuwania.
+     */
+    @Query(value = "SELECT id FROM patient WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id", nativeQuery = true)
+    List<Long> findDeletedIds();
+
+    /**
+     * Sprawdza, czy adres e-mail lub PESEL należy do usuniętego pacjenta, którego wiersz nie został jeszcze usunięty.
+     * @param email Adres e-mail.
+     * @param pesel Numer PESEL (może być null).
+     * @return true, jeśli taki pacjent istnieje.
+     */
+    @Query(value = "SELECT COUNT(*) > 0 FROM patient WHERE (email = :email OR pesel = :pesel) AND deleted_at IS NOT NULL",
+            nativeQuery = true)
+    boolean existsDeletedByEmailOrPesel(@Param("email") String email, @Param("pesel") String pesel);
+
+    /**
+     * Usuwa wiersz pacjenta oznaczonego jako usunięty (po usunięciu jego wizyt, dokumentów i archiwum).
+     * Wpisy listy oczekujących i serie wizyt są usuwane kaskadowo.
+     * @param id ID pacjenta.
+     * @return Liczba usuniętych wierszy.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM patient WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeDeleted(@Param("id") Long id);
 }
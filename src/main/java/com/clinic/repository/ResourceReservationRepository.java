@@ -0,0 +1,61 @@
+package com.clinic.repository;
+
+import com.clinic.model.ResourceReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repozytorium do zarządzania rezerwacjami zasobów przychodni (ResourceReservation).
+ */
+@Repository
+public interface ResourceReservationRepository extends JpaRepository<ResourceReservation, Long> {
+
+    /**
+     * Pobiera (ID zasobu, termin, ID wizyty) rezerwacji podanych zasobów w przedziale czasowym, należących
+     * do zaplanowanych wizyt. Korzysta z indeksu (resource_id, visit_date_time) - złączenie z wizytą tylko po kluczu głównym.
+     * @param resourceIds ID zasobów.
+     * @param from Początek przedziału (wyłącznie).
+     * @param to Koniec przedziału (wyłącznie).
+     * @return Lista krotek [Long resourceId, LocalDateTime visitDateTime, Long visitId] posortowana po zasobie i terminie.
+     */
+    @Query("select r.resourceId, r.visitDateTime, r.visitId from ResourceReservation r, Visit v " +
+            "where v.id = r.visitId and r.resourceId in :resourceIds and r.visitDateTime > :from and r.visitDateTime < :to " +
+            "and v.status = com.clinic.model.VisitStatus.SCHEDULED order by r.resourceId, r.visitDateTime")
+    List<Object[]> findScheduledTimes(@Param("resourceIds") Collection<Long> resourceIds, @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+
+    /**
+     * Pobiera ID zasobów zarezerwowanych dla wizyty.
+     * @param visitId ID wizyty.
+     * @return Lista ID zasobów.
+     */
+    @Query("select r.resourceId from ResourceReservation r where r.visitId = :visitId order by r.resourceId")
+    List<Long> findResourceIdsByVisitId(@Param("visitId") Long visitId);
+
+    /**
+     * Przenosi rezerwacje wizyty na nowy termin jednym poleceniem UPDATE.
+     * @param visitId ID wizyty.
+     * @param visitDateTime Nowy termin wizyty.
+     * @return Liczba zmienionych rezerwacji.
+     */
+    @Modifying
+    @Query("update ResourceReservation r set r.visitDateTime = :visitDateTime where r.visitId = :visitId")
+    int moveToDateTime(@Param("visitId") Long visitId, @Param("visitDateTime") LocalDateTime visitDateTime);
+
+    /**
+     * Sprawdza, czy zasób ma rezerwacje zaplanowanych wizyt od podanej chwili.
+     * @param resourceId ID zasobu.
+     * @param from Początek przedziału (włącznie).
+     * @return true, jeśli istnieje taka rezerwacja.
+     */
+    @Query("select count(r) > 0 from ResourceReservation r, Visit v where v.id = r.visitId and r.resourceId = :resourceId " +
+            "and r.visitDateTime >= :from and v.status = com.clinic.model.VisitStatus.SCHEDULED")
+    boolean existsScheduledFrom(@Param("resourceId") Long resourceId, @Param("from") LocalDateTime from);
+}
@@ -0,0 +1,39 @@
+package com.clinic.repository;
+
+import com.clinic.model.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repozytorium unieważnień tokenów JWT (TokenRevocation).
+ */
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    /**
+     * Zwraca najpóźniejszą chwilę unieważnienia tokenów użytkownika.
+     */
+    @Query("SELECT MAX(r.revokedBefore) FROM TokenRevocation r WHERE r.subject = :subject")
+    Optional<LocalDateTime> findLatestRevocation(@Param("subject") String subject);
+
+    /**
+     * Zwraca użytkowników, których unieważnienia są jeszcze aktualne.
+     */
+    @Query("SELECT DISTINCT r.subject FROM TokenRevocation r WHERE r.expiresAt > :now")
+    List<String> findActiveSubjects(@Param("now") LocalDateTime now);
+
+    /**
+     * Usuwa unieważnienia, po których wszystkie tokeny już wygasły.
+     * @return Liczba usuniętych wpisów.
+     */
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,9 +1,15 @@
 package com.clinic.repository;
 
+import com.clinic.dto.AgendaEntry;
 import com.clinic.model.Doctor;
 import com.clinic.model.Patient;
 import com.clinic.model.Visit;
+import com.clinic.model.VisitStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -16,19 +22,33 @@ import java.util.List;
 @Repository
 public interface VisitRepository extends JpaRepository<Visit, Long> {
 
+    /**
+     * Warunek SQLRestriction encji Visit (lekarz i pacjent nieusunięci) dla zapytań natywnych z aliasem v.
+     */
+    String NOT_DELETED_OWNER = "NOT EXISTS (SELECT 1 FROM doctor d WHERE d.id = v.doctor_id AND d.deleted_at IS NOT NULL) " +
+            "AND NOT EXISTS (SELECT 1 FROM patient p WHERE p.id = v.patient_id AND p.deleted_at IS NOT NULL)";
+
     /**
      * Znajduje wszystkie wizyty dla danego pacjenta, posortowane chronologicznie.
+     * Korzysta z indeksu (patient_id, visit_date_time) - bez wskazówki USE INDEX H2 wybiera węższy indeks
+     * klucza obcego patient_id (tańszy w jego modelu kosztów przy samym warunku równości) i sortuje całą historię.
+     * Zapytanie natywne nie podlega SQLRestriction encji Visit, więc warunek usuniętego lekarza/pacjenta jest powtórzony.
      * @param patient Obiekt pacjenta.
      * @return Lista wizyt pacjenta.
      */
-    List<Visit> findByPatientOrderByVisitDateTimeAsc(Patient patient);
+    @Query(value = "SELECT v.* FROM visit v USE INDEX (idx_visit_patient_datetime) " +
+            "WHERE v.patient_id = :#{#patient.id} AND " + NOT_DELETED_OWNER + " ORDER BY v.visit_date_time, v.id", nativeQuery = true)
+    List<Visit> findByPatientOrderByVisitDateTimeAsc(@Param("patient") Patient patient);
 
     /**
      * Znajduje wszystkie wizyty dla danego lekarza, posortowane chronologicznie.
+     * Korzysta z indeksu (doctor_id, visit_date_time, status) - wskazówka USE INDEX jak w findByPatientOrderByVisitDateTimeAsc.
      * @param doctor Obiekt lekarza.
      * @return Lista wizyt lekarza.
      */
-    List<Visit> findByDoctorOrderByVisitDateTimeAsc(Doctor doctor);
+    @Query(value = "SELECT v.* FROM visit v USE INDEX (idx_visit_doctor_datetime_status) " +
+            "WHERE v.doctor_id = :#{#doctor.id} AND " + NOT_DELETED_OWNER + " ORDER BY v.visit_date_time, v.id", nativeQuery = true)
+    List<Visit> findByDoctorOrderByVisitDateTimeAsc(@Param("doctor") Doctor doctor);
 
     /**
      * Sprawdza, czy w danym przedziale czasowym lekarz ma już wizytę.
@@ -48,4 +68,178 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
      * @return Lista wizyt.
      */
     List<Visit> findByDoctorAndStatusNotAndVisitDateTimeAfter(Doctor doctor, com.clinic.model.VisitStatus status, LocalDateTime dateTime);
+
+    /**
+     * Pobiera agendę lekarza (wizyty z danymi pacjenta) w przedziale czasowym jednym zapytaniem z JOIN.
+     * Korzysta z indeksu (doctor_id, visit_date_time, status).
+     * @param doctorId ID lekarza.
+     * @param from Początek przedziału (włącznie).
+     * @param to Koniec przedziału (wyłącznie).
+     * @return Lista pozycji agendy posortowana chronologicznie.
+     */
+    @Query("select new com.clinic.dto.AgendaEntry(v.id, v.visitDateTime, v.status, p.id, p.imie, p.nazwisko) " +
+            "from Visit v join v.patient p " +
+            "where v.doctor.id = :doctorId and v.visitDateTime >= :from and v.visitDateTime < :to " +
+            "order by v.visitDateTime asc")
+    List<AgendaEntry> findAgenda(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Zwraca datę najwcześniejszej wizyty (null, jeśli brak wizyt).
+     * @return Data i czas najwcześniejszej wizyty.
+     */
+    @Query("select min(v.visitDateTime) from Visit v")
+    LocalDateTime findMinVisitDateTime();
+
+    /**
+     * Zwraca datę najpóźniejszej wizyty (null, jeśli brak wizyt).
+     * @return Data i czas najpóźniejszej wizyty.
+     */
+    @Query("select max(v.visitDateTime) from Visit v")
+    LocalDateTime findMaxVisitDateTime();
+
+    /**
+     * Pobiera z blokadą zapisu paczkę przeterminowanych wizyt SCHEDULED (najstarsze najpierw), bez ładowania encji.
+     * Korzysta z indeksu (status, visit_date_time, id).
+     * @param cutoff Wizyty z terminem wcześniejszym niż ta chwila są przeterminowane.
+     * @param limit Maksymalna liczba wizyt w paczce.
+     * @return Lista krotek [id, doctor_id, patient_id, visit_date_time].
+     */
+    @Query(value = "SELECT v.id, v.doctor_id, v.patient_id, v.visit_date_time FROM visit v " +
+            "WHERE v.status = 'SCHEDULED' AND v.visit_date_time < :cutoff " +
+            "ORDER BY v.visit_date_time, v.id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Object[]> findStaleScheduledForUpdate(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Zmienia status podanych wizyt SCHEDULED jednym poleceniem UPDATE. Zapytanie natywne - zmienia także wizyty
+     * usuniętego lekarza/pacjenta pobrane natywnie przez zadania w tle (UPDATE w JPQL podlega SQLRestriction).
+     * @param ids ID wizyt.
+     * @param status Nowy status.
+     * @return Liczba zmienionych wizyt.
+     */
+    @Modifying
+    @Query(value = "UPDATE visit SET status = :#{#status.name()} WHERE id IN (:ids) AND status = 'SCHEDULED'", nativeQuery = true)
+    int updateScheduledStatus(@Param("ids") List<Long> ids, @Param("status") VisitStatus status);
+
+    /**
+     * Pobiera z blokadą zapisu paczkę wizyt do archiwizacji (zakończonych przed podaną chwilą), najstarsze najpierw.
+     * Korzysta z indeksu (status, visit_date_time, id).
+     * @param statuses Nazwy statusów końcowych.
+     * @param cutoff Wizyty z terminem wcześniejszym niż ta chwila są archiwizowane.
+     * @param limit Maksymalna liczba wizyt w paczce.
+     * @return Lista krotek [id, visit_date_time].
+     */
+    @Query(value = "SELECT v.id, v.visit_date_time FROM visit v WHERE v.status IN (:statuses) AND v.visit_date_time < :cutoff " +
+            "ORDER BY v.visit_date_time, v.id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Object[]> findArchivableForUpdate(@Param("statuses") List<String> statuses, @Param("cutoff") LocalDateTime cutoff,
+                                           @Param("limit") int limit);
+
+    /**
+     * Usuwa podane wizyty jednym poleceniem DELETE (bez kaskady JPA - powiązania dokumentów muszą być już przeniesione).
+     * Zapytanie natywne, jak updateScheduledStatus.
+     * @param ids ID wizyt.
+     * @return Liczba usuniętych wizyt.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM visit WHERE id IN (:ids)", nativeQuery = true)
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Znajduje wizyty pacjenta w przedziale czasowym, posortowane chronologicznie.
+     * @param patient Pacjent.
+     * @param from Początek przedziału (włącznie).
+     * @param to Koniec przedziału (włącznie).
+     * @return Lista wizyt.
+     */
+    List<Visit> findByPatientAndVisitDateTimeBetweenOrderByVisitDateTimeAsc(Patient patient, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Znajduje wizyty lekarza w przedziale czasowym, posortowane chronologicznie.
+     * @param doctor Lekarz.
+     * @param from Początek przedziału (włącznie).
+     * @param to Koniec przedziału (włącznie).
+     * @return Lista wizyt.
+     */
+    List<Visit> findByDoctorAndVisitDateTimeBetweenOrderByVisitDateTimeAsc(Doctor doctor, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Pobiera (ID lekarza, data wizyty, ID wizyty) zaplanowanych wizyt podanych lekarzy w przedziale czasowym, jednym zapytaniem.
+     * Korzysta z indeksu (doctor_id, visit_date_time, status).
+     * @param doctorIds ID lekarzy.
+     * @param from Początek przedziału (wyłącznie).
+     * @param to Koniec przedziału (wyłącznie).
+     * @return Lista krotek [Long doctorId, LocalDateTime visitDateTime, Long id] posortowana po lekarzu i dacie.
+     */
+    @Query("select v.doctor.id, v.visitDateTime, v.id from Visit v where v.doctor.id in :doctorIds " +
+            "and v.visitDateTime > :from and v.visitDateTime < :to and v.status = com.clinic.model.VisitStatus.SCHEDULED " +
+            "order by v.doctor.id, v.visitDateTime")
+    List<Object[]> findScheduledTimesByDoctorIds(@Param("doctorIds") List<Long> doctorIds, @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+    /**
+     * Pobiera (ID, data wizyty) wszystkich wizyt serii, posortowane chronologicznie.
+     * @param seriesId ID serii wizyt.
+     * @return Lista krotek [Long id, LocalDateTime visitDateTime].
+     */
+    @Query("select v.id, v.visitDateTime from Visit v where v.seriesId = :seriesId order by v.visitDateTime")
+    List<Object[]> findSeriesVisits(@Param("seriesId") Long seriesId);
+
+    /**
+     * Pobiera z blokadą zapisu zaplanowane wizyty serii od podanej chwili, bez ładowania encji.
+     * Korzysta z indeksu (series_id, visit_date_time).
+     * @param seriesId ID serii wizyt.
+     * @param from Początek przedziału (włącznie).
+     * @return Lista krotek [id, doctor_id, patient_id, visit_date_time] posortowana chronologicznie.
+     */
+    @Query(value = "SELECT v.id, v.doctor_id, v.patient_id, v.visit_date_time FROM visit v " +
+            "WHERE v.series_id = :seriesId AND v.status = 'SCHEDULED' AND v.visit_date_time >= :from " +
+            "ORDER BY v.visit_date_time, v.id FOR UPDATE", nativeQuery = true)
+    List<Object[]> findSeriesScheduledForUpdate(@Param("seriesId") Long seriesId, @Param("from") LocalDateTime from);
+
+    /**
+     * Pobiera stronę osi czasu pacjenta - wizyty wcześniejsze niż pozycja (beforeTime, beforeId), najnowsze najpierw,
+     * bez ładowania encji. Korzysta z indeksu (patient_id, visit_date_time) w odwrotnej kolejności.
+     * @param patientId ID pacjenta.
+     * @param beforeTime Data wizyty ostatniej pozycji poprzedniej strony.
+     * @param beforeId ID wizyty ostatniej pozycji poprzedniej strony (wizyty z tą samą datą i mniejszym ID są zwracane).
+     * @param limit Maksymalna liczba wizyt.
+     * @return Lista krotek [Long id, LocalDateTime visitDateTime, VisitStatus status, Long doctorId].
+     */
+    @Query("select v.id, v.visitDateTime, v.status, v.doctor.id from Visit v where v.patient.id = :patientId " +
+            "and v.visitDateTime <= :beforeTime and (v.visitDateTime < :beforeTime or v.id < :beforeId) " +
+            "order by v.visitDateTime desc, v.id desc")
+    List<Object[]> findTimelinePage(@Param("patientId") Long patientId, @Param("beforeTime") LocalDateTime beforeTime,
+                                    @Param("beforeId") Long beforeId, Limit limit);
+
+    /**
+     * Pobiera (ID lekarza, data wizyty) wizyt pacjenta od podanej chwili - dni agend lekarzy, które trzeba unieważnić
+     * przy usunięciu pacjenta. Korzysta z indeksu (patient_id, visit_date_time).
+     * @param patientId ID pacjenta.
+     * @param from Początek przedziału (włącznie).
+     * @return Lista krotek [Long doctorId, LocalDateTime visitDateTime].
+     */
+    @Query("select distinct v.doctor.id, v.visitDateTime from Visit v where v.patient.id = :patientId and v.visitDateTime >= :from")
+    List<Object[]> findDoctorTimesByPatientId(@Param("patientId") Long patientId, @Param("from") LocalDateTime from);
+
+    /**
+     * Pobiera paczkę ID wizyt lekarza (usuwanie danych usuniętego lekarza), najstarsze najpierw.
+     * Korzysta z indeksu (doctor_id, visit_date_time, status). Zapytanie natywne - wizyty usuniętego lekarza
+     * są pomijane przez SQLRestriction encji Visit.
+     * @param doctorId ID lekarza.
+     * @param limit Rozmiar paczki.
+     * @return Lista ID wizyt.
+     */
+    @Query(value = "SELECT v.id FROM visit v USE INDEX (idx_visit_doctor_datetime_status) WHERE v.doctor_id = :doctorId " +
+            "ORDER BY v.visit_date_time, v.id", nativeQuery = true)
+    List<Long> findIdsByDoctorId(@Param("doctorId") Long doctorId, Limit limit);
+
+    /**
+     * Pobiera paczkę wizyt pacjenta (usuwanie danych usuniętego pacjenta), najstarsze najpierw.
+     * Korzysta z indeksu (patient_id, visit_date_time). Zapytanie natywne, jak findIdsByDoctorId.
+     * @param patientId ID pacjenta.
+     * @param limit Rozmiar paczki.
+     * @return Lista krotek [id, doctor_id, visit_date_time, status].
+     */
+    @Query(value = "SELECT v.id, v.doctor_id, v.visit_date_time, v.status FROM visit v USE INDEX (idx_visit_patient_datetime) " +
+            "WHERE v.patient_id = :patientId ORDER BY v.visit_date_time, v.id", nativeQuery = true)
+    List<Object[]> findPurgeBatchByPatientId(@Param("patientId") Long patientId, Limit limit);
 }
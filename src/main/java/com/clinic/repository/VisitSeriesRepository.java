@@ -0,0 +1,12 @@
+package com.clinic.repository;
+
+import com.clinic.model.VisitSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repozytorium do zarządzania seriami wizyt (VisitSeries).
+ */
+@Repository
+public interface VisitSeriesRepository extends JpaRepository<VisitSeries, Long> {
+}
@@ -0,0 +1,113 @@
+package com.clinic.repository;
+
+import com.clinic.model.VisitStatistic;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repozytorium do zarządzania licznikami statystyk wizyt (VisitStatistic).
+ */
+@Repository
+public interface VisitStatisticRepository extends JpaRepository<VisitStatistic, VisitStatistic.Key> {
+
+    /**
+     * Atomowo zmienia licznik (lekarz, dzień, status) o podaną wartość, tworząc go w razie potrzeby.
+     * @param doctorId ID lekarza.
+     * @param statDate Dzień.
+     * @param status Nazwa statusu wizyty.
+     * @param delta Zmiana licznika (dodatnia lub ujemna).
+     * @return Liczba zmienionych wierszy.
+     */
+    @Modifying
+    @Query(value = "MERGE INTO visit_stats_daily t " +
+            "USING (SELECT CAST(:doctorId AS BIGINT) AS doctor_id, CAST(:statDate AS DATE) AS stat_date, " +
+            "CAST(:status AS VARCHAR(32)) AS status) s " +
+            "ON t.doctor_id = s.doctor_id AND t.stat_date = s.stat_date AND t.status = s.status " +
+            "WHEN MATCHED THEN UPDATE SET visit_count = t.visit_count + :delta " +
+            "WHEN NOT MATCHED THEN INSERT (doctor_id, stat_date, status, visit_count) " +
+            "VALUES (s.doctor_id, s.stat_date, s.status, :delta)", nativeQuery = true)
+    int increment(@Param("doctorId") Long doctorId, @Param("statDate") LocalDate statDate,
+                  @Param("status") String status, @Param("delta") long delta);
+
+    /**
+     * Sumy liczników w przedziale dat pogrupowane według lekarza.
+     * Kolumny: doctorId, status, czy dzień minął (przed :today), liczba.
+     */
+    @Query("select s.doctorId, s.status, case when s.statDate < :today then true else false end, sum(s.visitCount) " +
+            "from VisitStatistic s where s.statDate between :from and :to " +
+            "group by s.doctorId, s.status, case when s.statDate < :today then true else false end")
+    List<Object[]> sumByDoctor(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("today") LocalDate today);
+
+    /**
+     * Sumy liczników w przedziale dat pogrupowane według specjalizacji lekarza.
+     * Zapytanie natywne - złączenie z encją Doctor podlega jej SQLRestriction i pomijałoby historię lekarzy
+     * usuniętych, ale jeszcze nieoczyszczonych (raport według lekarza ją obejmuje).
+     * Kolumny: specjalizacja, status (nazwa), czy dzień minął (przed :today), liczba.
+     */
+    @Query(value = "SELECT d.specjalizacja, s.status, CASE WHEN s.stat_date < :today THEN TRUE ELSE FALSE END, " +
+            "SUM(s.visit_count) FROM visit_stats_daily s JOIN doctor d ON d.id = s.doctor_id " +
+            "WHERE s.stat_date BETWEEN :from AND :to " +
+            "GROUP BY d.specjalizacja, s.status, CASE WHEN s.stat_date < :today THEN TRUE ELSE FALSE END", nativeQuery = true)
+    List<Object[]> sumBySpecialization(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("today") LocalDate today);
+
+    /**
+     * Sumy liczników w przedziale dat pogrupowane według dnia.
+     * Kolumny: dzień, status, czy dzień minął (przed :today), liczba.
+     */
+    @Query("select s.statDate, s.status, case when s.statDate < :today then true else false end, sum(s.visitCount) " +
+            "from VisitStatistic s where s.statDate between :from and :to " +
+            "group by s.statDate, s.status, case when s.statDate < :today then true else false end")
+    List<Object[]> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("today") LocalDate today);
+
+    /**
+     * Usuwa liczniki jednego dnia (przed przeliczeniem ich od nowa).
+     * @param statDate Dzień.
+     * @return Liczba usuniętych wierszy.
+     */
+    @Modifying
+    @Query("delete from VisitStatistic s where s.statDate = :statDate")
+    int deleteByStatDate(@Param("statDate") LocalDate statDate);
+
+    /**
+     * Przelicza liczniki jednego dnia na podstawie tabeli wizyt i archiwum wizyt (jedno zapytanie INSERT ... SELECT).
+     * @param from Początek dnia.
+     * @param to Początek następnego dnia.
+     * @return Liczba utworzonych liczników.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO visit_stats_daily (doctor_id, stat_date, status, visit_count) " +
+            "SELECT v.doctor_id, CAST(v.visit_date_time AS DATE), v.status, COUNT(*) FROM (" +
+            "SELECT doctor_id, visit_date_time, status FROM visit " +
+            "WHERE visit_date_time >= :from AND visit_date_time < :to " +
+            "UNION ALL SELECT doctor_id, visit_date_time, status FROM visit_archive " +
+            "WHERE visit_date_time >= :from AND visit_date_time < :to) v " +
+            "GROUP BY v.doctor_id, CAST(v.visit_date_time AS DATE), v.status", nativeQuery = true)
+    int rebuildDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Pobiera kolejne dni liczników lekarza (usuwanie danych usuniętego lekarza). Korzysta z klucza głównego.
+     * @param doctorId ID lekarza.
+     * @param limit Maksymalna liczba liczników.
+     * @return Dni liczników w kolejności rosnącej (z powtórzeniami dla różnych statusów).
+     */
+    @Query("select s.statDate from VisitStatistic s where s.doctorId = :doctorId order by s.statDate")
+    List<LocalDate> findStatDatesByDoctorId(@Param("doctorId") Long doctorId, Limit limit);
+
+    /**
+     * Usuwa liczniki lekarza do podanego dnia włącznie.
+     * @param doctorId ID lekarza.
+     * @param lastDate Ostatni usuwany dzień.
+     * @return Liczba usuniętych liczników.
+     */
+    @Modifying
+    @Query("delete from VisitStatistic s where s.doctorId = :doctorId and s.statDate <= :lastDate")
+    int deleteByDoctorIdUpTo(@Param("doctorId") Long doctorId, @Param("lastDate") LocalDate lastDate);
+}
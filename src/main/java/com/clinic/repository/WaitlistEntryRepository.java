@@ -0,0 +1,52 @@
+package com.clinic.repository;
+
+import com.clinic.model.WaitlistEntry;
+import com.clinic.model.WaitlistStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repozytorium do zarządzania wpisami na liście oczekujących (WaitlistEntry).
+ */
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Znajduje wpisy o danym statusie (np. oczekujące - do odbudowy kolejek przy starcie).
+     * @param status Status wpisu.
+     * @return Lista wpisów.
+     */
+    List<WaitlistEntry> findByStatus(WaitlistStatus status);
+
+    /**
+     * Znajduje wpisy lekarza o danym statusie, w kolejności obsługi (priorytet, kolejność zapisu).
+     * @param doctorId ID lekarza.
+     * @param status Status wpisu.
+     * @return Lista wpisów.
+     */
+    List<WaitlistEntry> findByDoctorIdAndStatusOrderByPriorityDescCreatedAtAscIdAsc(Long doctorId, WaitlistStatus status);
+
+    /**
+     * Znajduje wpisy pacjenta o danym statusie.
+     * @param patientId ID pacjenta.
+     * @param status Status wpisu.
+     * @return Lista wpisów.
+     */
+    List<WaitlistEntry> findByPatientIdAndStatus(Long patientId, WaitlistStatus status);
+
+    /**
+     * Oznacza jako wygasłe oczekujące wpisy, których przedział czasu już minął.
+     * @param now Bieżąca data i godzina.
+     * @return Liczba zmienionych wpisów.
+     */
+    @Modifying
+    @Query("update WaitlistEntry w set w.status = com.clinic.model.WaitlistStatus.EXPIRED " +
+            "where w.status = com.clinic.model.WaitlistStatus.WAITING and w.windowEnd <= :now")
+    int expireEnded(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,73 @@
+package com.clinic.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtr Blooma dla kluczy tekstowych, bezpieczny dla wielu wątków.
+ *
+ * Odpowiedź "nie ma" jest pewna, odpowiedź "może być" jest fałszywie dodatnia z prawdopodobieństwem
+ * zbliżonym do zadanego przy tworzeniu (o ile liczba kluczy nie przekroczy oczekiwanej). Pozycje bitów
+ * wyznaczane są podwójnym haszowaniem (h1 + i * h2) z 64-bitowego skrótu FNV-1a.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedEntries Oczekiwana liczba kluczy.
+     * @param falsePositiveRate Dopuszczalne prawdopodobieństwo fałszywie dodatniej odpowiedzi (0..1).
+     */
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        int entries = Math.max(1, expectedEntries);
+        long optimalBits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // Inny wątek zmienił to słowo - ponów
+            }
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Wymieszanie bitów (finalizer MurmurHash3), aby obie połówki skrótu były niezależne
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe1ae53f9L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
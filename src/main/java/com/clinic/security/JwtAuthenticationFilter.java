@@ -1,7 +1,10 @@
 package com.clinic.security;
 
+import io.jsonwebtoken.Claims;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -12,19 +15,25 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Filtr Spring Security, który jest wykonywany raz na każde żądanie HTTP.
  * Odpowiada za ekstrakcję i walidację tokena JWT z nagłówka autoryzacji.
+ * Tokeny z claimem roli są uwierzytelniane bez odczytu użytkownika z bazy - unieważnione tokeny
+ * (usunięcie konta, zmiana roli) odrzuca TokenRevocationService.
  */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsServiceImpl userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsServiceImpl userDetailsService,
+                                   TokenRevocationService tokenRevocationService) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -36,11 +45,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             // 2. Jeśli token istnieje i jest poprawny
             if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                // 3. Pobierz email użytkownika z tokena (teraz już bezpiecznie, bo token został zweryfikowany)
-                String userEmail = tokenProvider.getUserEmailFromJWT(jwt); // <-- Nowa/zmodyfikowana metoda w JwtTokenProvider
+                // 3. Pobierz claimy z tokena (teraz już bezpiecznie, bo token został zweryfikowany)
+                Claims claims = tokenProvider.getClaims(jwt);
+                String userEmail = claims.getSubject();
 
-                // 4. Załaduj szczegóły użytkownika i ustaw uwierzytelnienie w kontekście bezpieczeństwa
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+                // 4. Odrzuć token unieważniony po jego wydaniu
+                if (claims.getIssuedAt() == null || tokenRevocationService.isRevoked(userEmail, claims.getIssuedAt().toInstant())) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+
+                // 5. Ustal szczegóły użytkownika (z claimu roli lub - dla starszych tokenów - z bazy)
+                //    i ustaw uwierzytelnienie w kontekście bezpieczeństwa
+                String role = claims.get(JwtTokenProvider.ROLE_CLAIM, String.class);
+                UserDetails userDetails = role != null
+                        ? new User(userEmail, "", List.of(new SimpleGrantedAuthority(role)))
+                        : userDetailsService.loadUserByUsername(userEmail);
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
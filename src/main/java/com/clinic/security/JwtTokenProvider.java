@@ -1,5 +1,7 @@
 package com.clinic.security;
 
+import com.clinic.monitoring.TokenValidationEvent;
+import com.clinic.tenancy.TenantContext;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
@@ -10,15 +12,28 @@ import io.jsonwebtoken.security.SignatureException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
 
+    /**
+     * Claim z identyfikatorem kliniki, dla której wydano token (tryb wielu klinik).
+     */
+    public static final String TENANT_CLAIM = "tenant";
+
+    /**
+     * Claim z rolą użytkownika - pozwala uwierzytelnić żądanie bez odczytu użytkownika z bazy.
+     * Po zmianie roli dotychczasowe tokeny są unieważniane (TokenRevocationService).
+     */
+    public static final String ROLE_CLAIM = "role";
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
@@ -36,9 +51,16 @@ public class JwtTokenProvider {
         String email = authentication.getName();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
+        String role = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .findFirst()
+                .orElse(null);
 
         return Jwts.builder()
                 .setSubject(email)
+                .setId(UUID.randomUUID().toString())
+                .claim(TENANT_CLAIM, TenantContext.getTenant())
+                .claim(ROLE_CLAIM, role)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .signWith(key, SignatureAlgorithm.HS512)
@@ -54,25 +76,62 @@ public class JwtTokenProvider {
         return claims.getSubject();
     }
 
+    /**
+     * Pobiera wszystkie claimy tokena. Token musi być wcześniej zweryfikowany.
+     * @param token Token JWT.
+     * @return Claimy tokena.
+     */
+    public Claims getClaims(String token) {
+        return Jwts.parser()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    /**
+     * Pobiera z tokena klinikę, dla której został wydany. Token musi być wcześniej zweryfikowany.
+     * @param token Token JWT.
+     * @return Identyfikator kliniki lub null, jeśli token go nie zawiera.
+     */
+    public String getTenantFromJWT(String token) {
+        Claims claims = Jwts.parser()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.get(TENANT_CLAIM, String.class);
+    }
+
     /**
      * Waliduje token JWT.
      * @param authToken Token JWT do walidacji.
      * @return true, jeśli token jest prawidłowy, false w przeciwnym razie.
      */
     public boolean validateToken(String authToken) {
+        TokenValidationEvent event = new TokenValidationEvent();
+        event.begin();
+        event.outcome = "VALID";
         try {
             Jwts.parser().setSigningKey(key).build().parseClaimsJws(authToken);
             return true;
         } catch (SignatureException ex) { // Pierwsze złapanie io.jsonwebtoken.security.SignatureException
+            event.outcome = "INVALID_SIGNATURE";
             System.err.println("Invalid JWT signature: " + ex.getMessage());
         } catch (MalformedJwtException ex) {
+            event.outcome = "MALFORMED";
             System.err.println("Invalid JWT token: " + ex.getMessage());
         } catch (ExpiredJwtException ex) {
+            event.outcome = "EXPIRED";
             System.err.println("Expired JWT token: " + ex.getMessage());
         } catch (UnsupportedJwtException ex) {
+            event.outcome = "UNSUPPORTED";
             System.err.println("Unsupported JWT token: " + ex.getMessage());
         } catch (IllegalArgumentException ex) {
+            event.outcome = "EMPTY";
             System.err.println("JWT claims string is empty: " + ex.getMessage());
+        } finally {
+            event.commit();
         }
         return false;
     }
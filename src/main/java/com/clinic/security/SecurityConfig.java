@@ -1,8 +1,12 @@
 package com.clinic.security;
 
+import com.clinic.tenancy.TenantFilter;
+import com.clinic.tenancy.TenantRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -27,6 +31,8 @@ public class SecurityConfig {
 
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final TenantRegistry tenantRegistry;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Konfiguruje łańcuch filtrów bezpieczeństwa HTTP.
@@ -50,15 +56,22 @@ public class SecurityConfig {
                         .requestMatchers("/h2-console/**").permitAll()
                         // Endpoint błędu - powinien być dostępny dla wszystkich, aby wyświetlać komunikaty o błędach
                         .requestMatchers("/error").permitAll() // DODANA LINIA
+                        // Zakończenie strumieni SSE (/api/visits/events) odbywa się w ponownym przekazaniu ASYNC,
+                        // autoryzacja została już sprawdzona przy otwarciu strumienia
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Możesz dodać inne publiczne zasoby, np. statyczne pliki
                         // .requestMatchers("/public/**", "/images/**").permitAll()
 
                         // --- Ścieżki wymagające autoryzacji opartej na rolach ---
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/patients/**").hasAnyRole("ADMIN", "LEKARZ", "RECEPCJONISTA", "PACJENT")
+                        // Wyszukiwanie wolnych terminów wg specjalizacji jest dostępne także w portalu pacjenta
+                        .requestMatchers(HttpMethod.GET, "/api/doctors/available-slots").hasAnyRole("ADMIN", "LEKARZ", "RECEPCJONISTA", "PACJENT")
                         .requestMatchers("/api/doctors/**").hasAnyRole("ADMIN", "LEKARZ", "RECEPCJONISTA")
                         .requestMatchers("/api/visits/**").hasAnyRole("ADMIN", "LEKARZ", "RECEPCJONISTA", "PACJENT")
                         .requestMatchers("/api/medical-documents/**").hasAnyRole("ADMIN", "LEKARZ", "RECEPCJONISTA")
+                        .requestMatchers("/api/waitlist/**").hasAnyRole("ADMIN", "LEKARZ", "RECEPCJONISTA")
+                        .requestMatchers("/api/resources/**").hasAnyRole("ADMIN", "LEKARZ", "RECEPCJONISTA")
                         // Wszystkie inne żądania wymagają uwierzytelnienia
                         .anyRequest().authenticated()
                 );
@@ -66,6 +79,8 @@ public class SecurityConfig {
         // Dodanie niestandardowego filtra JWT przed filtrem UsernamePasswordAuthenticationFilter
         // Ten filtr będzie odpowiedzialny za parsowanie tokenów JWT i ustawianie kontekstu bezpieczeństwa
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        // Ustalenie kliniki (tryb wielu klinik) przed wczytaniem użytkownika tokena z jej schematu
+        http.addFilterBefore(new TenantFilter(tenantRegistry, jwtTokenProvider), JwtAuthenticationFilter.class);
 
         // Ważne: Dla konsoli H2, która działa w ramkach (iframe), potrzebujesz wyłączyć zabezpieczenia ramek
         http.headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable()));
@@ -103,6 +118,6 @@ public class SecurityConfig {
      */
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService);
+        return new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService, tokenRevocationService);
     }
 }
@@ -0,0 +1,159 @@
+package com.clinic.security;
+
+import com.clinic.dto.CacheInvalidationEvent;
+import com.clinic.model.TokenRevocation;
+import com.clinic.repository.TokenRevocationRepository;
+import com.clinic.service.ClusterCoordinator;
+import com.clinic.tenancy.TenantContext;
+import com.clinic.tenancy.TenantRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unieważnianie tokenów JWT użytkownika (usunięcie konta, zmiana roli).
+ *
+ * Unieważnienie zapisuje w tabeli token_revocation chwilę, do której wydane tokeny użytkownika są nieważne.
+ * Sprawdzenie tokena przy każdym żądaniu nie odpytuje bazy: w pamięci każdej kliniki trzymany jest filtr
+ * Blooma z użytkownikami, których tokeny unieważniono. Baza jest odpytywana tylko przy trafieniu
+ * w filtr (faktycznie unieważniony użytkownik lub rzadkie fałszywe trafienie). Filtr jest okresowo
+ * przebudowywany z aktualnych wpisów, a wpisy dotyczące wygasłych już tokenów są usuwane.
+ * Pozostałe instancje aplikacji dowiadują się o unieważnieniu z dziennika zmian (ClusterCoordinator).
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TenantRegistry tenantRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.jwtExpirationInMs}")
+    private long jwtExpirationInMs;
+
+    @Value("${app.tokenRevocation.expectedEntries:10000}")
+    private int expectedEntries;
+
+    @Value("${app.tokenRevocation.falsePositiveRate:0.001}")
+    private double falsePositiveRate;
+
+    /**
+     * Filtry klinik. Brak filtra (przed wczytaniem) oznacza sprawdzanie każdego tokena w bazie.
+     */
+    private final Map<String, BloomFilter> filters = new ConcurrentHashMap<>();
+
+    /**
+     * Unieważnia wszystkie dotychczas wydane tokeny użytkownika bieżącej kliniki.
+     * W transakcji filtr jest uzupełniany dopiero po jej zatwierdzeniu.
+     * @param email Adres e-mail użytkownika (subject tokena).
+     */
+    public void revokeAll(String email) {
+        LocalDateTime now = LocalDateTime.now();
+        tokenRevocationRepository.save(new TokenRevocation(null, email, now, now.plus(jwtExpirationInMs, ChronoUnit.MILLIS)));
+        clusterCoordinator.publishChange(CacheInvalidationEvent.TOKEN_REVOCATION, null, null);
+
+        String tenant = TenantContext.getTenant();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToFilter(tenant, email);
+                }
+            });
+        } else {
+            addToFilter(tenant, email);
+        }
+    }
+
+    /**
+     * Sprawdza, czy token użytkownika bieżącej kliniki został unieważniony.
+     * Tokeny wydane w tej samej sekundzie co unieważnienie również są odrzucane (iat ma dokładność sekundy).
+     * @param email Adres e-mail użytkownika (subject tokena).
+     * @param issuedAt Chwila wydania tokena (claim iat).
+     * @return true, jeśli token nie może być użyty.
+     */
+    public boolean isRevoked(String email, Instant issuedAt) {
+        BloomFilter filter = filters.get(TenantContext.getTenant());
+        if (filter != null && !filter.mightContain(email)) {
+            return false;
+        }
+        LocalDateTime issued = LocalDateTime.ofInstant(issuedAt, ZoneId.systemDefault()).truncatedTo(ChronoUnit.SECONDS);
+        return tokenRevocationRepository.findLatestRevocation(email)
+                .map(revokedBefore -> !issued.isAfter(revokedBefore))
+                .orElse(false);
+    }
+
+    /**
+     * Wczytuje filtry wszystkich klinik przy starcie aplikacji.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFilters() {
+        for (String tenant : tenantRegistry.getTenants()) {
+            TenantContext.runAs(tenant, () -> rebuildFilter(tenant));
+        }
+    }
+
+    /**
+     * Usuwa wpisy dotyczące tokenów, które już wygasły, i przebudowuje filtry
+     * (filtr Blooma nie pozwala usuwać elementów).
+     */
+    @Scheduled(cron = "${app.tokenRevocation.compactionCron:0 15 * * * *}")
+    public void compact() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (String tenant : tenantRegistry.getTenants()) {
+            TenantContext.runAs(tenant, () -> {
+                transactionTemplate.executeWithoutResult(status -> tokenRevocationRepository.deleteExpired(LocalDateTime.now()));
+                rebuildFilter(tenant);
+            });
+        }
+    }
+
+    /**
+     * Uzupełnia filtr kliniki o unieważnienia zapisane przez inne instancje aplikacji.
+     * @param event Zdarzenie z dziennika zmian.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (CacheInvalidationEvent.TOKEN_REVOCATION.equals(event.getCacheName())) {
+            TenantContext.runAs(event.getTenant(), () -> {
+                for (String email : tokenRevocationRepository.findActiveSubjects(LocalDateTime.now())) {
+                    addToFilter(event.getTenant(), email);
+                }
+            });
+        }
+    }
+
+    /**
+     * Buduje nowy filtr z aktualnych wpisów. Zapytanie i podmiana filtra odbywają się pod tą samą
+     * blokadą co dodawanie, więc unieważnienie zatwierdzone w trakcie przebudowy nie zostanie zgubione.
+     */
+    private synchronized void rebuildFilter(String tenant) {
+        List<String> subjects = tokenRevocationRepository.findActiveSubjects(LocalDateTime.now());
+        BloomFilter filter = new BloomFilter(Math.max(expectedEntries, subjects.size() * 2), falsePositiveRate);
+        subjects.forEach(filter::add);
+        filters.put(tenant, filter);
+    }
+
+    private synchronized void addToFilter(String tenant, String email) {
+        BloomFilter filter = filters.get(tenant);
+        if (filter != null) {
+            filter.add(email);
+        }
+    }
+}
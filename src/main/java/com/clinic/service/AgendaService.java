@@ -0,0 +1,180 @@
+package com.clinic.service;
+
+import com.clinic.dto.AgendaEntry;
+import com.clinic.dto.CacheInvalidationEvent;
+import com.clinic.repository.VisitRepository;
+import com.clinic.tenancy.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serwis agendy lekarzy (wizyty danego dnia z danymi pacjentów).
+ *
+ * Agenda każdego dnia lekarza jest przechowywana w pamięci podręcznej. Równoczesne żądania o ten sam
+ * dzień (np. wszyscy lekarze o 8:00) są łączone - zapytanie do bazy wykonuje tylko pierwsze z nich.
+ * Wpisy są unieważniane precyzyjnie (lekarz, dzień) przez VisitService po zatwierdzeniu transakcji,
+ * a na pozostałych instancjach aplikacji - na podstawie dziennika zmian (ClusterCoordinator).
+ */
+@Service
+@RequiredArgsConstructor
+public class AgendaService {
+
+    private final VisitRepository visitRepository;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Value("${app.agenda.maxDays:31}")
+    private int maxDays;
+
+    @Value("${app.agenda.maxCachedDays:50000}")
+    private int maxCachedDays;
+
+    private final Map<AgendaKey, CompletableFuture<List<AgendaEntry>>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Pobiera agendę lekarza dla przedziału dni.
+     * @param doctorId ID lekarza.
+     * @param from Pierwszy dzień (włącznie).
+     * @param to Ostatni dzień (włącznie).
+     * @return Lista wizyt posortowana chronologicznie.
+     * @throws IllegalArgumentException Jeśli przedział jest niepoprawny lub zbyt długi.
+     */
+    @Transactional(readOnly = true)
+    public List<AgendaEntry> getAgenda(Long doctorId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Data końcowa nie może być wcześniejsza niż początkowa.");
+        }
+        if (from.plusDays(maxDays).isBefore(to)) {
+            throw new IllegalArgumentException("Przedział agendy nie może przekraczać " + maxDays + " dni.");
+        }
+        List<AgendaEntry> result = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            result.addAll(getDay(doctorId, day));
+        }
+        return result;
+    }
+
+    private List<AgendaEntry> getDay(Long doctorId, LocalDate day) {
+        AgendaKey key = new AgendaKey(TenantContext.getTenant(), doctorId, day);
+        while (true) {
+            CompletableFuture<List<AgendaEntry>> cached = cache.get(key);
+            if (cached != null) {
+                try {
+                    return cached.join();
+                } catch (CompletionException e) {
+                    cache.remove(key, cached);
+                    continue;
+                }
+            }
+            CompletableFuture<List<AgendaEntry>> loading = new CompletableFuture<>();
+            if (cache.putIfAbsent(key, loading) != null) {
+                continue; // Inny wątek właśnie ładuje ten dzień
+            }
+            try {
+                List<AgendaEntry> entries = List.copyOf(visitRepository.findAgenda(
+                        doctorId, day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+                loading.complete(entries);
+                if (cache.size() > maxCachedDays) {
+                    cache.remove(key, loading);
+                }
+                return entries;
+            } catch (RuntimeException e) {
+                cache.remove(key, loading);
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Unieważnia agendę lekarza dla dnia wizyty. Jeśli trwa transakcja, unieważnienie następuje
+     * po jej zatwierdzeniu, aby równoległy odczyt nie zapisał w pamięci stanu sprzed zmiany.
+     * @param doctorId ID lekarza.
+     * @param visitDateTime Data i godzina wizyty.
+     */
+    public void invalidate(Long doctorId, LocalDateTime visitDateTime) {
+        if (doctorId == null || visitDateTime == null) {
+            return;
+        }
+        AgendaKey key = new AgendaKey(TenantContext.getTenant(), doctorId, visitDateTime.toLocalDate());
+        clusterCoordinator.publishChange(CacheInvalidationEvent.AGENDA, doctorId, key.day());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.remove(key);
+                }
+            });
+        } else {
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Unieważnia wszystkie dni agendy lekarza (np. po usunięciu lekarza), po zakończeniu trwającej transakcji.
+     * @param doctorId ID lekarza.
+     */
+    public void invalidateDoctor(Long doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        String tenant = TenantContext.getTenant();
+        clusterCoordinator.publishChange(CacheInvalidationEvent.AGENDA, doctorId, null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeDoctor(tenant, doctorId);
+                }
+            });
+        } else {
+            removeDoctor(tenant, doctorId);
+        }
+    }
+
+    /**
+     * Unieważnia dzień agendy (lub wszystkie dni lekarza, jeśli dzień jest pusty) zmieniony przez inną instancję aplikacji.
+     * @param event Zdarzenie z dziennika zmian.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationEvent.AGENDA.equals(event.getCacheName()) || event.getDoctorId() == null) {
+            return;
+        }
+        if (event.getDay() != null) {
+            cache.remove(new AgendaKey(event.getTenant(), event.getDoctorId(), event.getDay()));
+        } else {
+            removeDoctor(event.getTenant(), event.getDoctorId());
+        }
+    }
+
+    private void removeDoctor(String tenant, Long doctorId) {
+        cache.keySet().removeIf(key -> key.tenant().equals(tenant) && key.doctorId().equals(doctorId));
+    }
+
+    /**
+     * Usuwa z pamięci agendy dni, które już minęły.
+     */
+    @Scheduled(cron = "${app.agenda.evictionCron:0 0 * * * *}")
+    public void evictPastDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        cache.keySet().removeIf(key -> key.day().isBefore(yesterday));
+    }
+
+    private record AgendaKey(String tenant, Long doctorId, LocalDate day) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.clinic.service;
+
+import com.clinic.audit.AuditAction;
+import com.clinic.audit.AuditLogReader;
+import com.clinic.audit.AuditLogWriter;
+import com.clinic.audit.AuditRecord;
+import com.clinic.audit.AuditRingBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serwis audytu dostępu do dokumentacji medycznej.
+ * Wątki żądań jedynie publikują wpis w buforze cyklicznym (bez blokad i bez I/O),
+ * a pojedynczy wątek w tle dopisuje wpisy paczkami do segmentowanego logu z fsync na paczkę.
+ * Wpisy nie są odrzucane: przy pełnym buforze wątek żądania czeka, aż wątek zapisujący zwolni miejsce.
+ */
+@Service
+public class AuditService {
+
+    @Value("${app.audit.directory:audit}")
+    private String directory;
+
+    @Value("${app.audit.bufferSize:65536}")
+    private int bufferSize;
+
+    @Value("${app.audit.batchSize:1024}")
+    private int batchSize;
+
+    @Value("${app.audit.segmentSizeBytes:67108864}")
+    private long segmentSizeBytes;
+
+    @Value("${app.audit.idleWaitMs:5}")
+    private long idleWaitMs;
+
+    private AuditRingBuffer ringBuffer;
+    private AuditLogWriter writer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        ringBuffer = new AuditRingBuffer(bufferSize);
+        writer = new AuditLogWriter(Paths.get(directory), segmentSizeBytes, batchSize);
+        running = true;
+        writerThread = new Thread(this::writeLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Rejestruje dostęp do dokumentacji medycznej. Zwykle nie blokuje wątku wywołującego; gdy bufor jest pełny,
+     * czeka na zwolnienie miejsca przez wątek zapisujący - wpis audytu nie może zostać utracony.
+     * @param action Rodzaj dostępu.
+     * @param userEmail Adres e-mail zalogowanego użytkownika.
+     * @param patientId ID pacjenta.
+     * @param documentId ID dokumentu (null dla listy dokumentów).
+     * @throws IllegalStateException Jeśli log audytu jest już zamknięty i wpisu nie da się zapisać.
+     */
+    public void recordAccess(AuditAction action, String userEmail, Long patientId, Long documentId) {
+        long timestamp = System.currentTimeMillis();
+        while (!ringBuffer.publish(timestamp, action,
+                patientId == null ? 0 : patientId,
+                documentId == null ? 0 : documentId,
+                userEmail)) {
+            if (!writerThread.isAlive()) {
+                throw new IllegalStateException("Log audytu jest zamknięty - nie można zarejestrować dostępu.");
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(idleWaitMs));
+        }
+    }
+
+    /**
+     * Przeszukuje log audytu. Wpisy jeszcze niezapisane na dysk nie są uwzględniane.
+     * @return Lista pasujących wpisów.
+     */
+    public List<AuditRecord> search(Long patientId, String userEmail, Instant from, Instant to, int limit) throws IOException {
+        return new AuditLogReader(Paths.get(directory)).search(patientId, userEmail, from, to, limit);
+    }
+
+    /**
+     * @return Liczba publikacji, które musiały czekać na miejsce w pełnym buforze.
+     */
+    public long getBackpressureCount() {
+        return ringBuffer.getRejectedCount();
+    }
+
+    /**
+     * Pętla wątku zapisującego. Wątek zapisujący jest jedynym użytkownikiem AuditLogWriter - także zamyka go
+     * po zakończeniu pętli (zatrzymanie serwisu lub przerwanie wątku).
+     */
+    private void writeLoop() {
+        try {
+            while ((running || ringBuffer.size() > 0) && !Thread.currentThread().isInterrupted()) {
+                try {
+                    int drained = ringBuffer.drain(writer::append, batchSize);
+                    // Wpisy z nieudanego zapisu czekają w paczce - zapis jest ponawiany także bez nowych wpisów
+                    if (drained > 0 || writer.hasPending()) {
+                        writer.flush();
+                    } else {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(idleWaitMs));
+                    }
+                } catch (IOException e) {
+                    System.err.println("Błąd zapisu logu audytu: " + e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                }
+            }
+        } finally {
+            Thread.interrupted(); // Zapis na kanale przerwanego wątku kończy się błędem - ostatnia próba zapisu paczki
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Błąd zamknięcia logu audytu: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Zatrzymuje wątek zapisujący po zapisaniu oczekujących wpisów. Jeśli nie zakończy się w ciągu 10 s
+     * (np. powtarzające się błędy zapisu), jest przerywany; log zamyka sam wątek zapisujący.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread == null) {
+            return;
+        }
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (writerThread.isAlive()) {
+            System.err.println("Wątek zapisu logu audytu nie zakończył się - log nie został zamknięty.");
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.clinic.service;
+
+import com.clinic.dto.AvailableSlot;
+import com.clinic.repository.ClinicResourceRepository;
+import com.clinic.repository.DoctorRepository;
+import com.clinic.repository.ResourceReservationRepository;
+import com.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Wyszukiwanie najbliższych wolnych terminów u wszystkich lekarzy danej specjalizacji.
+ *
+ * Lekarze i ich zaplanowane wizyty w przedziale są pobierane dwoma zapytaniami (niezależnie od liczby lekarzy).
+ * Zajętość każdego lekarza jest odwzorowywana w pamięci jako mapa bitowa komórek siatki terminów
+ * (app.availability.slotMinutes), a wolne terminy w godzinach przyjęć są wyszukiwane równolegle (fork/join
+ * po liście lekarzy). Częściowe wyniki są scalane z zachowaniem tylko N najwcześniejszych terminów.
+ * Jeśli wizyta wymaga zasobów (gabinet, sprzęt), ich rezerwacje są pobierane jednym zapytaniem i łączone we wspólną
+ * mapę bitową, dodawaną do zajętości każdego lekarza - termin jest wolny tylko, gdy lekarz i wszystkie zasoby są wolni.
+ * Wyniki są propozycjami - rezerwacja nadal przechodzi przez VisitService.scheduleVisit, które sprawdza kolizje.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final DoctorRepository doctorRepository;
+    private final VisitRepository visitRepository;
+    private final ClinicResourceRepository clinicResourceRepository;
+    private final ResourceReservationRepository resourceReservationRepository;
+
+    @Value("${app.availability.openingTime:08:00}")
+    private String openingTime;
+
+    @Value("${app.availability.closingTime:16:00}")
+    private String closingTime;
+
+    @Value("${app.availability.workingDays:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private Set<DayOfWeek> workingDays;
+
+    @Value("${app.availability.slotMinutes:15}")
+    private int slotMinutes;
+
+    @Value("${app.availability.visitMinutes:30}")
+    private int visitMinutes;
+
+    @Value("${app.availability.defaultDays:7}")
+    private int defaultDays;
+
+    @Value("${app.availability.maxDays:31}")
+    private int maxDays;
+
+    @Value("${app.availability.maxResults:50}")
+    private int maxResults;
+
+    @Value("${app.availability.doctorsPerTask:8}")
+    private int doctorsPerTask;
+
+    /**
+     * Wyszukuje najwcześniejsze wolne terminy u lekarzy danej specjalizacji.
+     * @param specjalizacja Specjalizacja lekarza, np. "Kardiolog".
+     * @param from Początek przedziału lub null (teraz).
+     * @param to Koniec przedziału lub null (app.availability.defaultDays dni od początku).
+     * @param durationMinutes Długość wizyty w minutach lub null (app.availability.visitMinutes).
+     * @param limit Liczba terminów lub null (10), co najwyżej app.availability.maxResults.
+     * @param resourceIds ID zasobów wymaganych przez wizytę lub null.
+     * @return Terminy posortowane od najwcześniejszego; przy równym terminie - po ID lekarza.
+     * @throws IllegalArgumentException Jeśli przedział lub długość wizyty są niepoprawne albo zasób nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableSlot> findEarliestSlots(String specjalizacja, LocalDateTime from, LocalDateTime to,
+                                                 Integer durationMinutes, Integer limit, List<Long> resourceIds) {
+        LocalDateTime start = from != null ? from : LocalDateTime.now();
+        LocalDateTime end = to != null ? to : start.plusDays(defaultDays);
+        int duration = durationMinutes != null ? durationMinutes : visitMinutes;
+        int count = Math.max(1, Math.min(limit != null ? limit : 10, maxResults));
+        LocalTime opening = LocalTime.parse(openingTime);
+        LocalTime closing = LocalTime.parse(closingTime);
+
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Data końcowa musi być późniejsza niż początkowa.");
+        }
+        if (start.plusDays(maxDays).isBefore(end)) {
+            throw new IllegalArgumentException("Przedział wyszukiwania nie może przekraczać " + maxDays + " dni.");
+        }
+        if (duration <= 0 || duration > Duration.between(opening, closing).toMinutes()) {
+            throw new IllegalArgumentException("Niepoprawna długość wizyty: " + duration + " min.");
+        }
+        Set<Long> resources = resourceIds != null ? new TreeSet<>(resourceIds) : Set.of();
+        if (!resources.isEmpty() && clinicResourceRepository.findAllById(resources).size() != resources.size()) {
+            throw new IllegalArgumentException("Zasób o podanym ID nie istnieje.");
+        }
+
+        List<Object[]> doctors = doctorRepository.findIdsAndNamesBySpecjalizacja(specjalizacja);
+        if (doctors.isEmpty()) {
+            return List.of();
+        }
+        List<Long> doctorIds = doctors.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, List<LocalDateTime>> scheduled = new HashMap<>();
+        for (Object[] row : visitRepository.findScheduledTimesByDoctorIds(doctorIds, start.minusMinutes(visitMinutes), end)) {
+            scheduled.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((LocalDateTime) row[1]);
+        }
+
+        SlotGrid grid = new SlotGrid(start, end, duration, count, opening, closing);
+        if (!resources.isEmpty()) {
+            for (Object[] row : resourceReservationRepository.findScheduledTimes(resources, start.minusMinutes(visitMinutes), end)) {
+                grid.markVisit(grid.resourcesBusy, (LocalDateTime) row[1]);
+            }
+        }
+        return ForkJoinPool.commonPool().invoke(new SearchTask(grid, doctors, scheduled, 0, doctors.size()));
+    }
+
+    /**
+     * Siatka terminów przedziału wyszukiwania. Komórka i obejmuje [origin + i * slotMinutes, origin + (i + 1) * slotMinutes),
+     * gdzie origin to północ pierwszego dnia przedziału.
+     */
+    private final class SlotGrid {
+
+        private final LocalDateTime origin;
+        private final int cellsPerDay;
+        private final int days;
+        private final int firstCell;
+        private final int endCell;
+        private final int cellsNeeded;
+        private final int count;
+        private final int openingCell;
+        private final int closingCell;
+        /**
+         * Komórki, w których zajęty jest co najmniej jeden z wymaganych zasobów (wspólne dla wszystkich lekarzy).
+         */
+        private final BitSet resourcesBusy;
+
+        private SlotGrid(LocalDateTime start, LocalDateTime end, int duration, int count, LocalTime opening, LocalTime closing) {
+            this.origin = start.toLocalDate().atStartOfDay();
+            this.cellsPerDay = MINUTES_PER_DAY / slotMinutes;
+            this.days = (int) (end.toLocalDate().toEpochDay() - start.toLocalDate().toEpochDay()) + 1;
+            this.firstCell = ceilCell(start);
+            this.endCell = floorCell(end);
+            this.cellsNeeded = (duration + slotMinutes - 1) / slotMinutes;
+            this.count = count;
+            this.openingCell = (opening.toSecondOfDay() / 60 + slotMinutes - 1) / slotMinutes;
+            this.closingCell = closing.toSecondOfDay() / 60 / slotMinutes;
+            this.resourcesBusy = new BitSet(days * cellsPerDay);
+        }
+
+        private int floorCell(LocalDateTime time) {
+            return (int) Math.floorDiv(Duration.between(origin, time).toMinutes(), slotMinutes);
+        }
+
+        private int ceilCell(LocalDateTime time) {
+            long seconds = Duration.between(origin, time).toSeconds();
+            return (int) -Math.floorDiv(-seconds, slotMinutes * 60L);
+        }
+
+        private LocalDateTime timeOf(int cell) {
+            return origin.plusMinutes((long) cell * slotMinutes);
+        }
+
+        /**
+         * Oznacza jako zajęte komórki, które obejmuje wizyta rozpoczynająca się w podanym terminie.
+         */
+        private void markVisit(BitSet busy, LocalDateTime visit) {
+            int from = Math.max(0, floorCell(visit));
+            int to = ceilCell(visit.plusMinutes(visitMinutes));
+            if (to > from) {
+                busy.set(from, to);
+            }
+        }
+
+        /**
+         * Wyszukuje najwcześniejsze, wzajemnie rozłączne wolne terminy lekarza (i wymaganych zasobów) w godzinach przyjęć.
+         */
+        private List<AvailableSlot> earliestSlots(Object[] doctor, List<LocalDateTime> visits) {
+            BitSet busy = (BitSet) resourcesBusy.clone();
+            if (visits != null) {
+                for (LocalDateTime visit : visits) {
+                    markVisit(busy, visit);
+                }
+            }
+
+            List<AvailableSlot> slots = new ArrayList<>(count);
+            for (int day = 0; day < days && slots.size() < count; day++) {
+                if (!workingDays.contains(origin.toLocalDate().plusDays(day).getDayOfWeek())) {
+                    continue;
+                }
+                int cell = Math.max(day * cellsPerDay + openingCell, firstCell);
+                int lastStart = Math.min(day * cellsPerDay + closingCell, endCell) - cellsNeeded;
+                while (cell <= lastStart && slots.size() < count) {
+                    int nextBusy = busy.nextSetBit(cell);
+                    if (nextBusy < 0 || nextBusy >= cell + cellsNeeded) {
+                        slots.add(new AvailableSlot((Long) doctor[0], (String) doctor[1], (String) doctor[2],
+                                timeOf(cell), timeOf(cell + cellsNeeded)));
+                        cell += cellsNeeded;
+                    } else {
+                        cell = busy.nextClearBit(nextBusy);
+                    }
+                }
+            }
+            return slots;
+        }
+
+        /**
+         * Scala dwie posortowane listy terminów, zachowując co najwyżej count najwcześniejszych.
+         */
+        private List<AvailableSlot> merge(List<AvailableSlot> left, List<AvailableSlot> right) {
+            List<AvailableSlot> merged = new ArrayList<>(Math.min(count, left.size() + right.size()));
+            int i = 0;
+            int j = 0;
+            while (merged.size() < count && (i < left.size() || j < right.size())) {
+                if (j >= right.size() || (i < left.size() && !isAfter(left.get(i), right.get(j)))) {
+                    merged.add(left.get(i++));
+                } else {
+                    merged.add(right.get(j++));
+                }
+            }
+            return merged;
+        }
+
+        private static boolean isAfter(AvailableSlot a, AvailableSlot b) {
+            int byStart = a.getStart().compareTo(b.getStart());
+            return byStart > 0 || (byStart == 0 && a.getDoctorId() > b.getDoctorId());
+        }
+    }
+
+    /**
+     * Zadanie fork/join wyszukujące terminy dla przedziału listy lekarzy [from, to).
+     */
+    private final class SearchTask extends RecursiveTask<List<AvailableSlot>> {
+
+        private final SlotGrid grid;
+        private final List<Object[]> doctors;
+        private final Map<Long, List<LocalDateTime>> scheduled;
+        private final int from;
+        private final int to;
+
+        private SearchTask(SlotGrid grid, List<Object[]> doctors, Map<Long, List<LocalDateTime>> scheduled, int from, int to) {
+            this.grid = grid;
+            this.doctors = doctors;
+            this.scheduled = scheduled;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<AvailableSlot> compute() {
+            if (to - from <= doctorsPerTask) {
+                List<AvailableSlot> result = List.of();
+                for (int i = from; i < to; i++) {
+                    Object[] doctor = doctors.get(i);
+                    result = grid.merge(result, grid.earliestSlots(doctor, scheduled.get((Long) doctor[0])));
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            SearchTask left = new SearchTask(grid, doctors, scheduled, from, middle);
+            left.fork();
+            List<AvailableSlot> right = new SearchTask(grid, doctors, scheduled, middle, to).compute();
+            return grid.merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.clinic.service;
+
+import com.clinic.dto.BatchRequest;
+import com.clinic.dto.BatchResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wykonywanie wielu operacji API w jednym żądaniu HTTP (POST /api/batch).
+ *
+ * Żądanie zbiorcze przechodzi łańcuch filtrów raz (token JWT, klinika), a każda operacja jest
+ * przekazywana bezpośrednio do DispatcherServlet - trafia do tych samych kontrolerów, z tymi samymi
+ * regułami @PreAuthorize. Reguły dostępu do ścieżek z SecurityConfig są sprawdzane dla każdej operacji
+ * przed jej wykonaniem. W trybie transakcyjnym wszystkie operacje dzielą jedną transakcję, a pierwsza
+ * nieudana operacja wycofuje całość. Nagłówek Idempotency-Key jest wtedy niedozwolony - odpowiedź operacji
+ * zostałaby zapamiętana przed zatwierdzeniem transakcji, a ponowienie po wycofaniu otrzymałoby wynik
+ * operacji, która nie została zapisana.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchService {
+
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE");
+
+    /**
+     * Ścieżki, których nie można wywołać w żądaniu zbiorczym (zagnieżdżanie, strumienie SSE).
+     */
+    private static final Set<String> EXCLUDED_PATHS = Set.of("/api/batch", "/api/visits/events");
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final DispatcherServlet dispatcherServlet;
+    private final WebInvocationPrivilegeEvaluator privilegeEvaluator;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.batch.maxRequests:20}")
+    private int maxRequests;
+
+    /**
+     * Wykonuje operacje żądania zbiorczego w podanej kolejności.
+     * @param batch Operacje do wykonania.
+     * @param request Żądanie zbiorcze (źródło nagłówków, m.in. Authorization).
+     * @param response Odpowiedź żądania zbiorczego.
+     * @return Wyniki operacji.
+     * @throws IllegalArgumentException Jeśli lista operacji jest pusta, zbyt długa, zawiera niepoprawną operację
+     *                                  lub żądanie transakcyjne zawiera nagłówek Idempotency-Key.
+     */
+    public BatchResponse execute(BatchRequest batch, HttpServletRequest request, HttpServletResponse response) {
+        List<BatchRequest.Operation> operations = batch.getRequests();
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Żądanie zbiorcze nie zawiera operacji.");
+        }
+        if (operations.size() > maxRequests) {
+            throw new IllegalArgumentException("Żądanie zbiorcze może zawierać co najwyżej " + maxRequests + " operacji.");
+        }
+        operations.forEach(BatchService::validate);
+        if (batch.isTransactional()) {
+            // Nagłówki żądania zbiorczego są dziedziczone przez operacje
+            if (request.getHeader(IDEMPOTENCY_KEY_HEADER) != null || operations.stream().anyMatch(BatchService::hasIdempotencyKey)) {
+                throw new IllegalArgumentException("Nagłówek " + IDEMPOTENCY_KEY_HEADER + " nie jest dozwolony w transakcyjnym żądaniu zbiorczym.");
+            }
+        }
+
+        List<BatchResponse.Result> results = new ArrayList<>(operations.size());
+        if (!batch.isTransactional()) {
+            for (BatchRequest.Operation operation : operations) {
+                results.add(executeOperation(operation, request, response));
+            }
+            return new BatchResponse(false, results);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            Boolean rolledBack = transactionTemplate.execute(status -> {
+                for (BatchRequest.Operation operation : operations) {
+                    BatchResponse.Result result = executeOperation(operation, request, response);
+                    results.add(result);
+                    if (result.getStatus() >= 400) {
+                        status.setRollbackOnly();
+                        return true;
+                    }
+                }
+                return false;
+            });
+            return new BatchResponse(Boolean.TRUE.equals(rolledBack), results);
+        } catch (UnexpectedRollbackException e) {
+            // Operacja zakończona sukcesem, ale jej serwis oznaczył transakcję do wycofania
+            return new BatchResponse(true, results);
+        }
+    }
+
+    private static void validate(BatchRequest.Operation operation) {
+        if (operation.getMethod() == null || !METHODS.contains(operation.getMethod().toUpperCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Niepoprawna metoda operacji: " + operation.getMethod());
+        }
+        String path = operation.getPath();
+        if (path == null || !path.startsWith("/api/")) {
+            throw new IllegalArgumentException("Ścieżka operacji musi zaczynać się od /api/: " + path);
+        }
+        String pathOnly = stripQuery(path);
+        String lower = pathOnly.toLowerCase(Locale.ROOT);
+        if (lower.contains("..") || lower.contains("//") || lower.contains(";") || lower.contains("\\")
+                || lower.contains("%2e") || lower.contains("%2f") || lower.contains("%5c")) {
+            throw new IllegalArgumentException("Niepoprawna ścieżka operacji: " + path);
+        }
+        if (EXCLUDED_PATHS.stream().anyMatch(excluded -> pathOnly.equals(excluded) || pathOnly.startsWith(excluded + "/"))) {
+            throw new IllegalArgumentException("Operacja nie może być wykonana w żądaniu zbiorczym: " + path);
+        }
+    }
+
+    private static boolean hasIdempotencyKey(BatchRequest.Operation operation) {
+        return operation.getHeaders() != null
+                && operation.getHeaders().keySet().stream().anyMatch(IDEMPOTENCY_KEY_HEADER::equalsIgnoreCase);
+    }
+
+    private BatchResponse.Result executeOperation(BatchRequest.Operation operation, HttpServletRequest request, HttpServletResponse response) {
+        String method = operation.getMethod().toUpperCase(Locale.ROOT);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!privilegeEvaluator.isAllowed(request.getContextPath(), stripQuery(operation.getPath()), method, authentication)) {
+            return error(HttpServletResponse.SC_FORBIDDEN, "Brak dostępu do " + operation.getPath());
+        }
+
+        // Ciało tekstowe (np. treść dokumentu) jest przekazywane bez cudzysłowów JSON
+        JsonNode operationBody = operation.getBody();
+        byte[] body;
+        String contentType = MediaType.APPLICATION_JSON_VALUE;
+        try {
+            if (operationBody == null || operationBody.isNull()) {
+                body = new byte[0];
+            } else if (operationBody.isTextual()) {
+                body = operationBody.asText().getBytes(StandardCharsets.UTF_8);
+                contentType = MediaType.TEXT_PLAIN_VALUE;
+            } else {
+                body = objectMapper.writeValueAsBytes(operationBody);
+            }
+        } catch (JsonProcessingException e) {
+            return error(HttpServletResponse.SC_BAD_REQUEST, e.getOriginalMessage());
+        }
+
+        BatchServletRequest operationRequest = new BatchServletRequest(request, method, operation.getPath(), operation.getHeaders(), body, contentType);
+        BatchServletResponse operationResponse = new BatchServletResponse(response);
+        try {
+            dispatcherServlet.service(operationRequest, operationResponse);
+        } catch (ServletException | IOException | RuntimeException e) {
+            return error(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+        return toResult(operationResponse);
+    }
+
+    private BatchResponse.Result toResult(BatchServletResponse response) {
+        HttpHeaders headers = response.getResponseHeaders();
+        byte[] content = response.getContent();
+        JsonNode body = null;
+        if (content.length > 0) {
+            MediaType contentType = headers.getContentType();
+            String text = new String(content, StandardCharsets.UTF_8);
+            if (contentType != null && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType) || contentType.getSubtype().endsWith("+json"))) {
+                try {
+                    body = objectMapper.readTree(content);
+                } catch (IOException e) {
+                    body = TextNode.valueOf(text);
+                }
+            } else {
+                body = TextNode.valueOf(text);
+            }
+        } else if (response.getErrorMessage() != null) {
+            body = TextNode.valueOf(response.getErrorMessage());
+        }
+        return new BatchResponse.Result(response.getStatusCode(), headers.toSingleValueMap(), body);
+    }
+
+    private static BatchResponse.Result error(int status, String message) {
+        return new BatchResponse.Result(status, Map.of(), message != null ? TextNode.valueOf(message) : null);
+    }
+
+    private static String stripQuery(String path) {
+        int queryStart = path.indexOf('?');
+        return queryStart < 0 ? path : path.substring(0, queryStart);
+    }
+}
@@ -0,0 +1,169 @@
+package com.clinic.service;
+
+import com.clinic.dto.CacheInvalidationEvent;
+import com.clinic.model.CacheChange;
+import com.clinic.model.ClusterLock;
+import com.clinic.repository.CacheChangeRepository;
+import com.clinic.repository.ClusterLockRepository;
+import com.clinic.tenancy.TenantContext;
+import com.clinic.tenancy.TenantRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Koordynacja wielu instancji aplikacji działających na jednej bazie danych.
+ *
+ * Blokady z dzierżawą (tabela cluster_lock) pozwalają uruchamiać zadania wsadowe tylko na jednej
+ * instancji naraz. Dziennik zmian (tabela cache_change_log) jest zapisywany w transakcjach zmieniających
+ * dane, a każda instancja okresowo odczytuje wpisy pozostałych instancji z ostatnich app.cluster.changeLog.lagMs
+ * milisekund i publikuje CacheInvalidationEvent, na które reagują lokalne pamięci podręczne. Okno
+ * odczytu (zamiast samego ostatniego ID) obejmuje transakcje zatwierdzone w innej kolejności niż przydział ID.
+ * Obie tabele istnieją w schemacie każdej kliniki, więc blokady i dziennik dotyczą bieżącej kliniki (TenantContext).
+ *
+ * Rezerwacje terminów są szeregowane blokadą wiersza lekarza w bazie (DoctorRepository.findByIdForUpdate),
+ * więc nie wymagają dodatkowej koordynacji między instancjami.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClusterCoordinator {
+
+    private final ClusterLockRepository clusterLockRepository;
+    private final CacheChangeRepository cacheChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final TenantRegistry tenantRegistry;
+
+    @Value("${app.cluster.nodeId:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String nodeId;
+
+    @Value("${app.cluster.changeLog.lagMs:10000}")
+    private long lagMs;
+
+    @Value("${app.cluster.changeLog.retentionMinutes:60}")
+    private long retentionMinutes;
+
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final Map<AppliedChange, LocalDateTime> applied = new ConcurrentHashMap<>();
+
+    /**
+     * Zwraca identyfikator tej instancji aplikacji.
+     * @return Identyfikator instancji (app.cluster.nodeId lub losowy UUID).
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Próbuje uzyskać (lub przedłużyć) blokadę na czas dzierżawy. Wykonywane we własnej transakcji.
+     * @param name Nazwa blokady.
+     * @param lease Czas dzierżawy.
+     * @return true, jeśli blokada należy do tej instancji.
+     */
+    public boolean tryLock(String name, Duration lease) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (clusterLockRepository.acquire(name, nodeId, now.plus(lease), now) > 0) {
+                    return true;
+                }
+                if (clusterLockRepository.existsById(name)) {
+                    return false;
+                }
+                clusterLockRepository.saveAndFlush(new ClusterLock(name, nodeId, now.plus(lease)));
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Inna instancja utworzyła blokadę w tym samym momencie
+            return false;
+        }
+    }
+
+    /**
+     * Zwalnia blokadę, jeśli należy do tej instancji.
+     * @param name Nazwa blokady.
+     */
+    public void unlock(String name) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status -> clusterLockRepository.release(name, nodeId, LocalDateTime.now()));
+    }
+
+    /**
+     * Zapisuje zmianę w dzienniku, aby pozostałe instancje unieważniły swoje pamięci podręczne.
+     * Jeśli trwa transakcja, wpis jest dodawany tuż przed jej zatwierdzeniem (i wycofywany razem z nią).
+     * @param cacheName Nazwa pamięci podręcznej (CacheInvalidationEvent.AGENDA, WAITLIST).
+     * @param doctorId ID lekarza.
+     * @param day Dzień, którego dotyczy zmiana, lub null.
+     */
+    public void publishChange(String cacheName, Long doctorId, LocalDate day) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    cacheChangeRepository.save(new CacheChange(null, nodeId, cacheName, doctorId, day, LocalDateTime.now()));
+                }
+            });
+        } else {
+            cacheChangeRepository.save(new CacheChange(null, nodeId, cacheName, doctorId, day, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Odczytuje zmiany zapisane przez inne instancje (we wszystkich klinikach) i publikuje je
+     * jako CacheInvalidationEvent. Każdy wpis jest stosowany tylko raz.
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.changeLog.pollMs:1000}")
+    public void pollChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minus(Duration.ofMillis(lagMs));
+        if (since.isBefore(startedAt)) {
+            since = startedAt; // Wcześniejsze zmiany nie dotyczą pustych pamięci podręcznych
+        }
+        for (String tenant : tenantRegistry.getTenants()) {
+            LocalDateTime windowStart = since;
+            TenantContext.runAs(tenant, () -> {
+                for (CacheChange change : cacheChangeRepository.findByCreatedAtGreaterThanEqualAndNodeIdNotOrderByIdAsc(windowStart, nodeId)) {
+                    if (applied.putIfAbsent(new AppliedChange(tenant, change.getId()), change.getCreatedAt()) == null) {
+                        eventPublisher.publishEvent(new CacheInvalidationEvent(tenant, change.getCacheName(), change.getDoctorId(), change.getDay()));
+                    }
+                }
+            });
+        }
+        LocalDateTime windowStart = since;
+        applied.values().removeIf(createdAt -> createdAt.isBefore(windowStart));
+    }
+
+    /**
+     * Usuwa z dziennika (we wszystkich klinikach) wpisy starsze niż app.cluster.changeLog.retentionMinutes.
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.changeLog.pruneMs:600000}")
+    public void pruneChanges() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(retentionMinutes);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (String tenant : tenantRegistry.getTenants()) {
+            TenantContext.runAs(tenant, () ->
+                    transactionTemplate.executeWithoutResult(status -> cacheChangeRepository.deleteOlderThan(before)));
+        }
+    }
+
+    private record AppliedChange(String tenant, Long id) {
+    }
+}
@@ -5,12 +5,15 @@ import com.clinic.model.Visit;
 import com.clinic.model.VisitStatus;
 import com.clinic.repository.DoctorRepository;
 import com.clinic.repository.VisitRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,12 +27,17 @@ public class DoctorService {
 
     private final DoctorRepository doctorRepository;
     private final VisitRepository visitRepository;
+    private final ProjectionService projectionService;
+    private final ObjectMapper objectMapper;
+    private final EntityPurgeService entityPurgeService;
+    private final AgendaService agendaService;
+    private final WaitlistService waitlistService;
 
     /**
      * Pobiera wszystkich lekarzy z bazy danych.
      * @return Lista wszystkich lekarzy.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Doctor> getAllDoctors() {
         return doctorRepository.findAll();
     }
@@ -39,11 +47,32 @@ public class DoctorService {
      * @param id ID lekarza.
      * @return Opcjonalny obiekt Doctor, jeśli lekarz został znaleziony.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<Doctor> getDoctorById(Long id) {
         return doctorRepository.findById(id);
     }
 
+    /**
+     * Pobiera wybrane pola wszystkich lekarzy (parametr ?fields=).
+     * @param fields Pola wybrane przez FieldProjection.DOCTOR.parse.
+     * @return Lista lekarzy jako mapy pole → wartość.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllDoctorFields(List<String> fields) {
+        return projectionService.findAll(FieldProjection.DOCTOR, fields, null, Map.of());
+    }
+
+    /**
+     * Pobiera wybrane pola lekarza o podanym ID (parametr ?fields=).
+     * @param id ID lekarza.
+     * @param fields Pola wybrane przez FieldProjection.DOCTOR.parse.
+     * @return Pola lekarza lub Optional.empty().
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getDoctorFieldsById(Long id, List<String> fields) {
+        return projectionService.findById(FieldProjection.DOCTOR, fields, id).map(ProjectionService.ProjectedRow::fields);
+    }
+
     /**
      * Tworzy nowego lekarza.
      * @param doctor Obiekt lekarza do zapisania.
@@ -54,6 +83,9 @@ public class DoctorService {
         if (doctorRepository.findByEmail(doctor.getEmail()).isPresent()) {
             throw new IllegalArgumentException("Lekarz z podanym adresem email już istnieje.");
         }
+        if (doctorRepository.existsDeletedByEmail(doctor.getEmail())) {
+            throw new IllegalArgumentException("Adres email należy do usuniętego lekarza, którego dane są jeszcze usuwane.");
+        }
         return doctorRepository.save(doctor);
     }
 
@@ -81,15 +113,41 @@ public class DoctorService {
     }
 
     /**
-     * Usuwa lekarza o podanym ID.
+     * Częściowo aktualizuje dane lekarza dokumentem JSON Merge Patch (zob. MergePatch).
+     * UPDATE obejmuje tylko faktycznie zmienione kolumny.
+     * @param id ID lekarza.
+     * @param patch Dokument z polami do zmiany.
+     * @return Zaktualizowany lekarz, lub Optional.empty() jeśli lekarz nie istnieje.
+     * @throws IllegalArgumentException Jeśli dokument jest niepoprawny lub nowy adres email jest zajęty.
+     */
+    @Transactional
+    public Optional<Doctor> patchDoctor(Long id, JsonNode patch) {
+        MergePatch.DOCTOR.validate(patch);
+        return doctorRepository.findById(id).map(doctor -> {
+            String email = MergePatch.text(patch, "email");
+            if (email != null && !email.equals(doctor.getEmail()) && doctorRepository.findByEmail(email).isPresent()) {
+                throw new IllegalArgumentException("Nowy adres email jest już zajęty.");
+            }
+            return doctorRepository.save(MergePatch.DOCTOR.apply(objectMapper, doctor, patch));
+        });
+    }
+
+    /**
+     * Usuwa lekarza o podanym ID. Lekarz jest tylko oznaczany jako usunięty (jeden wiersz) i od tej chwili
+     * niewidoczny dla zapytań, a jego wizyty, archiwum i statystyki są usuwane w tle paczkami (EntityPurgeService).
+     * Agenda lekarza w pamięci podręcznej jest unieważniana po zatwierdzeniu usunięcia, a oczekujący na terminy
+     * u lekarza są anulowani w tej samej transakcji.
      * @param id ID lekarza do usunięcia.
+     * @throws IllegalArgumentException Jeśli lekarz nie istnieje.
      */
     @Transactional
     public void deleteDoctor(Long id) {
-        if (!doctorRepository.existsById(id)) {
+        if (doctorRepository.softDelete(id, LocalDateTime.now()) == 0) {
             throw new IllegalArgumentException("Lekarz o podanym ID nie istnieje.");
         }
-        doctorRepository.deleteById(id);
+        agendaService.invalidateDoctor(id);
+        waitlistService.cancelForDoctor(id);
+        entityPurgeService.requestPurge();
     }
 
     /**
@@ -98,7 +156,7 @@ public class DoctorService {
      * @param from Czas początkowy, od którego szukamy terminów.
      * @return Lista wizyt lekarza, które nie są anulowane i są po danym czasie.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Visit> getAvailableTerms(Long doctorId, LocalDateTime from) {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new IllegalArgumentException("Lekarz o podanym ID nie istnieje."));
@@ -114,7 +172,7 @@ public class DoctorService {
      * @param email Adres e-mail lekarza.
      * @return Opcjonalny obiekt Doctor.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<Doctor> getDoctorByEmail(String email) {
         return doctorRepository.findByEmail(email);
     }
@@ -0,0 +1,282 @@
+package com.clinic.service;
+
+import com.clinic.model.VisitStatus;
+import com.clinic.repository.ArchivedVisitRepository;
+import com.clinic.repository.DoctorRepository;
+import com.clinic.repository.MedicalDocumentRepository;
+import com.clinic.repository.PatientRepository;
+import com.clinic.repository.VisitRepository;
+import com.clinic.repository.VisitStatisticRepository;
+import com.clinic.tenancy.TenantContext;
+import com.clinic.tenancy.TenantRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Usuwanie danych lekarzy i pacjentów oznaczonych jako usunięci (miękkie usuwanie, kolumna deleted_at).
+ *
+ * Żądanie usunięcia zmienia tylko jeden wiersz, a od jego zatwierdzenia lekarz/pacjent jest pomijany przez zapytania
+ * repozytoriów. Powiązane dane (wizyty z dokumentami, dokumenty, archiwum wizyt, statystyki) są usuwane w tle poleceniami
+ * DELETE w paczkach po app.purge.batchSize wierszy - każda paczka to osobna, krótka transakcja, a między paczkami
+ * zadanie robi przerwę proporcjonalną do czasu paczki. Usunięcie lekarza z wieloletnią historią nie blokuje więc
+ * tabeli wizyt na czas jednej długiej transakcji. Na końcu usuwany jest sam wiersz lekarza/pacjenta.
+ * Oczyszczanie jest zlecane po zatwierdzeniu usunięcia, a zadanie okresowe dokańcza przerwane oczyszczanie (np. po restarcie).
+ * Liczniki statystyk są zmieniane tylko tutaj: wizyty usuniętego pacjenta są odejmowane w tej samej transakcji co usunięcie
+ * ich paczki, a liczniki usuniętego lekarza są usuwane razem z nim. Dane są wyszukiwane zapytaniami natywnymi, bo encje
+ * wizyt i dokumentów pomijają dane usuniętych lekarzy i pacjentów (SQLRestriction).
+ */
+@Service
+@RequiredArgsConstructor
+public class EntityPurgeService {
+
+    private static final String JOB_NAME = "entity-purge";
+
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final VisitRepository visitRepository;
+    private final ArchivedVisitRepository archivedVisitRepository;
+    private final MedicalDocumentRepository medicalDocumentRepository;
+    private final VisitStatisticRepository visitStatisticRepository;
+    private final VisitStatisticsService visitStatisticsService;
+    private final AgendaService agendaService;
+    private final PlatformTransactionManager transactionManager;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TenantRegistry tenantRegistry;
+
+    @Value("${app.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.purge.batchSize:500}")
+    private int batchSize;
+
+    @Value("${app.purge.pauseFactor:1.0}")
+    private double pauseFactor;
+
+    @Value("${app.purge.maxPauseMs:5000}")
+    private long maxPauseMs;
+
+    @Value("${app.cluster.jobLeaseSeconds:600}")
+    private long jobLeaseSeconds;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private ExecutorService purgeExecutor;
+
+    @PostConstruct
+    public void start() {
+        purgeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purgeExecutor.shutdown();
+    }
+
+    /**
+     * Zleca oczyszczanie bieżącej kliniki w tle po zatwierdzeniu trwającej transakcji (lub od razu, jeśli jej nie ma).
+     */
+    public void requestPurge() {
+        if (!enabled) {
+            return;
+        }
+        String tenant = TenantContext.getTenant();
+        Runnable submit = () -> purgeExecutor.execute(() -> TenantContext.runAs(tenant, this::purge));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Okresowe dokańczanie oczyszczania (kolejno dla każdej kliniki).
+     */
+    @Scheduled(fixedDelayString = "${app.purge.intervalMs:600000}", initialDelayString = "${app.purge.initialDelayMs:60000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            for (String tenant : tenantRegistry.getTenants()) {
+                TenantContext.runAs(tenant, this::purge);
+            }
+        }
+    }
+
+    /**
+     * Usuwa dane wszystkich lekarzy i pacjentów oznaczonych jako usunięci w bieżącej klinice (TenantContext).
+     * Jednocześnie może działać tylko jedno oczyszczanie kliniki - także między instancjami aplikacji
+     * (blokada w bazie z dzierżawą app.cluster.jobLeaseSeconds, przedłużana po każdej paczce).
+     * @return Liczba usuniętych wierszy powiązanych danych (0, jeśli oczyszczanie już trwa).
+     */
+    public long purge() {
+        String tenant = TenantContext.getTenant();
+        if (!running.add(tenant)) {
+            return 0;
+        }
+        boolean locked = false;
+        try {
+            Duration lease = Duration.ofSeconds(jobLeaseSeconds);
+            if (!clusterCoordinator.tryLock(JOB_NAME, lease)) {
+                return 0; // Oczyszczanie trwa na innej instancji aplikacji
+            }
+            locked = true;
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            Purge purge = new Purge(transactionTemplate, lease);
+            for (Long doctorId : doctorRepository.findDeletedIds()) {
+                if (!purgeDoctor(purge, doctorId)) {
+                    return purge.total;
+                }
+            }
+            for (Long patientId : patientRepository.findDeletedIds()) {
+                if (!purgePatient(purge, patientId)) {
+                    return purge.total;
+                }
+            }
+            return purge.total;
+        } finally {
+            if (locked) {
+                clusterCoordinator.unlock(JOB_NAME);
+            }
+            running.remove(tenant);
+        }
+    }
+
+    private boolean purgeDoctor(Purge purge, Long doctorId) {
+        boolean completed = purge.drain(() -> {
+            List<Long> visitIds = visitRepository.findIdsByDoctorId(doctorId, Limit.of(batchSize));
+            if (visitIds.isEmpty()) {
+                return 0;
+            }
+            medicalDocumentRepository.deleteByVisitIdIn(visitIds); // Dokumenty wizyt usuwane razem z wizytami
+            return visitRepository.deleteAllByIdIn(visitIds);
+        }) && purge.drain(() -> {
+            List<Long> archivedIds = archivedVisitRepository.findIdsByDoctorId(doctorId, Limit.of(batchSize));
+            return archivedIds.isEmpty() ? 0 : archivedVisitRepository.deleteAllByIdIn(archivedIds);
+        }) && purge.drain(() -> {
+            List<LocalDate> days = visitStatisticRepository.findStatDatesByDoctorId(doctorId, Limit.of(batchSize));
+            return days.isEmpty() ? 0 : visitStatisticRepository.deleteByDoctorIdUpTo(doctorId, days.get(days.size() - 1));
+        });
+        if (completed) {
+            purge.transactionTemplate.executeWithoutResult(status -> doctorRepository.purgeDeleted(doctorId));
+        }
+        return completed;
+    }
+
+    private boolean purgePatient(Purge purge, Long patientId) {
+        boolean completed = purge.drain(() -> {
+            List<Object[]> visits = visitRepository.findPurgeBatchByPatientId(patientId, Limit.of(batchSize));
+            if (visits.isEmpty()) {
+                return 0;
+            }
+            List<Long> visitIds = visits.stream().map(row -> ((Number) row[0]).longValue()).toList();
+            medicalDocumentRepository.deleteByVisitIdIn(visitIds);
+            // Wizyty pacjenta zwalniają terminy u innych lekarzy - agendy tych dni są unieważniane po zatwierdzeniu paczki
+            for (Object[] row : visits) {
+                agendaService.invalidate(((Number) row[1]).longValue(), toLocalDateTime(row[2]));
+            }
+            subtractFromStatistics(visits);
+            return visitRepository.deleteAllByIdIn(visitIds);
+        }) && purge.drain(() -> {
+            List<Long> documentIds = medicalDocumentRepository.findIdsByPatientId(patientId, Limit.of(batchSize));
+            return documentIds.isEmpty() ? 0 : medicalDocumentRepository.deleteAllByIdIn(documentIds);
+        }) && purge.drain(() -> {
+            List<Object[]> archived = archivedVisitRepository.findPurgeBatchByPatientId(patientId, Limit.of(batchSize));
+            if (archived.isEmpty()) {
+                return 0;
+            }
+            subtractFromStatistics(archived);
+            return archivedVisitRepository.deleteAllByIdIn(archived.stream().map(row -> ((Number) row[0]).longValue()).toList());
+        });
+        if (completed) {
+            purge.transactionTemplate.executeWithoutResult(status -> patientRepository.purgeDeleted(patientId));
+        }
+        return completed;
+    }
+
+    /**
+     * Odejmuje usuwane wizyty z liczników statystyk (w transakcji paczki).
+     * @param visits Krotki [id, doctor_id, visit_date_time, status].
+     */
+    private void subtractFromStatistics(List<Object[]> visits) {
+        Map<List<Object>, Long> counts = new HashMap<>();
+        for (Object[] row : visits) {
+            counts.merge(List.of(((Number) row[1]).longValue(), toLocalDateTime(row[2]).toLocalDate(),
+                    VisitStatus.valueOf(row[3].toString())), 1L, Long::sum);
+        }
+        counts.forEach((key, count) -> visitStatisticsService.recordBulkChange(
+                (Long) key.get(0), (LocalDate) key.get(1), (VisitStatus) key.get(2), -count));
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    /**
+     * Przebieg oczyszczania jednej kliniki.
+     */
+    private final class Purge {
+
+        private final TransactionTemplate transactionTemplate;
+        private final Duration lease;
+        private long total;
+
+        private Purge(TransactionTemplate transactionTemplate, Duration lease) {
+            this.transactionTemplate = transactionTemplate;
+            this.lease = lease;
+        }
+
+        /**
+         * Wykonuje paczki (każdą w osobnej transakcji), dopóki paczka usuwa pełne batchSize wierszy.
+         * @return false, jeśli oczyszczanie przerwano (utrata dzierżawy, przerwanie wątku).
+         */
+        private boolean drain(IntSupplier batch) {
+            while (true) {
+                long start = System.nanoTime();
+                Integer deleted = transactionTemplate.execute(status -> batch.getAsInt());
+                total += deleted;
+                if (deleted < batchSize) {
+                    return true;
+                }
+                if (!clusterCoordinator.tryLock(JOB_NAME, lease)) {
+                    return false; // Dzierżawa wygasła i została przejęta przez inną instancję
+                }
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                try {
+                    Thread.sleep(Math.min(maxPauseMs, (long) (elapsedMs * pauseFactor)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.clinic.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pola encji, które można wybrać parametrem ?fields= (rzadkie zbiory pól).
+ *
+ * Każde pole odpowiada ścieżce JPQL wybieranej w zapytaniu projekcyjnym (ProjectionService) - kolumnie
+ * tabeli encji lub kluczowi obcemu (np. doctorId), bez złączeń. Kolekcje (wizyty, dokumenty) nie są polami,
+ * więc zapytanie projekcyjne nigdy ich nie ładuje. Ścieżki właściciela (ID i e-mail pacjenta) są wybierane
+ * dodatkowo na potrzeby kontroli dostępu i nie trafiają do odpowiedzi.
+ */
+public final class FieldProjection {
+
+    public static final FieldProjection PATIENT = new FieldProjection("Patient", "p", "p.id", "p.id", "p.email",
+            "id", "p.id", "imie", "p.imie", "nazwisko", "p.nazwisko", "dataUrodzenia", "p.dataUrodzenia",
+            "email", "p.email", "telefon", "p.telefon", "pesel", "p.pesel", "adres", "p.adres");
+
+    public static final FieldProjection DOCTOR = new FieldProjection("Doctor", "d", "d.id", null, null,
+            "id", "d.id", "imie", "d.imie", "nazwisko", "d.nazwisko", "specjalizacja", "d.specjalizacja",
+            "email", "d.email", "telefon", "d.telefon");
+
+    public static final FieldProjection VISIT = new FieldProjection("Visit", "v", "v.visitDateTime, v.id", "v.patient.id", "v.patient.email",
+            "id", "v.id", "visitDateTime", "v.visitDateTime", "status", "v.status",
+            "doctorId", "v.doctor.id", "patientId", "v.patient.id", "seriesId", "v.seriesId");
+
+    public static final FieldProjection ARCHIVED_VISIT = new FieldProjection("ArchivedVisit", "a", "a.visitDateTime, a.id", "a.patientId", null,
+            "id", "a.id", "visitDateTime", "a.visitDateTime", "status", "a.status",
+            "doctorId", "a.doctorId", "patientId", "a.patientId");
+
+    public static final FieldProjection MEDICAL_DOCUMENT = new FieldProjection("MedicalDocument", "m", "m.id", "m.patient.id", "m.patient.email",
+            "id", "m.id", "name", "m.name", "content", "m.content", "creationDate", "m.creationDate",
+            "patientId", "m.patient.id", "visitId", "m.visit.id", "archivedVisitId", "m.archivedVisitId");
+
+    private final String entity;
+    private final String alias;
+    private final String orderBy;
+    private final String ownerIdPath;
+    private final String ownerEmailPath;
+    private final Map<String, String> paths = new LinkedHashMap<>();
+
+    private FieldProjection(String entity, String alias, String orderBy, String ownerIdPath, String ownerEmailPath, String... namesAndPaths) {
+        this.entity = entity;
+        this.alias = alias;
+        this.orderBy = orderBy;
+        this.ownerIdPath = ownerIdPath;
+        this.ownerEmailPath = ownerEmailPath;
+        for (int i = 0; i < namesAndPaths.length; i += 2) {
+            paths.put(namesAndPaths[i], namesAndPaths[i + 1]);
+        }
+    }
+
+    /**
+     * Parsuje wartość parametru fields (nazwy pól rozdzielone przecinkami).
+     * @param fields Wartość parametru, np. "id,imie,nazwisko".
+     * @return Wybrane pola w kolejności podania, bez powtórzeń.
+     * @throws IllegalArgumentException Jeśli lista jest pusta lub zawiera nieznane pole.
+     */
+    public List<String> parse(String fields) {
+        List<String> selected = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || selected.contains(name)) {
+                continue;
+            }
+            if (!paths.containsKey(name)) {
+                throw new IllegalArgumentException("Nieznane pole: " + name + ". Dostępne pola: " + String.join(",", paths.keySet()));
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("Parametr fields nie zawiera żadnego pola.");
+        }
+        return selected;
+    }
+
+    String getEntity() {
+        return entity;
+    }
+
+    String getAlias() {
+        return alias;
+    }
+
+    String getOrderBy() {
+        return orderBy;
+    }
+
+    String getOwnerIdPath() {
+        return ownerIdPath;
+    }
+
+    String getOwnerEmailPath() {
+        return ownerEmailPath;
+    }
+
+    String getPath(String field) {
+        return paths.get(field);
+    }
+}
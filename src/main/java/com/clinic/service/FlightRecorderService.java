@@ -0,0 +1,96 @@
+package com.clinic.service;
+
+import com.clinic.monitoring.MedicalDocumentIoEvent;
+import com.clinic.monitoring.TokenValidationEvent;
+import com.clinic.monitoring.VisitScheduleEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Serwis zarządzający nagraniami Java Flight Recorder.
+ * Pozwala administratorowi uruchomić nagranie (ustawienia "default" JFR oraz zdarzenia aplikacji),
+ * a następnie je zatrzymać i zapisać na dysk.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${app.jfr.dumpDirectory:jfr}")
+    private String dumpDirectory;
+
+    private Recording recording;
+
+    /**
+     * Rozpoczyna nowe nagranie JFR.
+     * @throws IllegalStateException Jeśli nagranie jest już aktywne.
+     */
+    public synchronized void startRecording() {
+        if (isRecording()) {
+            throw new IllegalStateException("Nagranie JFR jest już aktywne.");
+        }
+        Recording newRecording;
+        try {
+            newRecording = new Recording(Configuration.getConfiguration("default"));
+        } catch (IOException | ParseException e) {
+            newRecording = new Recording();
+        }
+        newRecording.setName("clinic-" + LocalDateTime.now().format(FILE_NAME_FORMAT));
+        newRecording.enable(VisitScheduleEvent.class);
+        newRecording.enable(TokenValidationEvent.class);
+        newRecording.enable(MedicalDocumentIoEvent.class);
+        newRecording.start();
+        this.recording = newRecording;
+    }
+
+    /**
+     * Zatrzymuje aktywne nagranie i zapisuje je do pliku .jfr.
+     * @return Ścieżka do zapisanego pliku.
+     * @throws IllegalStateException Jeśli żadne nagranie nie jest aktywne.
+     * @throws IOException W przypadku błędu zapisu pliku.
+     */
+    public synchronized Path stopRecording() throws IOException {
+        if (!isRecording()) {
+            throw new IllegalStateException("Brak aktywnego nagrania JFR.");
+        }
+        try {
+            recording.stop();
+            Path directory = Paths.get(dumpDirectory);
+            Files.createDirectories(directory);
+            Path file = directory.resolve(recording.getName() + ".jfr").toAbsolutePath();
+            recording.dump(file);
+            return file;
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * Sprawdza, czy nagranie JFR jest aktualnie aktywne.
+     * @return true, jeśli trwa nagrywanie.
+     */
+    public synchronized boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
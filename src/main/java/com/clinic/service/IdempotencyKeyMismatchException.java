@@ -0,0 +1,11 @@
+package com.clinic.service;
+
+/**
+ * Klucz idempotencji został już użyty z innymi parametrami żądania.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
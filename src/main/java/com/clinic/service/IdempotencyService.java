@@ -0,0 +1,207 @@
+package com.clinic.service;
+
+import com.clinic.tenancy.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Serwis obsługujący nagłówek Idempotency-Key dla operacji tworzących dane
+ * (planowanie wizyty, tworzenie dokumentu medycznego).
+ *
+ * Pierwsze żądanie z danym kluczem wykonuje operację, a jego odpowiedź jest przechowywana w pamięci
+ * przez określony czas (TTL). Ponowienia z tym samym kluczem otrzymują zapamiętaną odpowiedź bez
+ * dostępu do bazy danych. Współbieżne żądania z tym samym kluczem czekają na wynik pierwszego z nich,
+ * więc operacja wykonywana jest tylko raz.
+ *
+ * Zapamiętywany jest tylko status i treść odpowiedzi zserializowana do JSON (bez encji i ich powiązań),
+ * a przy odtworzeniu treść jest deserializowana do typu odpowiedzi. Odpowiedzi 409, 422 i 5xx nie są
+ * zapamiętywane - zależą od chwilowego stanu danych, więc ponowienie wykonuje operację jeszcze raz.
+ * Po przekroczeniu limitu wpisów usuwane są najpierw wpisy wygasłe, a potem najstarsze.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    /**
+     * Nagłówek dodawany do odpowiedzi odtworzonej z pamięci.
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Value("${app.idempotency.ttlSeconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${app.idempotency.maxEntries:100000}")
+    private int maxEntries;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder evictedCount = new LongAdder();
+
+    /**
+     * Wykonuje operację co najwyżej raz dla danego klucza idempotencji.
+     * @param scope Zakres klucza (np. operacja i zalogowany użytkownik), aby klucze różnych klientów się nie mieszały.
+     * @param key Wartość nagłówka Idempotency-Key.
+     * @param fingerprint Odcisk parametrów żądania; ponowienie z innymi parametrami jest błędem.
+     * @param bodyType Typ treści odpowiedzi (do odtworzenia zapamiętanej odpowiedzi).
+     * @param action Operacja do wykonania.
+     * @return Odpowiedź operacji lub odpowiedź zapamiętana przy pierwszym wykonaniu.
+     * @throws IdempotencyKeyMismatchException Jeśli klucz został już użyty z innymi parametrami żądania.
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, String fingerprint, Class<T> bodyType,
+                                         Supplier<ResponseEntity<T>> action) {
+        String storeKey = TenantContext.getTenant() + '\u0000' + scope + '\u0000' + key;
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry entry = new Entry(fingerprint, new CompletableFuture<>(), now + ttlSeconds * 1000);
+            Entry existing = entries.putIfAbsent(storeKey, entry);
+
+            if (existing != null && existing.expiresAt <= now) {
+                // Wpis wygasł - zastąp go nowym wykonaniem
+                if (!entries.replace(storeKey, existing, entry)) {
+                    continue;
+                }
+                existing = null;
+            }
+
+            if (existing != null) {
+                if (!existing.fingerprint.equals(fingerprint)) {
+                    throw new IdempotencyKeyMismatchException("Klucz idempotencji został już użyty z innymi parametrami żądania.");
+                }
+                Snapshot snapshot;
+                try {
+                    snapshot = existing.response.join();
+                } catch (CompletionException e) {
+                    continue; // Pierwsze wykonanie zakończyło się wyjątkiem - spróbuj ponownie
+                }
+                if (snapshot == null) {
+                    continue; // Odpowiedź pierwszego wykonania nie jest zapamiętywana - wykonaj operację ponownie
+                }
+                return replay(snapshot, bodyType);
+            }
+
+            return executeAndStore(storeKey, entry, action);
+        }
+    }
+
+    private <T> ResponseEntity<T> executeAndStore(String storeKey, Entry entry, Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(storeKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+        Snapshot snapshot = isStored(response.getStatusCode()) ? snapshot(response) : null;
+        if (snapshot == null) {
+            entries.remove(storeKey, entry);
+        } else if (entries.size() > maxEntries) {
+            evictOldest();
+        }
+        entry.response.complete(snapshot);
+        return response;
+    }
+
+    /**
+     * Zwalnia miejsce po przekroczeniu app.idempotency.maxEntries: usuwa wygasłe wpisy, a jeśli to nie wystarczy -
+     * najstarsze zakończone wykonania (z zapasem 10% limitu, aby sortowanie nie powtarzało się przy każdym żądaniu).
+     * Usunięte przed czasem klucze są zliczane - ich ponowienie wykona operację jeszcze raz.
+     */
+    private synchronized void evictOldest() {
+        evictExpired();
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> oldest = entries.entrySet().stream()
+                .filter(e -> e.getValue().response.isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+                .limit(excess + maxEntries / 10)
+                .toList();
+        int removed = 0;
+        for (Map.Entry<String, Entry> e : oldest) {
+            if (entries.remove(e.getKey(), e.getValue())) {
+                removed++;
+            }
+        }
+        evictedCount.add(removed);
+        System.err.println("Przekroczono limit kluczy idempotencji (" + maxEntries + ") - usunięto przed czasem " + removed + " najstarszych wpisów.");
+    }
+
+    /**
+     * @return Liczba kluczy usuniętych przed upływem TTL z powodu przekroczenia limitu wpisów.
+     */
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    /**
+     * Błędy serwera, konflikty (409) i odrzucenia (422) nie są zapamiętywane, aby ponowienie mogło się powieść.
+     */
+    private static boolean isStored(HttpStatusCode status) {
+        return !status.is5xxServerError()
+                && !status.isSameCodeAs(HttpStatus.CONFLICT)
+                && !status.isSameCodeAs(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    private Snapshot snapshot(ResponseEntity<?> response) {
+        try {
+            byte[] body = response.getBody() == null ? null : objectMapper.writeValueAsBytes(response.getBody());
+            return new Snapshot(response.getStatusCode().value(), body);
+        } catch (JsonProcessingException e) {
+            return null; // Treści nie da się zapamiętać - ponowienie wykona operację ponownie
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(Snapshot snapshot, Class<T> bodyType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(REPLAYED_HEADER, "true");
+        try {
+            T body = snapshot.body == null ? null : objectMapper.readValue(snapshot.body, bodyType);
+            return new ResponseEntity<>(body, headers, HttpStatusCode.valueOf(snapshot.status));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Okresowo usuwa wygasłe wpisy.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanupIntervalMs:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> e.getValue().expiresAt <= now && e.getValue().response.isDone());
+    }
+
+    /**
+     * Zapamiętane wykonanie operacji (odpowiedź null, jeśli nie jest zapamiętywana).
+     */
+    private record Entry(String fingerprint, CompletableFuture<Snapshot> response, long expiresAt) {
+    }
+
+    /**
+     * Status i treść odpowiedzi w postaci JSON.
+     */
+    private record Snapshot(int status, byte[] body) {
+    }
+}
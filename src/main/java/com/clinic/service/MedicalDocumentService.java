@@ -3,6 +3,8 @@ package com.clinic.service;
 import com.clinic.model.MedicalDocument;
 import com.clinic.model.Patient;
 import com.clinic.model.Visit;
+import com.clinic.monitoring.MedicalDocumentIoEvent;
+import com.clinic.repository.ArchivedVisitRepository;
 import com.clinic.repository.MedicalDocumentRepository;
 import com.clinic.repository.PatientRepository;
 import com.clinic.repository.VisitRepository;
@@ -10,8 +12,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,14 +29,20 @@ public class MedicalDocumentService {
     private final MedicalDocumentRepository medicalDocumentRepository;
     private final PatientRepository patientRepository;
     private final VisitRepository visitRepository;
+    private final ArchivedVisitRepository archivedVisitRepository;
+    private final ProjectionService projectionService;
 
     /**
      * Pobiera wszystkie dokumenty medyczne z bazy danych.
      * @return Lista wszystkich dokumentów medycznych.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<MedicalDocument> getAllMedicalDocuments() {
-        return medicalDocumentRepository.findAll();
+        MedicalDocumentIoEvent event = new MedicalDocumentIoEvent();
+        event.begin();
+        List<MedicalDocument> documents = medicalDocumentRepository.findAll();
+        recordIo(event, "READ", documents);
+        return documents;
     }
 
     /**
@@ -40,9 +50,13 @@ public class MedicalDocumentService {
      * @param id ID dokumentu medycznego.
      * @return Opcjonalny obiekt MedicalDocument, jeśli dokument został znaleziony.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<MedicalDocument> getMedicalDocumentById(Long id) {
-        return medicalDocumentRepository.findById(id);
+        MedicalDocumentIoEvent event = new MedicalDocumentIoEvent();
+        event.begin();
+        Optional<MedicalDocument> document = medicalDocumentRepository.findById(id);
+        recordIo(event, "READ", document.map(List::of).orElse(List.of()));
+        return document;
     }
 
     /**
@@ -76,7 +90,11 @@ public class MedicalDocumentService {
         document.setContent(content);
         document.setCreationDate(LocalDateTime.now()); // Ustaw aktualną datę utworzenia
 
-        return medicalDocumentRepository.save(document);
+        MedicalDocumentIoEvent event = new MedicalDocumentIoEvent();
+        event.begin();
+        MedicalDocument saved = medicalDocumentRepository.save(document);
+        recordIo(event, "WRITE", List.of(saved));
+        return saved;
     }
 
     /**
@@ -87,10 +105,14 @@ public class MedicalDocumentService {
      */
     @Transactional
     public Optional<MedicalDocument> updateMedicalDocumentContent(Long id, String updatedContent) {
-        return medicalDocumentRepository.findById(id).map(document -> {
+        MedicalDocumentIoEvent event = new MedicalDocumentIoEvent();
+        event.begin();
+        Optional<MedicalDocument> updated = medicalDocumentRepository.findById(id).map(document -> {
             document.setContent(updatedContent);
             return medicalDocumentRepository.save(document);
         });
+        recordIo(event, "WRITE", updated.map(List::of).orElse(List.of()));
+        return updated;
     }
 
     /**
@@ -111,11 +133,15 @@ public class MedicalDocumentService {
      * @return Lista dokumentów medycznych pacjenta.
      * @throws IllegalArgumentException Jeśli pacjent nie istnieje.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<MedicalDocument> getMedicalDocumentsForPatient(Long patientId) {
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new IllegalArgumentException("Pacjent o podanym ID nie istnieje."));
-        return medicalDocumentRepository.findByPatient(patient);
+        MedicalDocumentIoEvent event = new MedicalDocumentIoEvent();
+        event.begin();
+        List<MedicalDocument> documents = medicalDocumentRepository.findByPatient(patient);
+        recordIo(event, "READ", documents);
+        return documents;
     }
 
     /**
@@ -124,10 +150,100 @@ public class MedicalDocumentService {
      * @return Lista dokumentów medycznych powiązanych z wizytą.
      * @throws IllegalArgumentException Jeśli wizyta nie istnieje.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<MedicalDocument> getMedicalDocumentsForVisit(Long visitId) {
-        Visit visit = visitRepository.findById(visitId)
-                .orElseThrow(() -> new IllegalArgumentException("Wizyta o podanym ID nie istnieje."));
-        return medicalDocumentRepository.findByVisit(visit);
+        Optional<Visit> visit = visitRepository.findById(visitId);
+        if (visit.isEmpty() && !archivedVisitRepository.existsById(visitId)) {
+            throw new IllegalArgumentException("Wizyta o podanym ID nie istnieje.");
+        }
+        MedicalDocumentIoEvent event = new MedicalDocumentIoEvent();
+        event.begin();
+        // Wizyta mogła zostać przeniesiona do archiwum - wtedy dokumenty wskazują ją przez archived_visit_id
+        List<MedicalDocument> documents = visit.isPresent()
+                ? medicalDocumentRepository.findByVisit(visit.get())
+                : medicalDocumentRepository.findByArchivedVisitId(visitId);
+        recordIo(event, "READ", documents);
+        return documents;
+    }
+
+    /**
+     * Pobiera wybrane pola wszystkich dokumentów medycznych (parametr ?fields=).
+     * Treść dokumentów jest pobierana z bazy tylko wtedy, gdy wybrano pole content.
+     * @param fields Pola wybrane przez FieldProjection.MEDICAL_DOCUMENT.parse.
+     * @return Lista dokumentów jako mapy pole → wartość.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllMedicalDocumentFields(List<String> fields) {
+        return projectionService.findAll(FieldProjection.MEDICAL_DOCUMENT, fields, null, Map.of());
+    }
+
+    /**
+     * Pobiera wybrane pola dokumentu medycznego o podanym ID (parametr ?fields=).
+     * @param id ID dokumentu.
+     * @param fields Pola wybrane przez FieldProjection.MEDICAL_DOCUMENT.parse.
+     * @return Pola dokumentu wraz z danymi pacjenta (kontrola dostępu, audyt) lub Optional.empty().
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProjectionService.ProjectedRow> getMedicalDocumentFieldsById(Long id, List<String> fields) {
+        return projectionService.findById(FieldProjection.MEDICAL_DOCUMENT, fields, id);
+    }
+
+    /**
+     * Pobiera wybrane pola dokumentów medycznych pacjenta (parametr ?fields=).
+     * @param patientId ID pacjenta.
+     * @param fields Pola wybrane przez FieldProjection.MEDICAL_DOCUMENT.parse.
+     * @return Lista dokumentów jako mapy pole → wartość.
+     * @throws IllegalArgumentException Jeśli pacjent nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getMedicalDocumentFieldsForPatient(Long patientId, List<String> fields) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new IllegalArgumentException("Pacjent o podanym ID nie istnieje.");
+        }
+        return projectionService.findAll(FieldProjection.MEDICAL_DOCUMENT, fields, "m.patient.id = :patientId", Map.of("patientId", patientId));
+    }
+
+    /**
+     * Pobiera wybrane pola dokumentów medycznych wizyty, także zarchiwizowanej (parametr ?fields=).
+     * @param visitId ID wizyty.
+     * @param fields Pola wybrane przez FieldProjection.MEDICAL_DOCUMENT.parse.
+     * @return Lista dokumentów jako mapy pole → wartość.
+     * @throws IllegalArgumentException Jeśli wizyta nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getMedicalDocumentFieldsForVisit(Long visitId, List<String> fields) {
+        String condition;
+        if (visitRepository.existsById(visitId)) {
+            condition = "m.visit.id = :visitId";
+        } else if (archivedVisitRepository.existsById(visitId)) {
+            condition = "m.archivedVisitId = :visitId";
+        } else {
+            throw new IllegalArgumentException("Wizyta o podanym ID nie istnieje.");
+        }
+        return projectionService.findAll(FieldProjection.MEDICAL_DOCUMENT, fields, condition, Map.of("visitId", visitId));
+    }
+
+    /**
+     * Zatwierdza zdarzenie JFR dla operacji na dokumentach.
+     * Rozmiar treści jest liczony tylko wtedy, gdy zdarzenie faktycznie zostanie zapisane.
+     * @param event Rozpoczęte zdarzenie.
+     * @param operation Rodzaj operacji (READ/WRITE).
+     * @param documents Dokumenty objęte operacją.
+     */
+    private void recordIo(MedicalDocumentIoEvent event, String operation, List<MedicalDocument> documents) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        long size = 0;
+        for (MedicalDocument document : documents) {
+            if (document.getContent() != null) {
+                size += document.getContent().getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        event.operation = operation;
+        event.documentCount = documents.size();
+        event.sizeInBytes = size;
+        event.commit();
     }
 }
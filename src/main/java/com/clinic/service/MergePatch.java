@@ -0,0 +1,96 @@
+package com.clinic.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pola encji, które można zmienić dokumentem JSON Merge Patch (RFC 7396, żądania PATCH).
+ *
+ * Pola nieobecne w dokumencie pozostają bez zmian, a null usuwa wartość (niedozwolone dla pól wymaganych).
+ * Dokument jest nakładany na załadowaną encję, a encje mają @DynamicUpdate - Hibernate wykrywa faktycznie
+ * zmienione atrybuty i generuje UPDATE tylko dla ich kolumn, więc niezmienione kolumny (i ich indeksy) nie są zapisywane.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    public static final MergePatch PATIENT = new MergePatch(List.of("imie", "nazwisko", "email"),
+            "imie", "nazwisko", "dataUrodzenia", "email", "telefon", "pesel", "adres");
+
+    public static final MergePatch DOCTOR = new MergePatch(List.of("imie", "nazwisko", "specjalizacja", "email"),
+            "imie", "nazwisko", "specjalizacja", "email", "telefon");
+
+    /**
+     * Wizyta - lekarz jest wskazywany przez doctorId (relacja nie jest deserializowana z JSON).
+     */
+    public static final MergePatch VISIT = new MergePatch(List.of("visitDateTime", "status", "doctorId"),
+            "visitDateTime", "status", "doctorId");
+
+    private final Set<String> fields = new LinkedHashSet<>();
+    private final Set<String> required;
+
+    private MergePatch(List<String> required, String... fields) {
+        this.fields.addAll(List.of(fields));
+        this.required = Set.copyOf(required);
+    }
+
+    /**
+     * Sprawdza dokument przed nałożeniem na encję.
+     * @param patch Dokument JSON Merge Patch.
+     * @throws IllegalArgumentException Jeśli dokument nie jest obiektem JSON, zawiera nieznane pole
+     *                                  lub usuwa (null) pole wymagane.
+     */
+    public void validate(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Dokument JSON Merge Patch musi być obiektem JSON.");
+        }
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (!fields.contains(name)) {
+                throw new IllegalArgumentException("Pola " + name + " nie można zmienić. Dostępne pola: " + String.join(",", fields));
+            }
+            if (patch.get(name).isNull() && required.contains(name)) {
+                throw new IllegalArgumentException("Pole " + name + " jest wymagane i nie może być usunięte.");
+            }
+        }
+    }
+
+    /**
+     * Nakłada sprawdzony dokument na encję - wywołuje settery tylko przekazanych pól.
+     * @param objectMapper ObjectMapper aplikacji (obsługa typów daty i czasu).
+     * @param target Encja do zmiany.
+     * @param patch Dokument sprawdzony przez validate.
+     * @return Zmieniona encja.
+     * @throws IllegalArgumentException Jeśli wartość pola ma niepoprawny format.
+     */
+    <T> T apply(ObjectMapper objectMapper, T target, JsonNode patch) {
+        try {
+            return objectMapper.readerForUpdating(target).readValue(patch);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Niepoprawna wartość w dokumencie JSON Merge Patch.", e);
+        }
+    }
+
+    /**
+     * Pobiera wartość pola jako tekst.
+     * @return Wartość lub null, jeśli pole jest nieobecne albo usuwane.
+     */
+    static String text(JsonNode patch, String field) {
+        return patch.hasNonNull(field) ? patch.get(field).asText() : null;
+    }
+
+    /**
+     * Pobiera wartość pola przekonwertowaną na podany typ.
+     * @return Wartość lub null, jeśli pole jest nieobecne.
+     * @throws IllegalArgumentException Jeśli wartość ma niepoprawny format.
+     */
+    static <V> V value(ObjectMapper objectMapper, JsonNode patch, String field, Class<V> type) {
+        return patch.hasNonNull(field) ? objectMapper.convertValue(patch.get(field), type) : null;
+    }
+}
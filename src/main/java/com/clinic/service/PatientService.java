@@ -1,14 +1,23 @@
 package com.clinic.service;
 
+import com.clinic.dto.PatientSummary;
 import com.clinic.model.Patient;
 import com.clinic.model.User;
 import com.clinic.repository.PatientRepository;
 import com.clinic.repository.UserRepository;
+import com.clinic.repository.VisitRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Dodaj ten import
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @AllArgsConstructor
@@ -16,17 +25,44 @@ public class PatientService {
 
     private final PatientRepository patientRepository;
     private final UserRepository userRepository; // Potrzebne do powiązania pacjenta z użytkownikiem
+    private final ProjectionService projectionService;
+    private final ObjectMapper objectMapper;
+    private final EntityPurgeService entityPurgeService;
+    private final VisitRepository visitRepository;
+    private final AgendaService agendaService;
+    private final WaitlistService waitlistService;
 
-    @Transactional
-    public List<Patient> getAllPatients() {
-        return patientRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<PatientSummary> getAllPatients() {
+        return patientRepository.findAllSummaries();
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<Patient> getPatientById(Long id) {
         return patientRepository.findById(id);
     }
 
+    /**
+     * Pobiera wybrane pola wszystkich pacjentów (parametr ?fields=).
+     * @param fields Pola wybrane przez FieldProjection.PATIENT.parse.
+     * @return Lista pacjentów jako mapy pole → wartość.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllPatientFields(List<String> fields) {
+        return projectionService.findAll(FieldProjection.PATIENT, fields, null, Map.of());
+    }
+
+    /**
+     * Pobiera wybrane pola pacjenta o podanym ID (parametr ?fields=).
+     * @param id ID pacjenta.
+     * @param fields Pola wybrane przez FieldProjection.PATIENT.parse.
+     * @return Pola pacjenta wraz z jego e-mailem (kontrola dostępu) lub Optional.empty().
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProjectionService.ProjectedRow> getPatientFieldsById(Long id, List<String> fields) {
+        return projectionService.findById(FieldProjection.PATIENT, fields, id);
+    }
+
     @Transactional
     public Patient createPatient(Patient patient) {
         // Dodatkowa logika np. sprawdzenie unikalności emaila/PESELu
@@ -36,6 +72,9 @@ public class PatientService {
         if (patient.getPesel() != null && patientRepository.findByPesel(patient.getPesel()).isPresent()) {
             throw new IllegalArgumentException("Pacjent z podanym numerem PESEL już istnieje.");
         }
+        if (patientRepository.existsDeletedByEmailOrPesel(patient.getEmail(), patient.getPesel())) {
+            throw new IllegalArgumentException("Email lub PESEL należy do usuniętego pacjenta, którego dane są jeszcze usuwane.");
+        }
         return patientRepository.save(patient);
     }
 
@@ -54,15 +93,60 @@ public class PatientService {
                 });
     }
 
+    /**
+     * Częściowo aktualizuje dane pacjenta dokumentem JSON Merge Patch (zob. MergePatch).
+     * UPDATE obejmuje tylko faktycznie zmienione kolumny.
+     * @param id ID pacjenta.
+     * @param patch Dokument z polami do zmiany.
+     * @return Zaktualizowany pacjent, lub Optional.empty() jeśli pacjent nie istnieje.
+     * @throws IllegalArgumentException Jeśli dokument jest niepoprawny albo nowy email lub PESEL jest zajęty.
+     */
+    @Transactional
+    public Optional<Patient> patchPatient(Long id, JsonNode patch) {
+        MergePatch.PATIENT.validate(patch);
+        return patientRepository.findById(id)
+                .map(patient -> {
+                    // Unikalność sprawdzana przed zmianą encji - zapytanie nie wymusza zapisu niesprawdzonych danych
+                    String email = MergePatch.text(patch, "email");
+                    if (email != null && !email.equals(patient.getEmail()) && patientRepository.findByEmail(email).isPresent()) {
+                        throw new IllegalArgumentException("Pacjent z podanym adresem email już istnieje.");
+                    }
+                    String pesel = MergePatch.text(patch, "pesel");
+                    if (pesel != null && !pesel.equals(patient.getPesel()) && patientRepository.findByPesel(pesel).isPresent()) {
+                        throw new IllegalArgumentException("Pacjent z podanym numerem PESEL już istnieje.");
+                    }
+                    return patientRepository.save(MergePatch.PATIENT.apply(objectMapper, patient, patch));
+                });
+    }
+
+    /**
+     * Usuwa pacjenta. Pacjent jest tylko oznaczany jako usunięty i od tej chwili niewidoczny dla zapytań,
+     * a jego wizyty, dokumenty i archiwum są usuwane w tle paczkami (EntityPurgeService) - dopiero wtedy
+     * wizyty pacjenta są odejmowane ze statystyk. Wizyty pacjenta znikają z agend lekarzy już przy usunięciu -
+     * agendy dni jego wizyt (tylko dni, które mogą być w pamięci) są unieważniane po zatwierdzeniu, a jego wpisy
+     * na liście oczekujących są anulowane w tej samej transakcji.
+     * @param id ID pacjenta.
+     * @throws IllegalArgumentException Jeśli pacjent nie istnieje.
+     */
     @Transactional
     public void deletePatient(Long id) {
-        if (!patientRepository.existsById(id)) {
+        // Wizyty są wyszukiwane przed oznaczeniem pacjenta - później pomija je SQLRestriction encji Visit
+        List<Object[]> visitTimes = visitRepository.findDoctorTimesByPatientId(id, LocalDate.now().minusDays(1).atStartOfDay());
+        if (patientRepository.softDelete(id, LocalDateTime.now()) == 0) {
             throw new IllegalArgumentException("Pacjent o podanym ID nie istnieje: " + id);
         }
-        patientRepository.deleteById(id);
+        Set<List<Object>> agendaDays = new HashSet<>();
+        for (Object[] row : visitTimes) {
+            LocalDate day = ((LocalDateTime) row[1]).toLocalDate();
+            if (agendaDays.add(List.of(row[0], day))) {
+                agendaService.invalidate((Long) row[0], day.atStartOfDay());
+            }
+        }
+        waitlistService.cancelForPatient(id);
+        entityPurgeService.requestPurge();
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<Patient> getPatientByEmail(String email) {
         return patientRepository.findByEmail(email);
     }
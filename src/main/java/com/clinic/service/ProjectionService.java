@@ -0,0 +1,102 @@
+package com.clinic.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Zapytania projekcyjne dla parametru ?fields= - z bazy pobierane są tylko wybrane kolumny encji.
+ *
+ * Zapytanie JPQL jest budowane ze ścieżek opisanych w FieldProjection (nazwy pól klienta nigdy nie trafiają
+ * do zapytania wprost), a wynik - krotki - zamieniany na mapy pole → wartość. Encje nie są tworzone,
+ * więc nie są też ładowane ich kolekcje ani duże kolumny, o które klient nie prosił (np. treść dokumentu).
+ */
+@Service
+public class ProjectionService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Wiersz projekcji wraz z danymi właściciela (pacjenta) do kontroli dostępu.
+     * @param fields Wybrane pola w kolejności podania.
+     * @param ownerId ID pacjenta, do którego należy wiersz, lub null.
+     * @param ownerEmail E-mail pacjenta, do którego należy wiersz, lub null.
+     */
+    public record ProjectedRow(Map<String, Object> fields, Long ownerId, String ownerEmail) {
+    }
+
+    /**
+     * Pobiera wybrane pola wierszy spełniających warunek.
+     * @param projection Encja i jej dostępne pola.
+     * @param fields Wybrane pola (zob. FieldProjection.parse).
+     * @param condition Warunek JPQL z aliasem encji lub null.
+     * @param parameters Parametry nazwane warunku.
+     * @return Wiersze w kolejności domyślnej dla encji.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAll(FieldProjection projection, List<String> fields, String condition, Map<String, ?> parameters) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : query(projection, fields, false, condition, parameters).getResultList()) {
+            rows.add(toFields(tuple, fields));
+        }
+        return rows;
+    }
+
+    /**
+     * Pobiera wybrane pola wiersza o podanym ID wraz z danymi właściciela.
+     * @param projection Encja i jej dostępne pola.
+     * @param fields Wybrane pola (zob. FieldProjection.parse).
+     * @param id ID wiersza.
+     * @return Wiersz lub Optional.empty(), jeśli nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProjectedRow> findById(FieldProjection projection, List<String> fields, Long id) {
+        String condition = projection.getAlias() + ".id = :id";
+        return query(projection, fields, true, condition, Map.of("id", id)).getResultStream()
+                .findFirst()
+                .map(tuple -> new ProjectedRow(toFields(tuple, fields),
+                        projection.getOwnerIdPath() != null ? tuple.get("ownerId", Long.class) : null,
+                        projection.getOwnerEmailPath() != null ? tuple.get("ownerEmail", String.class) : null));
+    }
+
+    private TypedQuery<Tuple> query(FieldProjection projection, List<String> fields, boolean withOwner,
+                                    String condition, Map<String, ?> parameters) {
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        for (int i = 0; i < fields.size(); i++) {
+            jpql.append(i > 0 ? ", " : "").append(projection.getPath(fields.get(i))).append(" AS f").append(i);
+        }
+        if (withOwner && projection.getOwnerIdPath() != null) {
+            jpql.append(", ").append(projection.getOwnerIdPath()).append(" AS ownerId");
+        }
+        if (withOwner && projection.getOwnerEmailPath() != null) {
+            jpql.append(", ").append(projection.getOwnerEmailPath()).append(" AS ownerEmail");
+        }
+        jpql.append(" FROM ").append(projection.getEntity()).append(' ').append(projection.getAlias());
+        if (condition != null) {
+            jpql.append(" WHERE ").append(condition);
+        }
+        jpql.append(" ORDER BY ").append(projection.getOrderBy());
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    private static Map<String, Object> toFields(Tuple tuple, List<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            row.put(fields.get(i), tuple.get("f" + i));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,154 @@
+package com.clinic.service;
+
+import com.clinic.model.ClinicResource;
+import com.clinic.model.ResourceReservation;
+import com.clinic.repository.ClinicResourceRepository;
+import com.clinic.repository.ResourceReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serwis zasobów przychodni (gabinety, sprzęt) i ich rezerwacji dla wizyt.
+ *
+ * Rezerwacja zasobów odbywa się w transakcji umawiania wizyty, po zablokowaniu wiersza lekarza:
+ * wiersze zasobów są blokowane w kolejności rosnącego ID (stała kolejność blokad - bez zakleszczeń),
+ * a kolizje wszystkich zasobów są sprawdzane jednym zapytaniem po indeksie (resource_id, visit_date_time).
+ * Lekarz, gabinet i sprzęt są więc rezerwowane niepodzielnie - albo wszystkie, albo żaden.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResourceService {
+
+    private final ClinicResourceRepository clinicResourceRepository;
+    private final ResourceReservationRepository resourceReservationRepository;
+
+    @Value("${app.availability.visitMinutes:30}")
+    private int visitMinutes;
+
+    /**
+     * Pobiera wszystkie zasoby.
+     * @return Lista zasobów.
+     */
+    @Transactional(readOnly = true)
+    public List<ClinicResource> getAllResources() {
+        return clinicResourceRepository.findAll();
+    }
+
+    /**
+     * Pobiera zasób po ID.
+     * @param id ID zasobu.
+     * @return Opcjonalny obiekt ClinicResource.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ClinicResource> getResourceById(Long id) {
+        return clinicResourceRepository.findById(id);
+    }
+
+    /**
+     * Tworzy nowy zasób.
+     * @param resource Zasób do utworzenia.
+     * @return Zapisany zasób.
+     * @throws IllegalArgumentException Jeśli brakuje nazwy lub typu albo nazwa jest zajęta.
+     */
+    @Transactional
+    public ClinicResource createResource(ClinicResource resource) {
+        if (resource.getName() == null || resource.getType() == null) {
+            throw new IllegalArgumentException("Zasób wymaga nazwy i typu.");
+        }
+        if (clinicResourceRepository.findByName(resource.getName()).isPresent()) {
+            throw new IllegalArgumentException("Zasób o podanej nazwie już istnieje.");
+        }
+        resource.setId(null);
+        return clinicResourceRepository.save(resource);
+    }
+
+    /**
+     * Usuwa zasób wraz z historią jego rezerwacji.
+     * @param id ID zasobu.
+     * @throws IllegalArgumentException Jeśli zasób nie istnieje.
+     * @throws IllegalStateException Jeśli zasób jest zarezerwowany dla przyszłych zaplanowanych wizyt.
+     */
+    @Transactional
+    public void deleteResource(Long id) {
+        if (clinicResourceRepository.findAllByIdForUpdate(List.of(id)).isEmpty()) {
+            throw new IllegalArgumentException("Zasób o podanym ID nie istnieje.");
+        }
+        if (resourceReservationRepository.existsScheduledFrom(id, LocalDateTime.now())) {
+            throw new IllegalStateException("Zasób jest zarezerwowany dla zaplanowanych wizyt.");
+        }
+        clinicResourceRepository.deleteById(id);
+    }
+
+    /**
+     * Blokuje zasoby (w kolejności rosnącego ID) i sprawdza, czy są wolne w terminie wizyty.
+     * Musi być wywołana w transakcji umawiania wizyty, po zablokowaniu wiersza lekarza.
+     * @param resourceIds ID wymaganych zasobów.
+     * @param visitDateTime Termin wizyty.
+     * @param excludedVisitId ID zmienianej wizyty (jej rezerwacje nie są kolizją) lub null.
+     * @throws IllegalArgumentException Jeśli zasób nie istnieje.
+     * @throws SlotUnavailableException Jeśli zasób jest zajęty w tym terminie.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockAndCheck(Collection<Long> resourceIds, LocalDateTime visitDateTime, Long excludedVisitId) {
+        TreeSet<Long> ids = new TreeSet<>(resourceIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, ClinicResource> locked = clinicResourceRepository.findAllByIdForUpdate(ids).stream()
+                .collect(Collectors.toMap(ClinicResource::getId, Function.identity()));
+        if (locked.size() != ids.size()) {
+            throw new IllegalArgumentException("Zasób o podanym ID nie istnieje.");
+        }
+        for (Object[] row : resourceReservationRepository.findScheduledTimes(ids,
+                visitDateTime.minusMinutes(visitMinutes), visitDateTime.plusMinutes(visitMinutes))) {
+            if (!row[2].equals(excludedVisitId)) {
+                throw new SlotUnavailableException("Zasób " + locked.get((Long) row[0]).getName() + " jest już zajęty w tym terminie.");
+            }
+        }
+    }
+
+    /**
+     * Zapisuje rezerwacje zasobów dla wizyty. Zasoby muszą być wcześniej sprawdzone przez lockAndCheck.
+     * @param visitId ID wizyty.
+     * @param resourceIds ID zasobów.
+     * @param visitDateTime Termin wizyty.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Long visitId, Collection<Long> resourceIds, LocalDateTime visitDateTime) {
+        resourceReservationRepository.saveAll(new TreeSet<>(resourceIds).stream()
+                .map(resourceId -> new ResourceReservation(null, resourceId, visitId, visitDateTime))
+                .toList());
+    }
+
+    /**
+     * Pobiera ID zasobów zarezerwowanych dla wizyty.
+     * @param visitId ID wizyty.
+     * @return Lista ID zasobów (pusta, jeśli wizyta nie wymaga zasobów).
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getReservedResourceIds(Long visitId) {
+        return resourceReservationRepository.findResourceIdsByVisitId(visitId);
+    }
+
+    /**
+     * Przenosi rezerwacje wizyty na nowy termin. Nowy termin musi być wcześniej sprawdzony przez lockAndCheck.
+     * @param visitId ID wizyty.
+     * @param visitDateTime Nowy termin wizyty.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moveReservations(Long visitId, LocalDateTime visitDateTime) {
+        resourceReservationRepository.moveToDateTime(visitId, visitDateTime);
+    }
+}
@@ -0,0 +1,14 @@
+package com.clinic.service;
+
+/**
+ * Termin jest zajęty - lekarz lub wymagany zasób ma już zaplanowaną wizytę w tym czasie.
+ *
+ * Rozszerza IllegalArgumentException, więc dotychczasowa obsługa błędów danych (400) nadal ją obejmuje;
+ * wywołujący mogą ją jednak odróżnić od pozostałych błędów (nieistniejący pacjent, lekarz, zasób).
+ */
+public class SlotUnavailableException extends IllegalArgumentException {
+
+    public SlotUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,178 @@
+package com.clinic.service;
+
+import com.clinic.dto.TimelineEntry;
+import com.clinic.dto.TimelinePage;
+import com.clinic.model.VisitStatus;
+import com.clinic.repository.ArchivedVisitRepository;
+import com.clinic.repository.MedicalDocumentRepository;
+import com.clinic.repository.PatientRepository;
+import com.clinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Oś czasu pacjenta - wizyty (bieżące i zarchiwizowane) oraz dokumenty medyczne w jednym strumieniu,
+ * najnowsze najpierw, stronicowane kursorem.
+ *
+ * Każde źródło jest pobierane osobnym zapytaniem po indeksie (patient_id, data) w kolejności malejącej,
+ * z warunkiem "przed kursorem" i limitem strony, więc strona nie zależy od długości historii pacjenta.
+ * Uporządkowane źródła są scalane przez k-way merge (kolejka priorytetowa głów źródeł) - bez sortowania w pamięci.
+ * Pozycje o tej samej dacie są porządkowane po typie (dokumenty przed wizytami), a następnie malejąco po ID.
+ */
+@Service
+@RequiredArgsConstructor
+public class TimelineService {
+
+    /**
+     * Kursor pierwszej strony - data późniejsza niż każda pozycja osi czasu.
+     */
+    private static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final int RANK_VISIT = 0;
+    private static final int RANK_DOCUMENT = 1;
+
+    private static final Comparator<Head> ORDER = Comparator.<Head, LocalDateTime>comparing(h -> h.entry().getTimestamp())
+            .thenComparingInt(Head::rank)
+            .thenComparing(h -> h.entry().getId())
+            .reversed();
+
+    private final PatientRepository patientRepository;
+    private final VisitRepository visitRepository;
+    private final ArchivedVisitRepository archivedVisitRepository;
+    private final MedicalDocumentRepository medicalDocumentRepository;
+
+    @Value("${app.timeline.defaultPageSize:50}")
+    private int defaultPageSize;
+
+    @Value("${app.timeline.maxPageSize:200}")
+    private int maxPageSize;
+
+    /**
+     * Pozycja na osi czasu, po której zaczyna się kolejna strona.
+     * @param timestamp Data ostatniej pozycji strony.
+     * @param rank Ranga typu ostatniej pozycji (0 - wizyta, 1 - dokument).
+     * @param id ID ostatniej pozycji strony.
+     */
+    public record Cursor(LocalDateTime timestamp, int rank, long id) {
+
+        /**
+         * Dekoduje kursor przekazany przez klienta.
+         * @param value Wartość nextCursor z poprzedniej strony.
+         * @return Kursor.
+         * @throws IllegalArgumentException Jeśli kursor jest niepoprawny.
+         */
+        public static Cursor decode(String value) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Niepoprawny kursor osi czasu.");
+                }
+                int rank = Integer.parseInt(parts[1]);
+                if (rank != RANK_VISIT && rank != RANK_DOCUMENT) {
+                    throw new IllegalArgumentException("Niepoprawny kursor osi czasu.");
+                }
+                return new Cursor(LocalDateTime.parse(parts[0]), rank, Long.parseLong(parts[2]));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Niepoprawny kursor osi czasu.", e);
+            }
+        }
+
+        String encode() {
+            String raw = timestamp + "|" + rank + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Zwraca ID, przed którym źródło o danej randze ma kontynuować w obrębie daty kursora:
+         * źródło o niższej randze zwraca wszystkie pozycje z tą datą, o wyższej - żadnej.
+         */
+        long beforeIdFor(int sourceRank) {
+            if (sourceRank < rank) {
+                return Long.MAX_VALUE;
+            }
+            return sourceRank > rank ? Long.MIN_VALUE : id;
+        }
+    }
+
+    /**
+     * Pobiera stronę osi czasu pacjenta.
+     * @param patientId ID pacjenta.
+     * @param cursor Kursor z poprzedniej strony lub null dla pierwszej strony.
+     * @param pageSize Liczba pozycji na stronie lub null dla domyślnej (ograniczona do app.timeline.maxPageSize).
+     * @return Strona osi czasu.
+     * @throws IllegalArgumentException Jeśli pacjent nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public TimelinePage getPatientTimeline(Long patientId, Cursor cursor, Integer pageSize) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new IllegalArgumentException("Pacjent o ID " + patientId + " nie istnieje.");
+        }
+        Cursor after = cursor != null ? cursor : START;
+        int size = Math.max(1, Math.min(pageSize != null ? pageSize : defaultPageSize, maxPageSize));
+        // Każde źródło może wypełnić stronę samodzielnie; nadmiarowa pozycja sygnalizuje kolejną stronę
+        Limit limit = Limit.of(size + 1);
+
+        long visitBeforeId = after.beforeIdFor(RANK_VISIT);
+        List<TimelineEntry> visits = visitRepository.findTimelinePage(patientId, after.timestamp(), visitBeforeId, limit)
+                .stream().map(row -> visit(row, false)).toList();
+        List<TimelineEntry> archivedVisits = archivedVisitRepository.findTimelinePage(patientId, after.timestamp(), visitBeforeId, limit)
+                .stream().map(row -> visit(row, true)).toList();
+        List<TimelineEntry> documents = medicalDocumentRepository.findTimelinePage(patientId, after.timestamp(),
+                        after.beforeIdFor(RANK_DOCUMENT), limit)
+                .stream().map(TimelineService::document).toList();
+
+        PriorityQueue<Head> heads = new PriorityQueue<>(3, ORDER);
+        addHead(heads, visits.iterator(), RANK_VISIT);
+        addHead(heads, archivedVisits.iterator(), RANK_VISIT);
+        addHead(heads, documents.iterator(), RANK_DOCUMENT);
+
+        List<TimelineEntry> entries = new ArrayList<>(size);
+        Head last = null;
+        while (entries.size() < size && !heads.isEmpty()) {
+            Head head = heads.poll();
+            entries.add(head.entry());
+            last = head;
+            addHead(heads, head.source(), head.rank());
+        }
+
+        String nextCursor = !heads.isEmpty() && last != null
+                ? new Cursor(last.entry().getTimestamp(), last.rank(), last.entry().getId()).encode()
+                : null;
+        return new TimelinePage(entries, nextCursor);
+    }
+
+    private static void addHead(PriorityQueue<Head> heads, Iterator<TimelineEntry> source, int rank) {
+        if (source.hasNext()) {
+            heads.add(new Head(source.next(), source, rank));
+        }
+    }
+
+    private static TimelineEntry visit(Object[] row, boolean archived) {
+        return new TimelineEntry(TimelineEntry.VISIT, (Long) row[0], (LocalDateTime) row[1], archived,
+                (VisitStatus) row[2], (Long) row[3], null, null, null);
+    }
+
+    private static TimelineEntry document(Object[] row) {
+        return new TimelineEntry(TimelineEntry.DOCUMENT, (Long) row[0], (LocalDateTime) row[1], null,
+                null, null, (String) row[2], (Long) row[3], (Long) row[4]);
+    }
+
+    /**
+     * Bieżąca pozycja jednego ze scalanych źródeł.
+     */
+    private record Head(TimelineEntry entry, Iterator<TimelineEntry> source, int rank) {
+    }
+}
@@ -3,6 +3,7 @@ package com.clinic.service;
 import com.clinic.model.Role;
 import com.clinic.model.User;
 import com.clinic.repository.UserRepository;
+import com.clinic.security.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; // Do szyfrowania haseł
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Rejestruje nowego użytkownika w systemie.
@@ -49,6 +51,7 @@ public class UserService {
      * @param id ID użytkownika.
      * @return Opcjonalny obiekt User.
      */
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
@@ -58,6 +61,7 @@ public class UserService {
      * @param email Adres e-mail użytkownika.
      * @return Opcjonalny obiekt User.
      */
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -66,12 +70,13 @@ public class UserService {
      * Pobiera wszystkich użytkowników z bazy danych.
      * @return Lista wszystkich użytkowników.
      */
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
     /**
-     * Aktualizuje rolę użytkownika.
+     * Aktualizuje rolę użytkownika. Dotychczasowe tokeny użytkownika (z poprzednią rolą) są unieważniane.
      * @param id ID użytkownika.
      * @param newRole Nowa rola.
      * @return Zaktualizowany obiekt User.
@@ -80,20 +85,23 @@ public class UserService {
     @Transactional
     public Optional<User> updateUserRole(Long id, Role newRole) {
         return userRepository.findById(id).map(user -> {
-            user.setRole(newRole);
+            if (user.getRole() != newRole) {
+                user.setRole(newRole);
+                tokenRevocationService.revokeAll(user.getEmail());
+            }
             return userRepository.save(user);
         });
     }
 
     /**
-     * Usuwa użytkownika o podanym ID.
+     * Usuwa użytkownika o podanym ID i unieważnia jego tokeny.
      * @param id ID użytkownika do usunięcia.
      */
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new IllegalArgumentException("Użytkownik o podanym ID nie istnieje.");
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Użytkownik o podanym ID nie istnieje."));
+        userRepository.delete(user);
+        tokenRevocationService.revokeAll(user.getEmail());
     }
 }
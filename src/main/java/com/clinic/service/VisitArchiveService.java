@@ -0,0 +1,209 @@
+package com.clinic.service;
+
+import com.clinic.model.ArchivedVisit;
+import com.clinic.model.JobCheckpoint;
+import com.clinic.model.VisitStatus;
+import com.clinic.repository.ArchivedVisitRepository;
+import com.clinic.repository.JobCheckpointRepository;
+import com.clinic.repository.MedicalDocumentRepository;
+import com.clinic.repository.VisitRepository;
+import com.clinic.tenancy.TenantContext;
+import com.clinic.tenancy.TenantRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serwis archiwizacji wizyt (podział na dane "gorące" i "zimne").
+ *
+ * Zakończone wizyty (domyślnie COMPLETED, CANCELLED, NO_SHOW) starsze niż app.archive.ageDays są
+ * w tle przenoszone z tabeli visit do visit_archive, a powiązania dokumentów medycznych - do kolumny
+ * archived_visit_id. Każda paczka to jedna transakcja z poleceniami INSERT ... SELECT, UPDATE i DELETE
+ * oraz zapisem punktu kontrolnego; między paczkami zadanie robi przerwę proporcjonalną do czasu paczki.
+ * Historie wizyt sięgają do archiwum tylko wtedy, gdy żądany przedział zaczyna się przed horyzontem archiwizacji.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitArchiveService {
+
+    private static final String JOB_NAME = "visit-archiver";
+
+    private final VisitRepository visitRepository;
+    private final ArchivedVisitRepository archivedVisitRepository;
+    private final MedicalDocumentRepository medicalDocumentRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TenantRegistry tenantRegistry;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.ageDays:180}")
+    private long ageDays;
+
+    @Value("${app.archive.statuses:COMPLETED,CANCELLED,NO_SHOW}")
+    private List<VisitStatus> statuses;
+
+    @Value("${app.archive.batchSize:1000}")
+    private int batchSize;
+
+    @Value("${app.archive.maxBatchesPerRun:1000}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.archive.pauseFactor:1.0}")
+    private double pauseFactor;
+
+    @Value("${app.archive.maxPauseMs:5000}")
+    private long maxPauseMs;
+
+    @Value("${app.cluster.jobLeaseSeconds:600}")
+    private long jobLeaseSeconds;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Okresowe uruchomienie archiwizacji (domyślnie w nocy, kolejno dla każdej kliniki).
+     */
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            for (String tenant : tenantRegistry.getTenants()) {
+                TenantContext.runAs(tenant, this::archive);
+            }
+        }
+    }
+
+    /**
+     * Przenosi do archiwum zakończone wizyty starsze niż app.archive.ageDays, paczka po paczce.
+     * Dotyczy bieżącej kliniki (TenantContext). Jednocześnie może działać tylko jedna archiwizacja kliniki - także
+     * między instancjami aplikacji (blokada w bazie z dzierżawą app.cluster.jobLeaseSeconds, przedłużana po każdej paczce).
+     * @return Liczba zarchiwizowanych wizyt (0, jeśli archiwizacja już trwa).
+     */
+    public long archive() {
+        String tenant = TenantContext.getTenant();
+        if (!running.add(tenant)) {
+            return 0;
+        }
+        boolean locked = false;
+        try {
+            Duration lease = Duration.ofSeconds(jobLeaseSeconds);
+            if (!clusterCoordinator.tryLock(JOB_NAME, lease)) {
+                return 0; // Archiwizacja trwa na innej instancji aplikacji
+            }
+            locked = true;
+            LocalDateTime cutoff = getHorizon();
+            List<String> statusNames = statuses.stream().map(Enum::name).toList();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            long total = 0;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                long start = System.nanoTime();
+                Integer archived = transactionTemplate.execute(status -> archiveBatch(statusNames, cutoff));
+                total += archived;
+                if (archived < batchSize) {
+                    break; // Nie ma więcej wizyt do archiwizacji
+                }
+                if (!clusterCoordinator.tryLock(JOB_NAME, lease)) {
+                    locked = false;
+                    break; // Dzierżawa wygasła i została przejęta przez inną instancję
+                }
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                try {
+                    Thread.sleep(Math.min(maxPauseMs, (long) (elapsedMs * pauseFactor)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return total;
+        } finally {
+            if (locked) {
+                clusterCoordinator.unlock(JOB_NAME);
+            }
+            running.remove(tenant);
+        }
+    }
+
+    /**
+     * Zwraca horyzont archiwizacji - wizyty z terminem od tej chwili są zawsze w tabeli visit.
+     * @return Data i godzina horyzontu.
+     */
+    public LocalDateTime getHorizon() {
+        return LocalDateTime.now().minusDays(ageDays);
+    }
+
+    /**
+     * Pobiera zarchiwizowane wizyty pacjenta z przedziału. Archiwum jest odpytywane tylko wtedy,
+     * gdy przedział zaczyna się przed horyzontem archiwizacji.
+     * @param patientId ID pacjenta.
+     * @param from Początek przedziału (włącznie).
+     * @param to Koniec przedziału (włącznie).
+     * @return Lista zarchiwizowanych wizyt posortowana chronologicznie.
+     */
+    @Transactional(readOnly = true)
+    public List<ArchivedVisit> findPatientVisits(Long patientId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(getHorizon())) {
+            return List.of();
+        }
+        return archivedVisitRepository.findByPatient(patientId, from, to);
+    }
+
+    /**
+     * Pobiera zarchiwizowane wizyty lekarza z przedziału. Archiwum jest odpytywane tylko wtedy,
+     * gdy przedział zaczyna się przed horyzontem archiwizacji.
+     * @param doctorId ID lekarza.
+     * @param from Początek przedziału (włącznie).
+     * @param to Koniec przedziału (włącznie).
+     * @return Lista zarchiwizowanych wizyt posortowana chronologicznie.
+     */
+    @Transactional(readOnly = true)
+    public List<ArchivedVisit> findDoctorVisits(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(getHorizon())) {
+            return List.of();
+        }
+        return archivedVisitRepository.findByDoctor(doctorId, from, to);
+    }
+
+    /**
+     * Zwraca punkt kontrolny archiwizacji (ostatnio zarchiwizowana wizyta, łączna liczba wizyt).
+     * @return Opcjonalny punkt kontrolny, jeśli archiwizacja już działała.
+     */
+    public Optional<JobCheckpoint> getCheckpoint() {
+        return jobCheckpointRepository.findById(JOB_NAME);
+    }
+
+    private int archiveBatch(List<String> statusNames, LocalDateTime cutoff) {
+        List<Object[]> rows = visitRepository.findArchivableForUpdate(statusNames, cutoff, batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = rows.stream().map(row -> ((Number) row[0]).longValue()).toList();
+        LocalDateTime now = LocalDateTime.now();
+        archivedVisitRepository.copyFromVisits(ids, now);
+        medicalDocumentRepository.moveLinksToArchive(ids);
+        visitRepository.deleteAllByIdIn(ids);
+
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME)
+                .orElseGet(() -> new JobCheckpoint(JOB_NAME, null, null, 0, null));
+        Object[] last = rows.get(rows.size() - 1);
+        checkpoint.setLastId(((Number) last[0]).longValue());
+        checkpoint.setLastDateTime(last[1] instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) last[1]);
+        checkpoint.setProcessedTotal(checkpoint.getProcessedTotal() + ids.size());
+        checkpoint.setUpdatedAt(now);
+        jobCheckpointRepository.save(checkpoint);
+        return ids.size();
+    }
+}
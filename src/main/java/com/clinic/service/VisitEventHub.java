@@ -0,0 +1,288 @@
+package com.clinic.service;
+
+import com.clinic.dto.VisitChangeEvent;
+import com.clinic.tenancy.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rozgłośnia zmian wizyt dla subskrybentów Server-Sent Events (tablice recepcji, kolejki lekarzy).
+ *
+ * Zdarzenia publikowane przez VisitService trafiają tu dopiero po zatwierdzeniu transakcji.
+ * Każde dostaje kolejny numer i jest zapamiętywane w ograniczonej historii, z której odtwarzane są
+ * zdarzenia po ponownym połączeniu (nagłówek Last-Event-ID). Każdy subskrybent ma własną, ograniczoną
+ * kolejkę opróżnianą przez ograniczoną pulę wątków wysyłających (senderThreads wątków, senderQueueSize
+ * oczekujących zadań) - wolny klient nie blokuje pozostałych. Po przepełnieniu kolejki subskrybenta lub
+ * odrzuceniu zadania przez pełną pulę połączenie jest zamykane, a klient po ponownym połączeniu nadrabia
+ * zaległości z historii.
+ * Subskrybent otrzymuje wyłącznie zdarzenia swojej kliniki (TenantContext w chwili subskrypcji).
+ */
+@Service
+public class VisitEventHub {
+
+    @Value("${app.visitEvents.historySize:10000}")
+    private int historySize;
+
+    @Value("${app.visitEvents.subscriberBufferSize:256}")
+    private int subscriberBufferSize;
+
+    @Value("${app.visitEvents.maxSubscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${app.visitEvents.timeoutMs:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.visitEvents.senderThreads:16}")
+    private int senderThreads;
+
+    @Value("${app.visitEvents.senderQueueSize:10000}")
+    private int senderQueueSize;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<TenantEvent> history = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Strumienie rozłączonych subskrybentów, których zamknięcia pula nie przyjęła - zamykane przy heartbeat.
+     * SseEmitter.complete() czeka na trwającą wysyłkę, więc nie jest wywoływane w wątku publikującym.
+     */
+    private final Queue<SseEmitter> pendingCompletion = new ConcurrentLinkedQueue<>();
+    private ThreadPoolExecutor sender;
+
+    /**
+     * Numer ostatniego zdarzenia. Numeracja zaczyna się od czasu startu aplikacji (w ms),
+     * dzięki czemu numery sprzed restartu są mniejsze i nie zostaną pomylone z nowymi.
+     */
+    private long lastId = System.currentTimeMillis();
+
+    @PostConstruct
+    public void start() {
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(senderQueueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "visit-events-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        sender.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Rozsyła zdarzenie po zatwierdzeniu transakcji, w której zostało opublikowane
+     * (lub od razu, jeśli opublikowano je poza transakcją).
+     * @param event Zdarzenie zmiany wizyty.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVisitChange(VisitChangeEvent event) {
+        String tenant = TenantContext.getTenant();
+        synchronized (lock) {
+            event.setId(++lastId);
+            history.addLast(new TenantEvent(tenant, event));
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.matches(tenant, event)) {
+                    subscriber.offer(toSse(event));
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejestruje nowego subskrybenta.
+     * @param doctorId Opcjonalny filtr - tylko wizyty lekarza.
+     * @param date Opcjonalny filtr - tylko wizyty danego dnia.
+     * @param lastEventId Numer ostatniego odebranego zdarzenia (Last-Event-ID) lub null.
+     * @return Strumień SSE.
+     * @throws IllegalStateException Jeśli osiągnięto limit subskrybentów.
+     */
+    public SseEmitter subscribe(Long doctorId, LocalDate date, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Osiągnięto limit subskrybentów zmian wizyt.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, TenantContext.getTenant(), doctorId, date);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        synchronized (lock) {
+            if (lastEventId != null) {
+                long oldestAvailable = history.isEmpty() ? lastId + 1 : history.peekFirst().event().getId();
+                List<VisitChangeEvent> missed = new ArrayList<>();
+                for (TenantEvent entry : history) {
+                    if (entry.event().getId() > lastEventId && subscriber.matches(entry.tenant(), entry.event())) {
+                        missed.add(entry.event());
+                    }
+                }
+                if (lastEventId + 1 < oldestAvailable || lastEventId > lastId || missed.size() >= subscriberBufferSize) {
+                    // Zaległych zdarzeń nie ma już w historii (lub jest ich zbyt wiele) - klient musi pobrać pełny stan
+                    subscriber.offer(SseEmitter.event().name("reset").data("Historia zdarzeń niedostępna - odśwież dane."));
+                } else {
+                    missed.forEach(event -> subscriber.offer(toSse(event)));
+                }
+            }
+            if (!subscriber.closed) {
+                subscribers.add(subscriber);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Wysyła komentarz podtrzymujący połączenie; przy okazji wykrywa rozłączonych klientów.
+     */
+    @Scheduled(fixedDelayString = "${app.visitEvents.heartbeatMs:15000}")
+    public void heartbeat() {
+        SseEmitter emitter;
+        while ((emitter = pendingCompletion.poll()) != null) {
+            if (!submit(emitter::complete)) {
+                pendingCompletion.add(emitter);
+                break;
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("keepalive"));
+        }
+    }
+
+    /**
+     * Zwraca liczbę aktywnych subskrybentów.
+     * @return Liczba subskrybentów.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        sender.shutdownNow();
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            sender.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(VisitChangeEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.getId()))
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private static boolean sameDay(LocalDate date, LocalDateTime dateTime) {
+        return dateTime != null && date.equals(dateTime.toLocalDate());
+    }
+
+    private record TenantEvent(String tenant, VisitChangeEvent event) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final String tenant;
+        private final Long doctorId;
+        private final LocalDate date;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean disconnected = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, String tenant, Long doctorId, LocalDate date) {
+            this.emitter = emitter;
+            this.tenant = tenant;
+            this.doctorId = doctorId;
+            this.date = date;
+            this.queue = new ArrayBlockingQueue<>(subscriberBufferSize);
+        }
+
+        private boolean matches(String eventTenant, VisitChangeEvent event) {
+            if (!tenant.equals(eventTenant)) {
+                return false;
+            }
+            boolean doctorMatches = doctorId == null
+                    || doctorId.equals(event.getDoctorId())
+                    || doctorId.equals(event.getPreviousDoctorId());
+            boolean dateMatches = date == null
+                    || sameDay(date, event.getVisitDateTime())
+                    || sameDay(date, event.getPreviousVisitDateTime());
+            return doctorMatches && dateMatches;
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // Klient nie nadąża - zamykamy połączenie, po ponownym połączeniu nadrobi zaległości z historii
+                disconnect();
+                return;
+            }
+            if (draining.compareAndSet(false, true) && !submit(this::drain)) {
+                // Pula wysyłająca jest przeciążona - rozłączamy subskrybenta zamiast tworzyć kolejne wątki
+                draining.set(false);
+                disconnect();
+            }
+        }
+
+        private void disconnect() {
+            if (!disconnected.compareAndSet(false, true)) {
+                return;
+            }
+            close();
+            if (!submit(emitter::complete)) {
+                pendingCompletion.add(emitter);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
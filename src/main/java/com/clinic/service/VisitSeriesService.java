@@ -0,0 +1,371 @@
+package com.clinic.service;
+
+import com.clinic.dto.VisitChangeEvent;
+import com.clinic.dto.VisitSeriesRequest;
+import com.clinic.dto.VisitSeriesResult;
+import com.clinic.dto.VisitSeriesUpdate;
+import com.clinic.model.RecurrenceFrequency;
+import com.clinic.model.SeriesConflictPolicy;
+import com.clinic.model.VisitSeries;
+import com.clinic.model.VisitStatus;
+import com.clinic.repository.DoctorRepository;
+import com.clinic.repository.PatientRepository;
+import com.clinic.repository.VisitRepository;
+import com.clinic.repository.VisitSeriesRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Serwis cyklicznych serii wizyt.
+ *
+ * Reguła powtarzania jest rozwijana w listę terminów, a kolizje są sprawdzane dla całego zbioru w jednym
+ * przebiegu - zaplanowane wizyty lekarza z zakresu serii są pobierane jednym zapytaniem do posortowanej mapy.
+ * Wizyty serii są zapisywane jedną paczką JDBC (INSERT wsadowy), a anulowanie i przesunięcie serii
+ * wykonują jedno polecenie UPDATE lub jedną paczkę. Każda operacja to jedna transakcja z blokadą wiersza
+ * lekarza - jak przy VisitService.scheduleVisit. Liczniki statystyk, agenda i zdarzenia zmian są
+ * aktualizowane zbiorczo per (lekarz, dzień).
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitSeriesService {
+
+    private final VisitSeriesRepository visitSeriesRepository;
+    private final VisitRepository visitRepository;
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final AgendaService agendaService;
+    private final VisitStatisticsService visitStatisticsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.visitSeries.maxOccurrences:52}")
+    private int maxOccurrences;
+
+    @Value("${app.visitSeries.maxShiftMinutes:240}")
+    private int maxShiftMinutes;
+
+    @Value("${app.availability.visitMinutes:30}")
+    private int visitMinutes;
+
+    /**
+     * Tworzy serię wizyt i umawia jej wystąpienia.
+     * @param request Reguła powtarzania i sposób obsługi kolizji.
+     * @return Wystąpienia serii (umówione, przesunięte, pominięte).
+     * @throws IllegalArgumentException Jeśli reguła jest niepoprawna, pacjent/lekarz nie istnieje,
+     *                                  termin koliduje przy polityce FAIL lub wszystkie terminy kolidują.
+     */
+    @Transactional
+    public VisitSeriesResult createSeries(VisitSeriesRequest request) {
+        List<LocalDateTime> requested = expand(request);
+        SeriesConflictPolicy policy = request.getConflictPolicy() != null ? request.getConflictPolicy() : SeriesConflictPolicy.FAIL;
+
+        // Blokada wiersza lekarza jako pierwszy odczyt - jak w VisitService.scheduleVisit
+        Long doctorId = doctorRepository.findByIdForUpdate(request.getDoctorId())
+                .orElseThrow(() -> new IllegalArgumentException("Lekarz o podanym ID nie istnieje."))
+                .getId();
+        if (!patientRepository.existsById(request.getPatientId())) {
+            throw new IllegalArgumentException("Pacjent o podanym ID nie istnieje.");
+        }
+
+        TreeSet<LocalDateTime> busy = loadBusy(doctorId, requested.get(0),
+                requested.get(requested.size() - 1).plusMinutes(maxShiftMinutes), Set.of());
+        List<VisitSeriesResult.Occurrence> occurrences = new ArrayList<>(requested.size());
+        List<LocalDateTime> accepted = new ArrayList<>(requested.size());
+        for (LocalDateTime time : requested) {
+            LocalDateTime slot = isFree(busy, time) ? time : null;
+            if (slot == null && policy == SeriesConflictPolicy.SHIFT) {
+                slot = findShift(busy, time);
+            }
+            if (slot == null && policy == SeriesConflictPolicy.FAIL) {
+                throw new IllegalArgumentException("Termin " + time + " koliduje z istniejącą wizytą lekarza.");
+            }
+            if (slot == null) {
+                occurrences.add(new VisitSeriesResult.Occurrence(time, null, null, VisitSeriesResult.Occurrence.SKIPPED));
+                continue;
+            }
+            busy.add(slot); // Kolejne wystąpienia nie mogą kolidować z już przyjętymi
+            accepted.add(slot);
+            occurrences.add(new VisitSeriesResult.Occurrence(time, slot, null,
+                    slot.equals(time) ? VisitSeriesResult.Occurrence.SCHEDULED : VisitSeriesResult.Occurrence.SHIFTED));
+        }
+        if (accepted.isEmpty()) {
+            throw new IllegalArgumentException("Wszystkie terminy serii kolidują z istniejącymi wizytami lekarza.");
+        }
+
+        VisitSeries series = visitSeriesRepository.save(new VisitSeries(null, doctorId, request.getPatientId(),
+                request.getFrequency(), interval(request), request.getStart(), requested.size(), LocalDateTime.now()));
+        Long patientId = request.getPatientId();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO visit (visit_date_time, status, doctor_id, patient_id, series_id) VALUES (?, ?, ?, ?, ?)")) {
+                for (LocalDateTime time : accepted) {
+                    statement.setTimestamp(1, Timestamp.valueOf(time));
+                    statement.setString(2, VisitStatus.SCHEDULED.name());
+                    statement.setLong(3, doctorId);
+                    statement.setLong(4, patientId);
+                    statement.setLong(5, series.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+
+        Map<LocalDateTime, Long> idsByTime = new HashMap<>();
+        for (Object[] row : visitRepository.findSeriesVisits(series.getId())) {
+            idsByTime.put((LocalDateTime) row[1], (Long) row[0]);
+        }
+        Map<LocalDate, Long> countsByDay = new TreeMap<>();
+        for (VisitSeriesResult.Occurrence occurrence : occurrences) {
+            if (occurrence.getVisitDateTime() == null) {
+                continue;
+            }
+            occurrence.setVisitId(idsByTime.get(occurrence.getVisitDateTime()));
+            countsByDay.merge(occurrence.getVisitDateTime().toLocalDate(), 1L, Long::sum);
+            eventPublisher.publishEvent(new VisitChangeEvent(0, VisitChangeEvent.Type.SCHEDULED, occurrence.getVisitId(),
+                    doctorId, patientId, occurrence.getVisitDateTime(), VisitStatus.SCHEDULED, null, null));
+        }
+        countsByDay.forEach((day, count) -> {
+            visitStatisticsService.recordBulkChange(doctorId, day, VisitStatus.SCHEDULED, count);
+            agendaService.invalidate(doctorId, day.atStartOfDay());
+        });
+        return new VisitSeriesResult(series.getId(), occurrences);
+    }
+
+    /**
+     * Anuluje zaplanowane wizyty serii od podanej chwili jednym poleceniem UPDATE.
+     * @param seriesId ID serii.
+     * @param from Anulowane są wizyty od tej chwili; null - od teraz.
+     * @return Anulowane wizyty lub Optional.empty(), jeśli seria nie istnieje.
+     */
+    @Transactional
+    public Optional<VisitSeriesResult> cancelSeries(Long seriesId, LocalDateTime from) {
+        if (!visitSeriesRepository.existsById(seriesId)) {
+            return Optional.empty();
+        }
+        List<Object[]> rows = visitRepository.findSeriesScheduledForUpdate(seriesId, from != null ? from : LocalDateTime.now());
+        List<VisitSeriesResult.Occurrence> occurrences = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) {
+            return Optional.of(new VisitSeriesResult(seriesId, occurrences));
+        }
+
+        List<Long> ids = rows.stream().map(row -> ((Number) row[0]).longValue()).toList();
+        // Wiersze są zablokowane (FOR UPDATE), więc UPDATE zmieni dokładnie pobrane wizyty
+        visitRepository.updateScheduledStatus(ids, VisitStatus.CANCELLED);
+
+        Map<DoctorDay, Long> countsByDoctorDay = new HashMap<>();
+        for (Object[] row : rows) {
+            Long visitId = ((Number) row[0]).longValue();
+            Long doctorId = ((Number) row[1]).longValue();
+            LocalDateTime visitDateTime = toLocalDateTime(row[3]);
+            countsByDoctorDay.merge(new DoctorDay(doctorId, visitDateTime.toLocalDate()), 1L, Long::sum);
+            occurrences.add(new VisitSeriesResult.Occurrence(visitDateTime, visitDateTime, visitId, VisitSeriesResult.Occurrence.CANCELLED));
+            eventPublisher.publishEvent(new VisitChangeEvent(0, VisitChangeEvent.Type.CANCELLED, visitId,
+                    doctorId, ((Number) row[2]).longValue(), visitDateTime, VisitStatus.CANCELLED, null, null));
+        }
+        countsByDoctorDay.forEach((key, count) -> {
+            visitStatisticsService.recordBulkTransition(key.doctorId(), key.day(), VisitStatus.SCHEDULED, VisitStatus.CANCELLED, count);
+            agendaService.invalidate(key.doctorId(), key.day().atStartOfDay());
+        });
+        return Optional.of(new VisitSeriesResult(seriesId, occurrences));
+    }
+
+    /**
+     * Przesuwa zaplanowane wizyty serii od podanej chwili i/lub przenosi je do innego lekarza, jedną paczką UPDATE.
+     * Zmiana jest niepodzielna - kolizja dowolnej wizyty odrzuca całość.
+     * @param seriesId ID serii.
+     * @param update Zmiana serii.
+     * @return Zmienione wizyty lub Optional.empty(), jeśli seria nie istnieje.
+     * @throws IllegalArgumentException Jeśli zmiana jest pusta, lekarz nie istnieje lub nowy termin koliduje.
+     */
+    @Transactional
+    public Optional<VisitSeriesResult> updateSeries(Long seriesId, VisitSeriesUpdate update) {
+        Optional<VisitSeries> existing = visitSeriesRepository.findById(seriesId);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        long shift = update.getShiftMinutes() != null ? update.getShiftMinutes() : 0;
+        if (shift == 0 && update.getDoctorId() == null) {
+            throw new IllegalArgumentException("Zmiana serii musi określać przesunięcie (shiftMinutes) lub lekarza (doctorId).");
+        }
+
+        List<Object[]> rows = visitRepository.findSeriesScheduledForUpdate(seriesId,
+                update.getFrom() != null ? update.getFrom() : LocalDateTime.now());
+        List<VisitSeriesResult.Occurrence> occurrences = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) {
+            return Optional.of(new VisitSeriesResult(seriesId, occurrences));
+        }
+
+        List<Move> moves = new ArrayList<>(rows.size());
+        Set<Long> movedIds = new HashSet<>();
+        for (Object[] row : rows) {
+            Long doctorId = ((Number) row[1]).longValue();
+            LocalDateTime visitDateTime = toLocalDateTime(row[3]);
+            Move move = new Move(((Number) row[0]).longValue(), ((Number) row[2]).longValue(), doctorId, visitDateTime,
+                    update.getDoctorId() != null ? update.getDoctorId() : doctorId, visitDateTime.plusMinutes(shift));
+            moves.add(move);
+            movedIds.add(move.visitId());
+        }
+
+        // Blokady wierszy lekarzy w stałej kolejności, aby równoległe zmiany serii nie zakleszczyły się
+        Set<Long> targetDoctors = new TreeSet<>();
+        moves.forEach(move -> targetDoctors.add(move.newDoctorId()));
+        Map<Long, TreeSet<LocalDateTime>> busyByDoctor = new HashMap<>();
+        LocalDateTime first = moves.get(0).newDateTime();
+        LocalDateTime last = moves.get(moves.size() - 1).newDateTime();
+        for (Long doctorId : targetDoctors) {
+            doctorRepository.findByIdForUpdate(doctorId)
+                    .orElseThrow(() -> new IllegalArgumentException("Lekarz o podanym ID nie istnieje."));
+            busyByDoctor.put(doctorId, loadBusy(doctorId, first, last, movedIds));
+        }
+        for (Move move : moves) {
+            TreeSet<LocalDateTime> busy = busyByDoctor.get(move.newDoctorId());
+            if (!isFree(busy, move.newDateTime())) {
+                throw new IllegalArgumentException("Nowy termin " + move.newDateTime() + " koliduje z istniejącą wizytą lekarza.");
+            }
+            busy.add(move.newDateTime());
+        }
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE visit SET visit_date_time = ?, doctor_id = ? WHERE id = ?")) {
+                for (Move move : moves) {
+                    statement.setTimestamp(1, Timestamp.valueOf(move.newDateTime()));
+                    statement.setLong(2, move.newDoctorId());
+                    statement.setLong(3, move.visitId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+        if (update.getDoctorId() != null) {
+            existing.get().setDoctorId(update.getDoctorId());
+        }
+
+        Map<DoctorDay, Long> deltas = new HashMap<>();
+        Set<DoctorDay> touchedDays = new LinkedHashSet<>();
+        for (Move move : moves) {
+            DoctorDay oldDay = new DoctorDay(move.oldDoctorId(), move.oldDateTime().toLocalDate());
+            DoctorDay newDay = new DoctorDay(move.newDoctorId(), move.newDateTime().toLocalDate());
+            deltas.merge(oldDay, -1L, Long::sum);
+            deltas.merge(newDay, 1L, Long::sum);
+            touchedDays.add(oldDay);
+            touchedDays.add(newDay);
+            occurrences.add(new VisitSeriesResult.Occurrence(move.oldDateTime(), move.newDateTime(), move.visitId(),
+                    VisitSeriesResult.Occurrence.UPDATED));
+            eventPublisher.publishEvent(new VisitChangeEvent(0, VisitChangeEvent.Type.UPDATED, move.visitId(), move.newDoctorId(),
+                    move.patientId(), move.newDateTime(), VisitStatus.SCHEDULED, move.oldDoctorId(), move.oldDateTime()));
+        }
+        deltas.forEach((key, delta) -> visitStatisticsService.recordBulkChange(key.doctorId(), key.day(), VisitStatus.SCHEDULED, delta));
+        touchedDays.forEach(key -> agendaService.invalidate(key.doctorId(), key.day().atStartOfDay()));
+        return Optional.of(new VisitSeriesResult(seriesId, occurrences));
+    }
+
+    /**
+     * Rozwija regułę powtarzania w listę terminów.
+     */
+    private List<LocalDateTime> expand(VisitSeriesRequest request) {
+        if (request.getPatientId() == null || request.getDoctorId() == null || request.getStart() == null || request.getFrequency() == null) {
+            throw new IllegalArgumentException("Seria wymaga pól patientId, doctorId, start i frequency.");
+        }
+        if ((request.getCount() == null) == (request.getUntil() == null)) {
+            throw new IllegalArgumentException("Seria wymaga dokładnie jednego z pól count lub until.");
+        }
+        int interval = interval(request);
+        if (interval < 1) {
+            throw new IllegalArgumentException("Odstęp serii (interval) musi być dodatni.");
+        }
+        RecurrenceFrequency frequency = request.getFrequency();
+        List<LocalDateTime> times = new ArrayList<>();
+        for (int n = 0; ; n++) {
+            LocalDateTime time = frequency.occurrence(request.getStart(), interval, n);
+            if (request.getCount() != null ? n >= request.getCount() : time.isAfter(request.getUntil())) {
+                break;
+            }
+            if (times.size() >= maxOccurrences) {
+                throw new IllegalArgumentException("Seria może mieć co najwyżej " + maxOccurrences + " wystąpień.");
+            }
+            times.add(time);
+        }
+        if (times.isEmpty()) {
+            throw new IllegalArgumentException("Reguła powtarzania nie wyznacza żadnego terminu.");
+        }
+        return times;
+    }
+
+    private static int interval(VisitSeriesRequest request) {
+        return request.getInterval() != null ? request.getInterval() : 1;
+    }
+
+    /**
+     * Pobiera terminy zaplanowanych wizyt lekarza, które mogą kolidować z wizytami w przedziale [from, to].
+     */
+    private TreeSet<LocalDateTime> loadBusy(Long doctorId, LocalDateTime from, LocalDateTime to, Collection<Long> excludedIds) {
+        TreeSet<LocalDateTime> busy = new TreeSet<>();
+        for (Object[] row : visitRepository.findScheduledTimesByDoctorIds(List.of(doctorId),
+                from.minusMinutes(visitMinutes), to.plusMinutes(visitMinutes))) {
+            if (!excludedIds.contains((Long) row[2])) {
+                busy.add((LocalDateTime) row[1]);
+            }
+        }
+        return busy;
+    }
+
+    /**
+     * Termin jest wolny, jeśli żadna wizyta lekarza nie zaczyna się bliżej niż długość wizyty (jak w VisitService.scheduleVisit).
+     */
+    private boolean isFree(TreeSet<LocalDateTime> busy, LocalDateTime time) {
+        LocalDateTime next = busy.higher(time.minusMinutes(visitMinutes));
+        return next == null || !next.isBefore(time.plusMinutes(visitMinutes));
+    }
+
+    /**
+     * Wyszukuje najbliższy wolny termin tego samego dnia, przesuwając wizytę o wielokrotność jej długości.
+     */
+    private LocalDateTime findShift(TreeSet<LocalDateTime> busy, LocalDateTime time) {
+        for (int minutes = visitMinutes; minutes <= maxShiftMinutes; minutes += visitMinutes) {
+            LocalDateTime candidate = time.plusMinutes(minutes);
+            if (!candidate.toLocalDate().equals(time.toLocalDate())) {
+                return null;
+            }
+            if (isFree(busy, candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private record DoctorDay(Long doctorId, LocalDate day) {
+    }
+
+    private record Move(Long visitId, Long patientId, Long oldDoctorId, LocalDateTime oldDateTime,
+                        Long newDoctorId, LocalDateTime newDateTime) {
+    }
+}
@@ -1,19 +1,29 @@
 package com.clinic.service;
 
+import com.clinic.dto.VisitChangeEvent;
+import com.clinic.model.ArchivedVisit;
 import com.clinic.model.Doctor;
 import com.clinic.model.Patient;
 import com.clinic.model.Visit;
 import com.clinic.model.VisitStatus;
+import com.clinic.monitoring.VisitScheduleEvent;
 import com.clinic.repository.DoctorRepository;
 import com.clinic.repository.PatientRepository;
 import com.clinic.repository.VisitRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Serwis odpowiedzialny za logikę biznesową związaną z wizytami.
@@ -26,12 +36,22 @@ public class VisitService {
     private final VisitRepository visitRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final AgendaService agendaService;
+    private final VisitStatisticsService visitStatisticsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VisitArchiveService visitArchiveService;
+    private final ProjectionService projectionService;
+    private final ResourceService resourceService;
+    private final ObjectMapper objectMapper;
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
     /**
      * Pobiera wszystkie wizyty z bazy danych.
      * @return Lista wszystkich wizyt.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Visit> getAllVisits() {
         return visitRepository.findAll();
     }
@@ -41,11 +61,32 @@ public class VisitService {
      * @param id ID wizyty.
      * @return Opcjonalny obiekt Visit, jeśli wizyta została znaleziona.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<Visit> getVisitById(Long id) {
         return visitRepository.findById(id);
     }
 
+    /**
+     * Pobiera wybrane pola wszystkich wizyt (parametr ?fields=).
+     * @param fields Pola wybrane przez FieldProjection.VISIT.parse.
+     * @return Lista wizyt jako mapy pole → wartość, posortowana chronologicznie.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllVisitFields(List<String> fields) {
+        return projectionService.findAll(FieldProjection.VISIT, fields, null, Map.of());
+    }
+
+    /**
+     * Pobiera wybrane pola wizyty o podanym ID (parametr ?fields=).
+     * @param id ID wizyty.
+     * @param fields Pola wybrane przez FieldProjection.VISIT.parse.
+     * @return Pola wizyty wraz z danymi pacjenta (kontrola dostępu) lub Optional.empty().
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProjectionService.ProjectedRow> getVisitFieldsById(Long id, List<String> fields) {
+        return projectionService.findById(FieldProjection.VISIT, fields, id);
+    }
+
     /**
      * Planuje nową wizytę.
      * Sprawdza dostępność lekarza w danym terminie.
@@ -57,90 +98,185 @@ public class VisitService {
      */
     @Transactional
     public Visit scheduleVisit(Long patientId, Long doctorId, LocalDateTime visitDateTime) {
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new IllegalArgumentException("Pacjent o podanym ID nie istnieje."));
-        Doctor doctor = doctorRepository.findById(doctorId)
-                .orElseThrow(() -> new IllegalArgumentException("Lekarz o podanym ID nie istnieje."));
+        return scheduleVisit(patientId, doctorId, visitDateTime, List.of());
+    }
 
-        // Sprawdzenie dostępności lekarza
-        // Zakładamy, że wizyty trwają 30 minut. Należy dostosować do faktycznych wymagań.
-        LocalDateTime endDateTime = visitDateTime.plusMinutes(30);
-        List<Visit> conflictingVisits = visitRepository.findByDoctorAndVisitDateTimeBetween(doctor, visitDateTime.minusMinutes(29), endDateTime.minusMinutes(1));
+    /**
+     * Planuje nową wizytę wymagającą zasobów przychodni (gabinet, sprzęt).
+     * Lekarz i wszystkie zasoby są rezerwowane niepodzielnie w jednej transakcji - albo wszystkie, albo żaden.
+     * @param patientId ID pacjenta.
+     * @param doctorId ID lekarza.
+     * @param visitDateTime Data i godzina wizyty.
+     * @param resourceIds ID wymaganych zasobów (może być pusta).
+     * @return Zapisana wizyta.
+     * @throws IllegalArgumentException Jeśli pacjent/lekarz/zasób nie istnieje lub lekarz albo zasób jest zajęty w tym terminie.
+     */
+    @Transactional
+    public Visit scheduleVisit(Long patientId, Long doctorId, LocalDateTime visitDateTime, List<Long> resourceIds) {
+        VisitScheduleEvent event = new VisitScheduleEvent();
+        event.begin();
+        event.doctorId = doctorId;
+        try {
+            // Blokada wiersza lekarza - równoległe rezerwacje u tego lekarza (także na innych instancjach aplikacji)
+            // czekają na zakończenie tej transakcji. Blokada jest pierwszym odczytem w transakcji, aby przy izolacji
+            // REPEATABLE READ sprawdzenie konfliktów widziało wizyty zapisane przez poprzednika.
+            Doctor doctor = doctorRepository.findByIdForUpdate(doctorId)
+                    .orElseThrow(() -> new IllegalArgumentException("Lekarz o podanym ID nie istnieje."));
+            Patient patient = patientRepository.findById(patientId)
+                    .orElseThrow(() -> new IllegalArgumentException("Pacjent o podanym ID nie istnieje."));
 
-        // Filtrowanie tylko wizyt, które są nadal zaplanowane
-        boolean isConflicting = conflictingVisits.stream()
-                .anyMatch(v -> v.getStatus().equals(VisitStatus.SCHEDULED));
+            // Sprawdzenie dostępności lekarza
+            // Zakładamy, że wizyty trwają 30 minut. Należy dostosować do faktycznych wymagań.
+            LocalDateTime endDateTime = visitDateTime.plusMinutes(30);
+            List<Visit> conflictingVisits = visitRepository.findByDoctorAndVisitDateTimeBetween(doctor, visitDateTime.minusMinutes(29), endDateTime.minusMinutes(1));
+            event.conflictsChecked = conflictingVisits.size();
 
-        if (isConflicting) {
-            throw new IllegalArgumentException("Lekarz jest już zajęty w tym terminie.");
-        }
+            // Filtrowanie tylko wizyt, które są nadal zaplanowane
+            boolean isConflicting = conflictingVisits.stream()
+                    .anyMatch(v -> v.getStatus().equals(VisitStatus.SCHEDULED));
 
-        Visit visit = new Visit();
-        visit.setPatient(patient);
-        visit.setDoctor(doctor);
-        visit.setVisitDateTime(visitDateTime);
-        visit.setStatus(VisitStatus.SCHEDULED); // Nowa wizyta zawsze ma status "zaplanowana"
+            if (isConflicting) {
+                throw new SlotUnavailableException("Lekarz jest już zajęty w tym terminie.");
+            }
+            // Zasoby są blokowane po lekarzu, w kolejności rosnącego ID
+            resourceService.lockAndCheck(resourceIds, visitDateTime, null);
 
-        return visitRepository.save(visit);
+            Visit visit = new Visit();
+            visit.setPatient(patient);
+            visit.setDoctor(doctor);
+            visit.setVisitDateTime(visitDateTime);
+            visit.setStatus(VisitStatus.SCHEDULED); // Nowa wizyta zawsze ma status "zaplanowana"
+
+            Visit saved = visitRepository.save(visit);
+            resourceService.reserve(saved.getId(), resourceIds, visitDateTime);
+            agendaService.invalidate(doctorId, visitDateTime);
+            visitStatisticsService.recordTransition(null, null, null, doctorId, visitDateTime, VisitStatus.SCHEDULED);
+            publishChange(VisitChangeEvent.Type.SCHEDULED, saved, null, null);
+            event.scheduled = true;
+            return saved;
+        } finally {
+            event.commit(); // Zdarzenie JFR - koszt pomijalny, gdy nagrywanie jest wyłączone
+        }
     }
 
     /**
      * Aktualizuje dane istniejącej wizyty.
+     * Pola nieprzekazane (null) - termin, status, lekarz, pacjent - pozostają bez zmian.
+     * Zmiana statusu musi być dozwolona (VisitStatus.canTransitionTo); przywrócenie wizyty do zaplanowanych
+     * sprawdza dostępność lekarza i zasobów tak jak zmiana terminu.
      * @param id ID wizyty do zaktualizowania.
      * @param visitDetails Obiekt Visit zawierający zaktualizowane dane.
      * @return Zaktualizowany obiekt wizyty, lub Optional.empty() jeśli wizyta nie istnieje.
-     * @throws IllegalArgumentException Jeśli termin jest zajęty po zmianie.
+     * @throws IllegalArgumentException Jeśli nowy lekarz nie istnieje, zmiana statusu jest niedozwolona lub termin jest zajęty po zmianie.
      */
     @Transactional
     public Optional<Visit> updateVisit(Long id, Visit visitDetails) {
         return visitRepository.findById(id).map(visit -> {
-            // Sprawdzenie dostępności terminu tylko jeśli data/czas lub lekarz się zmieniły
-            if (!visit.getVisitDateTime().equals(visitDetails.getVisitDateTime()) ||
-                    !visit.getDoctor().getId().equals(visitDetails.getDoctor().getId())) {
+            Long oldDoctorId = visit.getDoctor().getId();
+            LocalDateTime oldDateTime = visit.getVisitDateTime();
+            VisitStatus oldStatus = visit.getStatus();
+            LocalDateTime newDateTime = visitDetails.getVisitDateTime() != null ? visitDetails.getVisitDateTime() : oldDateTime;
+            Long newDoctorId = visitDetails.getDoctor() != null ? visitDetails.getDoctor().getId() : oldDoctorId;
+            VisitStatus newStatus = visitDetails.getStatus() != null ? visitDetails.getStatus() : oldStatus;
+            boolean moved = !oldDateTime.equals(newDateTime);
+            // Przywrócona wizyta (anulowana/niezrealizowana -> zaplanowana) ponownie zajmuje lekarza i zasoby
+            boolean reactivated = newStatus == VisitStatus.SCHEDULED && oldStatus != VisitStatus.SCHEDULED;
+
+            requireTransition(oldStatus, newStatus);
+
+            // Agenda dotychczasowego dnia lekarza
+            agendaService.invalidate(oldDoctorId, oldDateTime);
+
+            // Sprawdzenie dostępności terminu tylko jeśli data/czas, lekarz lub zajętość terminu (przywrócenie) się zmieniły
+            if (moved || reactivated || !oldDoctorId.equals(newDoctorId)) {
+                Doctor doctor = doctorRepository.findByIdForUpdate(newDoctorId)
+                        .orElseThrow(() -> new IllegalArgumentException("Lekarz o podanym ID nie istnieje."));
 
-                LocalDateTime endDateTime = visitDetails.getVisitDateTime().plusMinutes(30);
+                LocalDateTime endDateTime = newDateTime.plusMinutes(30);
                 List<Visit> conflictingVisits = visitRepository.findByDoctorAndVisitDateTimeBetween(
-                        visitDetails.getDoctor(), visitDetails.getVisitDateTime().minusMinutes(29), endDateTime.minusMinutes(1)
+                        doctor, newDateTime.minusMinutes(29), endDateTime.minusMinutes(1)
                 );
 
                 boolean isConflicting = conflictingVisits.stream()
                         .anyMatch(v -> !v.getId().equals(id) && v.getStatus().equals(VisitStatus.SCHEDULED)); // Wykluczamy aktualizowaną wizytę
 
                 if (isConflicting) {
-                    throw new IllegalArgumentException("Nowy termin jest zajęty dla wybranego lekarza.");
+                    throw new SlotUnavailableException("Nowy termin jest zajęty dla wybranego lekarza.");
                 }
+                if (moved || reactivated) {
+                    // Zasoby zarezerwowane dla wizyty muszą być wolne w nowym terminie
+                    resourceService.lockAndCheck(resourceService.getReservedResourceIds(id), newDateTime, id);
+                }
+                visit.setDoctor(doctor);
             }
 
-            visit.setVisitDateTime(visitDetails.getVisitDateTime());
-            visit.setStatus(visitDetails.getStatus());
-            // Zmiana pacjenta lub lekarza wymaga pobrania encji z bazy
+            visit.setVisitDateTime(newDateTime);
+            visit.setStatus(newStatus);
+            // Zmiana pacjenta wymaga pobrania encji z bazy
             if (visitDetails.getPatient() != null && !visit.getPatient().getId().equals(visitDetails.getPatient().getId())) {
                 patientRepository.findById(visitDetails.getPatient().getId())
                         .ifPresent(visit::setPatient);
             }
-            if (visitDetails.getDoctor() != null && !visit.getDoctor().getId().equals(visitDetails.getDoctor().getId())) {
-                doctorRepository.findById(visitDetails.getDoctor().getId())
-                        .ifPresent(visit::setDoctor);
-            }
 
-            return visitRepository.save(visit);
+            // Agenda nowego dnia (i ewentualnie nowego lekarza)
+            agendaService.invalidate(visit.getDoctor().getId(), visit.getVisitDateTime());
+            visitStatisticsService.recordTransition(oldDoctorId, oldDateTime, oldStatus,
+                    visit.getDoctor().getId(), visit.getVisitDateTime(), visit.getStatus());
+            Visit saved = visitRepository.save(visit);
+            if (moved) {
+                resourceService.moveReservations(id, saved.getVisitDateTime());
+            }
+            publishChange(VisitChangeEvent.Type.UPDATED, saved, oldDoctorId, oldDateTime);
+            return saved;
         });
     }
 
+    /**
+     * Częściowo aktualizuje wizytę dokumentem JSON Merge Patch z polami visitDateTime, status i doctorId
+     * (zob. MergePatch.VISIT). Zmiana samego statusu nie blokuje lekarza ani nie sprawdza kolizji (poza przywróceniem
+     * wizyty do zaplanowanych), a UPDATE obejmuje tylko faktycznie zmienione kolumny.
+     * @param id ID wizyty.
+     * @param patch Dokument z polami do zmiany.
+     * @return Zaktualizowana wizyta, lub Optional.empty() jeśli wizyta nie istnieje.
+     * @throws IllegalArgumentException Jeśli dokument jest niepoprawny, lekarz nie istnieje, zmiana statusu jest niedozwolona
+     *                                  lub termin jest zajęty.
+     */
+    @Transactional
+    public Optional<Visit> patchVisit(Long id, JsonNode patch) {
+        MergePatch.VISIT.validate(patch);
+        Visit visitDetails = new Visit();
+        visitDetails.setVisitDateTime(MergePatch.value(objectMapper, patch, "visitDateTime", LocalDateTime.class));
+        visitDetails.setStatus(MergePatch.value(objectMapper, patch, "status", VisitStatus.class));
+        Long doctorId = MergePatch.value(objectMapper, patch, "doctorId", Long.class);
+        if (doctorId != null) {
+            Doctor doctor = new Doctor();
+            doctor.setId(doctorId);
+            visitDetails.setDoctor(doctor);
+        }
+        return updateVisit(id, visitDetails);
+    }
+
     /**
      * Zmienia status wizyty na "Anulowana".
      * @param id ID wizyty do anulowania.
      * @return Zaktualizowany obiekt wizyty.
-     * @throws IllegalArgumentException Jeśli wizyta nie istnieje lub jest już ukończona/anulowana.
+     * @throws IllegalArgumentException Jeśli wizyta jest już anulowana lub nie może zostać anulowana (VisitStatus.canTransitionTo).
      */
     @Transactional
     public Optional<Visit> cancelVisit(Long id) {
         return visitRepository.findById(id).map(visit -> {
-            if (visit.getStatus().equals(VisitStatus.COMPLETED)) {
-                throw new IllegalArgumentException("Nie można anulować wizyty, która już się odbyła.");
+            if (visit.getStatus().equals(VisitStatus.CANCELLED)) {
+                throw new IllegalArgumentException("Wizyta jest już anulowana.");
             }
+            requireTransition(visit.getStatus(), VisitStatus.CANCELLED);
+            VisitStatus oldStatus = visit.getStatus();
             visit.setStatus(VisitStatus.CANCELLED);
-            return visitRepository.save(visit);
+            agendaService.invalidate(visit.getDoctor().getId(), visit.getVisitDateTime());
+            visitStatisticsService.recordTransition(visit.getDoctor().getId(), visit.getVisitDateTime(), oldStatus,
+                    visit.getDoctor().getId(), visit.getVisitDateTime(), VisitStatus.CANCELLED);
+            Visit saved = visitRepository.save(visit);
+            publishChange(VisitChangeEvent.Type.CANCELLED, saved, null, null);
+            return saved;
         });
     }
 
@@ -148,7 +284,7 @@ public class VisitService {
      * Zmienia status wizyty na "Ukończona".
      * @param id ID wizyty do oznaczenia jako ukończona.
      * @return Zaktualizowany obiekt wizyty.
-     * @throws IllegalArgumentException Jeśli wizyta nie istnieje lub jest już ukończona/anulowana.
+     * @throws IllegalArgumentException Jeśli wizyta jest już ukończona lub nie może zostać ukończona (VisitStatus.canTransitionTo).
      */
     @Transactional
     public Optional<Visit> completeVisit(Long id) {
@@ -156,49 +292,215 @@ public class VisitService {
             if (visit.getStatus().equals(VisitStatus.COMPLETED)) {
                 throw new IllegalArgumentException("Wizyta już jest oznaczona jako ukończona.");
             }
-            if (visit.getStatus().equals(VisitStatus.CANCELLED)) {
-                throw new IllegalArgumentException("Nie można ukończyć anulowanej wizyty.");
-            }
+            requireTransition(visit.getStatus(), VisitStatus.COMPLETED);
+            VisitStatus oldStatus = visit.getStatus();
             visit.setStatus(VisitStatus.COMPLETED);
-            return visitRepository.save(visit);
+            agendaService.invalidate(visit.getDoctor().getId(), visit.getVisitDateTime());
+            visitStatisticsService.recordTransition(visit.getDoctor().getId(), visit.getVisitDateTime(), oldStatus,
+                    visit.getDoctor().getId(), visit.getVisitDateTime(), VisitStatus.COMPLETED);
+            Visit saved = visitRepository.save(visit);
+            publishChange(VisitChangeEvent.Type.COMPLETED, saved, null, null);
+            return saved;
         });
     }
 
+    /**
+     * Sprawdza zmianę statusu wizyty według VisitStatus.canTransitionTo (jedyne źródło reguł przejść).
+     * @throws IllegalArgumentException Jeśli zmiana jest niedozwolona.
+     */
+    private static void requireTransition(VisitStatus from, VisitStatus to) {
+        if (!from.canTransitionTo(to)) {
+            throw new IllegalArgumentException("Niedozwolona zmiana statusu wizyty z " + from + " na " + to + ".");
+        }
+    }
+
     /**
      * Usuwa wizytę o podanym ID.
      * @param id ID wizyty do usunięcia.
      */
     @Transactional
     public void deleteVisit(Long id) {
-        if (!visitRepository.existsById(id)) {
-            throw new IllegalArgumentException("Wizyta o podanym ID nie istnieje.");
-        }
-        visitRepository.deleteById(id);
+        Visit visit = visitRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Wizyta o podanym ID nie istnieje."));
+        agendaService.invalidate(visit.getDoctor().getId(), visit.getVisitDateTime());
+        visitStatisticsService.recordTransition(visit.getDoctor().getId(), visit.getVisitDateTime(), visit.getStatus(),
+                null, null, null);
+        publishChange(VisitChangeEvent.Type.DELETED, visit, null, null);
+        visitRepository.delete(visit);
     }
 
     /**
-     * Pobiera historię wizyt dla danego pacjenta.
+     * Publikuje zdarzenie zmiany wizyty. Subskrybenci (VisitEventHub) otrzymują je po zatwierdzeniu transakcji.
+     */
+    private void publishChange(VisitChangeEvent.Type type, Visit visit, Long previousDoctorId, LocalDateTime previousDateTime) {
+        eventPublisher.publishEvent(new VisitChangeEvent(0, type, visit.getId(), visit.getDoctor().getId(),
+                visit.getPatient().getId(), visit.getVisitDateTime(), visit.getStatus(), previousDoctorId, previousDateTime));
+    }
+
+    /**
+     * Pobiera historię wizyt dla danego pacjenta (łącznie z zarchiwizowanymi).
      * @param patientId ID pacjenta.
      * @return Lista wizyt pacjenta.
      * @throws IllegalArgumentException Jeśli pacjent nie istnieje.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Visit> getPatientVisitHistory(Long patientId) {
+        return getPatientVisitHistory(patientId, null, null);
+    }
+
+    /**
+     * Pobiera historię wizyt dla danego pacjenta z przedziału czasowego.
+     * Jeśli przedział sięga przed horyzont archiwizacji, wynik obejmuje też wizyty z archiwum.
+     * @param patientId ID pacjenta.
+     * @param from Początek przedziału (włącznie) lub null - bez ograniczenia.
+     * @param to Koniec przedziału (włącznie) lub null - bez ograniczenia.
+     * @return Lista wizyt pacjenta posortowana chronologicznie.
+     * @throws IllegalArgumentException Jeśli pacjent nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public List<Visit> getPatientVisitHistory(Long patientId, LocalDateTime from, LocalDateTime to) {
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new IllegalArgumentException("Pacjent o podanym ID nie istnieje."));
-        return visitRepository.findByPatientOrderByVisitDateTimeAsc(patient);
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        List<Visit> hot = from == null && to == null
+                ? visitRepository.findByPatientOrderByVisitDateTimeAsc(patient)
+                : visitRepository.findByPatientAndVisitDateTimeBetweenOrderByVisitDateTimeAsc(patient, start, end);
+        List<ArchivedVisit> archived = visitArchiveService.findPatientVisits(patientId, start, end);
+        return mergeHistory(hot, archived,
+                a -> toVisit(a, doctorRepository.getReferenceById(a.getDoctorId()), patient));
     }
 
     /**
-     * Pobiera historię wizyt dla danego lekarza.
+     * Pobiera historię wizyt dla danego lekarza (łącznie z zarchiwizowanymi).
      * @param doctorId ID lekarza.
      * @return Lista wizyt lekarza.
      * @throws IllegalArgumentException Jeśli lekarz nie istnieje.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Visit> getDoctorVisitHistory(Long doctorId) {
+        return getDoctorVisitHistory(doctorId, null, null);
+    }
+
+    /**
+     * Pobiera historię wizyt dla danego lekarza z przedziału czasowego.
+     * Jeśli przedział sięga przed horyzont archiwizacji, wynik obejmuje też wizyty z archiwum.
+     * @param doctorId ID lekarza.
+     * @param from Początek przedziału (włącznie) lub null - bez ograniczenia.
+     * @param to Koniec przedziału (włącznie) lub null - bez ograniczenia.
+     * @return Lista wizyt lekarza posortowana chronologicznie.
+     * @throws IllegalArgumentException Jeśli lekarz nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public List<Visit> getDoctorVisitHistory(Long doctorId, LocalDateTime from, LocalDateTime to) {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new IllegalArgumentException("Lekarz o podanym ID nie istnieje."));
-        return visitRepository.findByDoctorOrderByVisitDateTimeAsc(doctor);
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        List<Visit> hot = from == null && to == null
+                ? visitRepository.findByDoctorOrderByVisitDateTimeAsc(doctor)
+                : visitRepository.findByDoctorAndVisitDateTimeBetweenOrderByVisitDateTimeAsc(doctor, start, end);
+        List<ArchivedVisit> archived = visitArchiveService.findDoctorVisits(doctorId, start, end);
+        return mergeHistory(hot, archived,
+                a -> toVisit(a, doctor, patientRepository.getReferenceById(a.getPatientId())));
+    }
+
+    /**
+     * Pobiera wybrane pola historii wizyt pacjenta (parametr ?fields=), łącznie z zarchiwizowanymi.
+     * @param patientId ID pacjenta.
+     * @param from Początek przedziału (włącznie) lub null - bez ograniczenia.
+     * @param to Koniec przedziału (włącznie) lub null - bez ograniczenia.
+     * @param fields Pola wybrane przez FieldProjection.VISIT.parse.
+     * @return Lista wizyt jako mapy pole → wartość, posortowana chronologicznie.
+     * @throws IllegalArgumentException Jeśli pacjent nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getPatientVisitHistoryFields(Long patientId, LocalDateTime from, LocalDateTime to, List<String> fields) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new IllegalArgumentException("Pacjent o podanym ID nie istnieje.");
+        }
+        return historyFields("v.patient.id", "a.patientId", patientId, from, to, fields);
+    }
+
+    /**
+     * Pobiera wybrane pola historii wizyt lekarza (parametr ?fields=), łącznie z zarchiwizowanymi.
+     * @param doctorId ID lekarza.
+     * @param from Początek przedziału (włącznie) lub null - bez ograniczenia.
+     * @param to Koniec przedziału (włącznie) lub null - bez ograniczenia.
+     * @param fields Pola wybrane przez FieldProjection.VISIT.parse.
+     * @return Lista wizyt jako mapy pole → wartość, posortowana chronologicznie.
+     * @throws IllegalArgumentException Jeśli lekarz nie istnieje.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getDoctorVisitHistoryFields(Long doctorId, LocalDateTime from, LocalDateTime to, List<String> fields) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("Lekarz o podanym ID nie istnieje.");
+        }
+        return historyFields("v.doctor.id", "a.doctorId", doctorId, from, to, fields);
+    }
+
+    /**
+     * Projekcja historii wizyt z tabeli bieżącej i (jeśli przedział sięga przed horyzont) z archiwum.
+     * Data wizyty jest zawsze pobierana, bo wyznacza kolejność scalania; zwracana jest tylko na życzenie.
+     */
+    private List<Map<String, Object>> historyFields(String visitOwnerPath, String archiveOwnerPath, Long ownerId,
+                                                    LocalDateTime from, LocalDateTime to, List<String> fields) {
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+        boolean withDate = fields.contains("visitDateTime");
+        List<String> selected = new ArrayList<>(fields);
+        if (!withDate) {
+            selected.add("visitDateTime");
+        }
+        Map<String, Object> parameters = Map.of("ownerId", ownerId, "start", start, "end", end);
+
+        List<Map<String, Object>> rows = new ArrayList<>(projectionService.findAll(FieldProjection.VISIT, selected,
+                visitOwnerPath + " = :ownerId AND v.visitDateTime BETWEEN :start AND :end", parameters));
+        if (start.isBefore(visitArchiveService.getHorizon())) {
+            rows.addAll(projectionService.findAll(FieldProjection.ARCHIVED_VISIT, selected,
+                    archiveOwnerPath + " = :ownerId AND a.visitDateTime BETWEEN :start AND :end", parameters));
+            // Sortowanie stabilne - przy równych datach wizyty bieżące przed archiwalnymi (jak w mergeHistory)
+            rows.sort(Comparator.comparing(row -> (LocalDateTime) row.get("visitDateTime")));
+        }
+        if (!withDate) {
+            rows.forEach(row -> row.remove("visitDateTime"));
+        }
+        return rows;
+    }
+
+    /**
+     * Scala dwie posortowane chronologicznie listy wizyt (bieżące i zarchiwizowane) w jedną.
+     */
+    private static List<Visit> mergeHistory(List<Visit> hot, List<ArchivedVisit> archived, Function<ArchivedVisit, Visit> mapper) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<Visit> result = new ArrayList<>(hot.size() + archived.size());
+        int i = 0;
+        int j = 0;
+        while (i < hot.size() || j < archived.size()) {
+            if (j == archived.size() || (i < hot.size()
+                    && !hot.get(i).getVisitDateTime().isAfter(archived.get(j).getVisitDateTime()))) {
+                result.add(hot.get(i++));
+            } else {
+                result.add(mapper.apply(archived.get(j++)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tworzy (niezarządzany) obiekt wizyty z wizyty zarchiwizowanej - tylko do odczytu w historii.
+     * Dokumenty wizyty archiwalnej są dostępne przez /api/medical-documents/visit/{id}.
+     */
+    private static Visit toVisit(ArchivedVisit archived, Doctor doctor, Patient patient) {
+        Visit visit = new Visit();
+        visit.setId(archived.getId());
+        visit.setVisitDateTime(archived.getVisitDateTime());
+        visit.setStatus(archived.getStatus());
+        visit.setDoctor(doctor);
+        visit.setPatient(patient);
+        visit.setMedicalDocuments(List.of());
+        return visit;
     }
 }
@@ -0,0 +1,233 @@
+package com.clinic.service;
+
+import com.clinic.dto.VisitStatisticsReport;
+import com.clinic.model.VisitStatus;
+import com.clinic.repository.ArchivedVisitRepository;
+import com.clinic.repository.VisitRepository;
+import com.clinic.repository.VisitStatisticRepository;
+import com.clinic.tenancy.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.LongStream;
+
+/**
+ * Serwis statystyk wizyt dla raportów zarządczych.
+ *
+ * Liczniki (lekarz, dzień, status) są aktualizowane przyrostowo przy każdej zmianie statusu wizyty,
+ * w tej samej transakcji co zmiana. Raporty są liczone wyłącznie z liczników, bez odczytu tabeli wizyt.
+ * Pełne przeliczenie (backfill) przetwarza dni równolegle, każdy dzień w osobnej transakcji.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitStatisticsService {
+
+    private final VisitStatisticRepository visitStatisticRepository;
+    private final VisitRepository visitRepository;
+    private final ArchivedVisitRepository archivedVisitRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    /**
+     * Rejestruje zmianę stanu wizyty w licznikach. Musi być wywołana w transakcji zmieniającej wizytę.
+     * Stan "przed" lub "po" może być pusty (null) - odpowiednio dla nowej i usuniętej wizyty.
+     * @param oldDoctorId Lekarz przed zmianą.
+     * @param oldDateTime Termin przed zmianą.
+     * @param oldStatus Status przed zmianą.
+     * @param newDoctorId Lekarz po zmianie.
+     * @param newDateTime Termin po zmianie.
+     * @param newStatus Status po zmianie.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Long oldDoctorId, LocalDateTime oldDateTime, VisitStatus oldStatus,
+                                 Long newDoctorId, LocalDateTime newDateTime, VisitStatus newStatus) {
+        LocalDate oldDay = oldDateTime == null ? null : oldDateTime.toLocalDate();
+        LocalDate newDay = newDateTime == null ? null : newDateTime.toLocalDate();
+        if (Objects.equals(oldDoctorId, newDoctorId) && Objects.equals(oldDay, newDay) && oldStatus == newStatus) {
+            return; // Zmiana nie wpływa na liczniki
+        }
+        if (oldStatus != null) {
+            visitStatisticRepository.increment(oldDoctorId, oldDay, oldStatus.name(), -1);
+        }
+        if (newStatus != null) {
+            visitStatisticRepository.increment(newDoctorId, newDay, newStatus.name(), 1);
+        }
+    }
+
+    /**
+     * Rejestruje zbiorczą zmianę statusu wielu wizyt jednego lekarza i dnia (np. przez porządkowanie wizyt).
+     * @param doctorId ID lekarza.
+     * @param day Dzień wizyt.
+     * @param oldStatus Status przed zmianą.
+     * @param newStatus Status po zmianie.
+     * @param count Liczba wizyt.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBulkTransition(Long doctorId, LocalDate day, VisitStatus oldStatus, VisitStatus newStatus, long count) {
+        if (oldStatus == newStatus || count == 0) {
+            return;
+        }
+        visitStatisticRepository.increment(doctorId, day, oldStatus.name(), -count);
+        visitStatisticRepository.increment(doctorId, day, newStatus.name(), count);
+    }
+
+    /**
+     * Zmienia licznik wizyt lekarza w danym dniu i statusie o podaną wartość (np. po zbiorczym utworzeniu
+     * lub przeniesieniu wizyt serii).
+     * @param doctorId ID lekarza.
+     * @param day Dzień wizyt.
+     * @param status Status wizyt.
+     * @param delta Zmiana licznika (ujemna dla wizyt usuniętych z tego dnia).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBulkChange(Long doctorId, LocalDate day, VisitStatus status, long delta) {
+        if (delta != 0) {
+            visitStatisticRepository.increment(doctorId, day, status.name(), delta);
+        }
+    }
+
+    /**
+     * Raport według lekarza.
+     * @param from Pierwszy dzień (włącznie).
+     * @param to Ostatni dzień (włącznie).
+     * @return Wiersze raportu.
+     */
+    @Transactional(readOnly = true)
+    public List<VisitStatisticsReport> reportByDoctor(LocalDate from, LocalDate to) {
+        return buildReport(visitStatisticRepository.sumByDoctor(from, to, LocalDate.now()));
+    }
+
+    /**
+     * Raport według specjalizacji lekarza.
+     * @param from Pierwszy dzień (włącznie).
+     * @param to Ostatni dzień (włącznie).
+     * @return Wiersze raportu.
+     */
+    @Transactional(readOnly = true)
+    public List<VisitStatisticsReport> reportBySpecialization(LocalDate from, LocalDate to) {
+        return buildReport(visitStatisticRepository.sumBySpecialization(from, to, LocalDate.now()));
+    }
+
+    /**
+     * Raport według dnia.
+     * @param from Pierwszy dzień (włącznie).
+     * @param to Ostatni dzień (włącznie).
+     * @return Wiersze raportu.
+     */
+    @Transactional(readOnly = true)
+    public List<VisitStatisticsReport> reportByDay(LocalDate from, LocalDate to) {
+        return buildReport(visitStatisticRepository.sumByDay(from, to, LocalDate.now()));
+    }
+
+    private List<VisitStatisticsReport> buildReport(List<Object[]> rows) {
+        Map<String, VisitStatisticsReport> groups = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String group = String.valueOf(row[0]);
+            // Zapytania natywne zwracają status jako nazwę
+            VisitStatus status = row[1] instanceof VisitStatus visitStatus ? visitStatus : VisitStatus.valueOf(row[1].toString());
+            boolean past = Boolean.TRUE.equals(row[2]);
+            long count = ((Number) row[3]).longValue();
+
+            VisitStatisticsReport report = groups.computeIfAbsent(group, g -> {
+                VisitStatisticsReport r = new VisitStatisticsReport();
+                r.setGroup(g);
+                return r;
+            });
+            report.getCountsByStatus().merge(status, count, Long::sum);
+            report.setTotal(report.getTotal() + count);
+            // Nieoznaczone jeszcze przez porządkowanie wizyty SCHEDULED z minionych dni też liczą się jako niezrealizowane
+            if (status == VisitStatus.NO_SHOW || (past && status == VisitStatus.SCHEDULED)) {
+                report.setNoShows(report.getNoShows() + count);
+            }
+        }
+        for (VisitStatisticsReport report : groups.values()) {
+            if (report.getTotal() > 0) {
+                long cancelled = report.getCountsByStatus().getOrDefault(VisitStatus.CANCELLED, 0L);
+                report.setCancellationRate((double) cancelled / report.getTotal());
+                report.setNoShowRate((double) report.getNoShows() / report.getTotal());
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Przelicza od nowa liczniki dla przedziału dni na podstawie tabeli wizyt i archiwum wizyt.
+     * Dni są przetwarzane równolegle (parallel stream), każdy dzień w osobnej, krótkiej transakcji
+     * (usunięcie liczników dnia + INSERT ... SELECT z agregacją) w kontekście kliniki wywołującego.
+     * Bez podania przedziału przeliczany jest cały zakres dat wizyt.
+     * Przeznaczone do uzupełniania danych historycznych - zmiany wizyt w przeliczanym dniu
+     * wykonywane równolegle z przeliczeniem mogą spowodować ponowienie przeliczenia tego dnia.
+     * @param from Pierwszy dzień (włącznie) lub null.
+     * @param to Ostatni dzień (włącznie) lub null.
+     * @return Liczba przeliczonych dni.
+     */
+    public long rebuild(LocalDate from, LocalDate to) {
+        if (from == null) {
+            LocalDateTime min = visitRepository.findMinVisitDateTime();
+            LocalDateTime archivedMin = archivedVisitRepository.findMinVisitDateTime();
+            if (min == null || (archivedMin != null && archivedMin.isBefore(min))) {
+                min = archivedMin;
+            }
+            if (min == null) {
+                return 0;
+            }
+            from = min.toLocalDate();
+        }
+        if (to == null) {
+            LocalDateTime max = visitRepository.findMaxVisitDateTime();
+            LocalDateTime archivedMax = archivedVisitRepository.findMaxVisitDateTime();
+            if (max == null || (archivedMax != null && archivedMax.isAfter(max))) {
+                max = archivedMax;
+            }
+            if (max == null) {
+                return 0;
+            }
+            to = max.toLocalDate();
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Data końcowa nie może być wcześniejsza niż początkowa.");
+        }
+
+        LocalDate start = from;
+        long days = to.toEpochDay() - from.toEpochDay() + 1;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        // Wątki wspólnej puli nie dziedziczą kliniki - bez jawnego kontekstu przeliczałyby schemat domyślny
+        String tenant = TenantContext.getTenant();
+        LongStream.range(0, days)
+                .parallel()
+                .mapToObj(start::plusDays)
+                .forEach(day -> TenantContext.runAs(tenant, () -> rebuildDay(transactionTemplate, day)));
+        return days;
+    }
+
+    private void rebuildDay(TransactionTemplate transactionTemplate, LocalDate day) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    visitStatisticRepository.deleteByStatDate(day);
+                    visitStatisticRepository.rebuildDay(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Równoległa zmiana wizyty utworzyła licznik tego dnia - przelicz dzień ponownie
+                if (attempt >= REBUILD_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
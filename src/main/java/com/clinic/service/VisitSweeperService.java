@@ -0,0 +1,200 @@
+package com.clinic.service;
+
+import com.clinic.dto.VisitChangeEvent;
+import com.clinic.model.JobCheckpoint;
+import com.clinic.model.VisitStatus;
+import com.clinic.repository.JobCheckpointRepository;
+import com.clinic.repository.VisitRepository;
+import com.clinic.tenancy.TenantContext;
+import com.clinic.tenancy.TenantRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serwis porządkujący przeterminowane wizyty.
+ *
+ * Wizyty, które pozostały w statusie SCHEDULED dłużej niż zadany czas po terminie (lekarz nie oznaczył
+ * ich jako ukończone), są w tle przenoszone do statusu końcowego (domyślnie NO_SHOW). Praca odbywa się
+ * w paczkach: każda paczka to osobna transakcja z jednym poleceniem UPDATE, aktualizacją liczników
+ * statystyk i zapisem punktu kontrolnego. Między paczkami zadanie robi przerwę proporcjonalną do czasu
+ * trwania ostatniej paczki - im bardziej obciążona baza, tym wolniej postępuje porządkowanie.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitSweeperService {
+
+    private static final String JOB_NAME = "visit-sweeper";
+
+    private final VisitRepository visitRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final VisitStatisticsService visitStatisticsService;
+    private final AgendaService agendaService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TenantRegistry tenantRegistry;
+
+    @Value("${app.visitSweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.visitSweeper.terminalStatus:NO_SHOW}")
+    private VisitStatus terminalStatus;
+
+    @Value("${app.visitSweeper.graceMinutes:120}")
+    private long graceMinutes;
+
+    @Value("${app.visitSweeper.batchSize:500}")
+    private int batchSize;
+
+    @Value("${app.visitSweeper.maxBatchesPerRun:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.visitSweeper.pauseFactor:1.0}")
+    private double pauseFactor;
+
+    @Value("${app.visitSweeper.minPauseMs:20}")
+    private long minPauseMs;
+
+    @Value("${app.visitSweeper.maxPauseMs:5000}")
+    private long maxPauseMs;
+
+    @Value("${app.cluster.jobLeaseSeconds:600}")
+    private long jobLeaseSeconds;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Okresowe uruchomienie porządkowania (kolejno dla każdej kliniki).
+     */
+    @Scheduled(fixedDelayString = "${app.visitSweeper.intervalMs:300000}", initialDelayString = "${app.visitSweeper.initialDelayMs:60000}")
+    public void scheduledSweep() {
+        if (enabled) {
+            for (String tenant : tenantRegistry.getTenants()) {
+                TenantContext.runAs(tenant, this::sweep);
+            }
+        }
+    }
+
+    /**
+     * Przenosi przeterminowane wizyty SCHEDULED do statusu końcowego, paczka po paczce.
+     * Dotyczy bieżącej kliniki (TenantContext). Jednocześnie może działać tylko jedno porządkowanie kliniki - także
+     * między instancjami aplikacji (blokada w bazie z dzierżawą app.cluster.jobLeaseSeconds, przedłużana po każdej paczce).
+     * @return Liczba zmienionych wizyt (0, jeśli porządkowanie już trwa).
+     */
+    public long sweep() {
+        String tenant = TenantContext.getTenant();
+        if (!running.add(tenant)) {
+            return 0;
+        }
+        boolean locked = false;
+        try {
+            Duration lease = Duration.ofSeconds(jobLeaseSeconds);
+            if (!clusterCoordinator.tryLock(JOB_NAME, lease)) {
+                return 0; // Porządkowanie trwa na innej instancji aplikacji
+            }
+            locked = true;
+            if (terminalStatus == VisitStatus.SCHEDULED) {
+                throw new IllegalStateException("Status końcowy porządkowania nie może być SCHEDULED.");
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            long total = 0;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                long start = System.nanoTime();
+                Integer swept = transactionTemplate.execute(status -> sweepBatch(cutoff));
+                total += swept;
+                if (swept < batchSize) {
+                    break; // Nie ma więcej przeterminowanych wizyt
+                }
+                if (!clusterCoordinator.tryLock(JOB_NAME, lease)) {
+                    locked = false;
+                    break; // Dzierżawa wygasła i została przejęta przez inną instancję
+                }
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                try {
+                    Thread.sleep(Math.min(maxPauseMs, Math.max(minPauseMs, (long) (elapsedMs * pauseFactor))));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return total;
+        } finally {
+            if (locked) {
+                clusterCoordinator.unlock(JOB_NAME);
+            }
+            running.remove(tenant);
+        }
+    }
+
+    /**
+     * Zwraca punkt kontrolny porządkowania (ostatnio przetworzona wizyta, łączna liczba zmienionych wizyt).
+     * @return Opcjonalny punkt kontrolny, jeśli porządkowanie już działało.
+     */
+    public Optional<JobCheckpoint> getCheckpoint() {
+        return jobCheckpointRepository.findById(JOB_NAME);
+    }
+
+    private int sweepBatch(LocalDateTime cutoff) {
+        List<Object[]> rows = visitRepository.findStaleScheduledForUpdate(cutoff, batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        Map<DoctorDay, Long> countsByDoctorDay = new HashMap<>();
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).longValue());
+            countsByDoctorDay.merge(new DoctorDay(((Number) row[1]).longValue(), toLocalDateTime(row[3]).toLocalDate()), 1L, Long::sum);
+        }
+
+        // Wiersze są zablokowane (FOR UPDATE), więc UPDATE zmieni dokładnie pobrane wizyty
+        visitRepository.updateScheduledStatus(ids, terminalStatus);
+
+        countsByDoctorDay.forEach((key, count) -> {
+            visitStatisticsService.recordBulkTransition(key.doctorId(), key.day(), VisitStatus.SCHEDULED, terminalStatus, count);
+            agendaService.invalidate(key.doctorId(), key.day().atStartOfDay());
+        });
+        for (Object[] row : rows) {
+            LocalDateTime visitDateTime = toLocalDateTime(row[3]);
+            Long doctorId = ((Number) row[1]).longValue();
+            eventPublisher.publishEvent(new VisitChangeEvent(0, VisitChangeEvent.Type.UPDATED, ((Number) row[0]).longValue(),
+                    doctorId, ((Number) row[2]).longValue(), visitDateTime, terminalStatus, doctorId, visitDateTime));
+        }
+
+        Object[] last = rows.get(rows.size() - 1);
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME)
+                .orElseGet(() -> new JobCheckpoint(JOB_NAME, null, null, 0, null));
+        checkpoint.setLastDateTime(toLocalDateTime(last[3]));
+        checkpoint.setLastId(((Number) last[0]).longValue());
+        checkpoint.setProcessedTotal(checkpoint.getProcessedTotal() + rows.size());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+        return rows.size();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private record DoctorDay(Long doctorId, LocalDate day) {
+    }
+}
@@ -0,0 +1,392 @@
+package com.clinic.service;
+
+import com.clinic.dto.CacheInvalidationEvent;
+import com.clinic.dto.VisitChangeEvent;
+import com.clinic.model.Visit;
+import com.clinic.model.VisitStatus;
+import com.clinic.model.WaitlistEntry;
+import com.clinic.model.WaitlistStatus;
+import com.clinic.repository.DoctorRepository;
+import com.clinic.repository.PatientRepository;
+import com.clinic.repository.WaitlistEntryRepository;
+import com.clinic.tenancy.TenantContext;
+import com.clinic.tenancy.TenantRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serwis listy oczekujących na zwolnione terminy.
+ *
+ * Oczekujący każdego lekarza są trzymani w pamięci w kolejce priorytetowej (wyższy priorytet, potem
+ * wcześniejszy zapis). Po zatwierdzeniu anulowania (lub usunięcia, przeniesienia) wizyty zwolniony termin
+ * jest w tle przydzielany pierwszemu oczekującemu, którego preferowany przedział go obejmuje - wizyta
+ * jest umawiana przez VisitService w jednej transakcji ze zmianą statusu wpisu. Obsługa zwolnień
+ * jednego lekarza jest szeregowana blokadą jego kolejki, a umawianie wizyt blokadą wiersza lekarza w bazie,
+ * więc równoległe anulowania i rezerwacje nie prowadzą do podwójnego przydziału terminu.
+ * Zmiany listy są zapisywane w dzienniku zmian - pozostałe instancje aplikacji przeładowują wtedy
+ * kolejkę lekarza z bazy (ClusterCoordinator). W trybie wielu klinik kolejki są rozdzielone per klinika.
+ */
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final VisitService visitService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TenantRegistry tenantRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.waitlist.backfillThreads:2}")
+    private int backfillThreads;
+
+    private static final Comparator<Candidate> SERVICE_ORDER = Comparator
+            .comparingInt(Candidate::priority).reversed()
+            .thenComparing(Candidate::createdAt)
+            .thenComparing(Candidate::id);
+
+    private final Map<QueueKey, PriorityQueue<Candidate>> queues = new ConcurrentHashMap<>();
+    private ExecutorService backfillExecutor;
+
+    @PostConstruct
+    public void start() {
+        backfillExecutor = Executors.newFixedThreadPool(backfillThreads, runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Odbudowuje kolejki oczekujących z bazy danych po starcie aplikacji.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadQueues() {
+        for (String tenant : tenantRegistry.getTenants()) {
+            TenantContext.runAs(tenant, () -> {
+                for (WaitlistEntry entry : waitlistEntryRepository.findByStatus(WaitlistStatus.WAITING)) {
+                    enqueue(Candidate.of(entry));
+                }
+            });
+        }
+    }
+
+    /**
+     * Zapisuje pacjenta na listę oczekujących na termin u lekarza.
+     * @param patientId ID pacjenta.
+     * @param doctorId ID lekarza.
+     * @param windowStart Początek preferowanego przedziału (włącznie).
+     * @param windowEnd Koniec preferowanego przedziału (wyłącznie).
+     * @param priority Priorytet (wyższy - obsługiwany wcześniej).
+     * @return Zapisany wpis.
+     * @throws IllegalArgumentException Jeśli pacjent/lekarz nie istnieje lub przedział jest niepoprawny.
+     */
+    @Transactional
+    public WaitlistEntry join(Long patientId, Long doctorId, LocalDateTime windowStart, LocalDateTime windowEnd, int priority) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new IllegalArgumentException("Pacjent o podanym ID nie istnieje.");
+        }
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("Lekarz o podanym ID nie istnieje.");
+        }
+        if (!windowEnd.isAfter(windowStart)) {
+            throw new IllegalArgumentException("Koniec przedziału musi być późniejszy niż początek.");
+        }
+        if (!windowEnd.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Przedział oczekiwania już minął.");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatientId(patientId);
+        entry.setDoctorId(doctorId);
+        entry.setWindowStart(windowStart);
+        entry.setWindowEnd(windowEnd);
+        entry.setPriority(priority);
+        entry.setCreatedAt(LocalDateTime.now());
+        entry.setStatus(WaitlistStatus.WAITING);
+        WaitlistEntry saved = waitlistEntryRepository.save(entry);
+
+        Candidate candidate = Candidate.of(saved);
+        clusterCoordinator.publishChange(CacheInvalidationEvent.WAITLIST, doctorId, null);
+        afterCommit(() -> enqueue(candidate));
+        return saved;
+    }
+
+    /**
+     * Wypisuje pacjenta z listy oczekujących.
+     * @param id ID wpisu.
+     * @return true, jeśli wpis oczekiwał i został anulowany.
+     */
+    @Transactional
+    public boolean leave(Long id) {
+        return waitlistEntryRepository.findById(id)
+                .filter(entry -> entry.getStatus() == WaitlistStatus.WAITING)
+                .map(entry -> {
+                    entry.setStatus(WaitlistStatus.CANCELLED);
+                    clusterCoordinator.publishChange(CacheInvalidationEvent.WAITLIST, entry.getDoctorId(), null);
+                    afterCommit(() -> dequeue(entry.getDoctorId(), entry.getId()));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Anuluje oczekujące wpisy usuniętego pacjenta (w transakcji usunięcia) i po jej zatwierdzeniu usuwa je z kolejek.
+     * @param patientId ID pacjenta.
+     */
+    @Transactional
+    public void cancelForPatient(Long patientId) {
+        cancel(waitlistEntryRepository.findByPatientIdAndStatus(patientId, WaitlistStatus.WAITING));
+    }
+
+    /**
+     * Anuluje oczekujące wpisy usuniętego lekarza (w transakcji usunięcia) i po jej zatwierdzeniu usuwa je z kolejki.
+     * @param doctorId ID lekarza.
+     */
+    @Transactional
+    public void cancelForDoctor(Long doctorId) {
+        cancel(waitlistEntryRepository.findByDoctorIdAndStatusOrderByPriorityDescCreatedAtAscIdAsc(doctorId, WaitlistStatus.WAITING));
+    }
+
+    /**
+     * Pobiera oczekujących na termin u lekarza w kolejności obsługi.
+     * @param doctorId ID lekarza.
+     * @return Lista oczekujących wpisów.
+     */
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> getWaiting(Long doctorId) {
+        return waitlistEntryRepository.findByDoctorIdAndStatusOrderByPriorityDescCreatedAtAscIdAsc(doctorId, WaitlistStatus.WAITING);
+    }
+
+    /**
+     * Reaguje na zatwierdzone zmiany wizyt, które zwalniają termin, i zleca jego ponowne obsadzenie.
+     * @param event Zdarzenie zmiany wizyty.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVisitChange(VisitChangeEvent event) {
+        switch (event.getType()) {
+            case CANCELLED -> submitBackfill(event.getDoctorId(), event.getVisitDateTime());
+            case DELETED -> {
+                if (event.getStatus() == VisitStatus.SCHEDULED) {
+                    submitBackfill(event.getDoctorId(), event.getVisitDateTime());
+                }
+            }
+            case UPDATED -> {
+                if (event.getStatus() == VisitStatus.CANCELLED) {
+                    submitBackfill(event.getDoctorId(), event.getVisitDateTime());
+                } else if (!Objects.equals(event.getPreviousDoctorId(), event.getDoctorId())
+                        || !Objects.equals(event.getPreviousVisitDateTime(), event.getVisitDateTime())) {
+                    submitBackfill(event.getPreviousDoctorId(), event.getPreviousVisitDateTime());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Przeładowuje z bazy kolejkę lekarza, której wpisy zmieniła inna instancja aplikacji.
+     * @param event Zdarzenie z dziennika zmian.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationEvent.WAITLIST.equals(event.getCacheName()) || event.getDoctorId() == null) {
+            return;
+        }
+        List<Candidate> waiting = TenantContext.callAs(event.getTenant(), () -> waitlistEntryRepository
+                .findByDoctorIdAndStatusOrderByPriorityDescCreatedAtAscIdAsc(event.getDoctorId(), WaitlistStatus.WAITING)
+                .stream().map(Candidate::of).toList());
+        PriorityQueue<Candidate> queue = queues.computeIfAbsent(new QueueKey(event.getTenant(), event.getDoctorId()),
+                key -> new PriorityQueue<>(SERVICE_ORDER));
+        synchronized (queue) {
+            queue.clear();
+            queue.addAll(waiting);
+        }
+    }
+
+    /**
+     * Oznacza jako wygasłe wpisy, których przedział czasu minął, i usuwa je z kolejek.
+     */
+    @Scheduled(cron = "${app.waitlist.expiryCron:0 */15 * * * *}")
+    public void expireEnded() {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (String tenant : tenantRegistry.getTenants()) {
+            TenantContext.runAs(tenant, () -> transactionTemplate.executeWithoutResult(status -> {
+                waitlistEntryRepository.expireEnded(now);
+                afterCommit(() -> queues.forEach((key, queue) -> {
+                    if (key.tenant().equals(tenant)) {
+                        synchronized (queue) {
+                            queue.removeIf(candidate -> !candidate.windowEnd().isAfter(now));
+                        }
+                    }
+                }));
+            }));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdown();
+    }
+
+    private void submitBackfill(Long doctorId, LocalDateTime slot) {
+        String tenant = TenantContext.getTenant();
+        if (doctorId == null || slot == null || !slot.isAfter(LocalDateTime.now()) || !queues.containsKey(new QueueKey(tenant, doctorId))) {
+            return;
+        }
+        backfillExecutor.execute(() -> TenantContext.runAs(tenant, () -> backfill(doctorId, slot)));
+    }
+
+    /**
+     * Przydziela zwolniony termin pierwszemu pasującemu oczekującemu.
+     * Wpisy nieaktualne (wypisane, usunięci pacjenci) są po drodze usuwane z kolejki.
+     */
+    private void backfill(Long doctorId, LocalDateTime slot) {
+        PriorityQueue<Candidate> queue = queues.get(new QueueKey(TenantContext.getTenant(), doctorId));
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            List<Candidate> skipped = new ArrayList<>();
+            try {
+                Candidate candidate;
+                while ((candidate = queue.poll()) != null) {
+                    if (!candidate.accepts(slot)) {
+                        skipped.add(candidate);
+                        continue;
+                    }
+                    BookingResult result = tryBook(candidate, slot);
+                    if (result == BookingResult.BOOKED) {
+                        return;
+                    }
+                    if (result == BookingResult.SLOT_TAKEN) {
+                        skipped.add(candidate);
+                        return;
+                    }
+                    // STALE - wpis nie oczekuje już w bazie lub nie da się go zrealizować, pomijamy go na stałe
+                }
+            } finally {
+                queue.addAll(skipped);
+            }
+        }
+    }
+
+    private BookingResult tryBook(Candidate candidate, LocalDateTime slot) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            return transactionTemplate.execute(status -> {
+                WaitlistEntry entry = waitlistEntryRepository.findById(candidate.id()).orElse(null);
+                if (entry == null || entry.getStatus() != WaitlistStatus.WAITING) {
+                    return BookingResult.STALE;
+                }
+                Visit visit = visitService.scheduleVisit(entry.getPatientId(), entry.getDoctorId(), slot);
+                entry.setStatus(WaitlistStatus.BOOKED);
+                entry.setVisitId(visit.getId());
+                clusterCoordinator.publishChange(CacheInvalidationEvent.WAITLIST, entry.getDoctorId(), null);
+                return BookingResult.BOOKED;
+            });
+        } catch (SlotUnavailableException e) {
+            // Termin zajęty w międzyczasie (np. przez recepcję) - wpis pozostaje na liście
+            return BookingResult.SLOT_TAKEN;
+        } catch (IllegalArgumentException e) {
+            // Wpisu nie da się zrealizować (np. pacjent lub lekarz usunięty) - wpis jest anulowany,
+            // a termin trafia do kolejnego oczekującego
+            transactionTemplate.executeWithoutResult(status -> waitlistEntryRepository.findById(candidate.id())
+                    .filter(entry -> entry.getStatus() == WaitlistStatus.WAITING)
+                    .ifPresent(entry -> {
+                        entry.setStatus(WaitlistStatus.CANCELLED);
+                        clusterCoordinator.publishChange(CacheInvalidationEvent.WAITLIST, entry.getDoctorId(), null);
+                    }));
+            return BookingResult.STALE;
+        }
+    }
+
+    private void cancel(List<WaitlistEntry> entries) {
+        Set<Long> doctorIds = new HashSet<>();
+        for (WaitlistEntry entry : entries) {
+            entry.setStatus(WaitlistStatus.CANCELLED);
+            doctorIds.add(entry.getDoctorId());
+            afterCommit(() -> dequeue(entry.getDoctorId(), entry.getId()));
+        }
+        doctorIds.forEach(doctorId -> clusterCoordinator.publishChange(CacheInvalidationEvent.WAITLIST, doctorId, null));
+    }
+
+    private void enqueue(Candidate candidate) {
+        PriorityQueue<Candidate> queue = queues.computeIfAbsent(new QueueKey(TenantContext.getTenant(), candidate.doctorId()),
+                key -> new PriorityQueue<>(SERVICE_ORDER));
+        synchronized (queue) {
+            queue.add(candidate);
+        }
+    }
+
+    private void dequeue(Long doctorId, Long entryId) {
+        PriorityQueue<Candidate> queue = queues.get(new QueueKey(TenantContext.getTenant(), doctorId));
+        if (queue != null) {
+            synchronized (queue) {
+                queue.removeIf(candidate -> candidate.id().equals(entryId));
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record QueueKey(String tenant, Long doctorId) {
+    }
+
+    private enum BookingResult {
+        BOOKED,
+        SLOT_TAKEN,
+        STALE
+    }
+
+    private record Candidate(Long id, Long doctorId, int priority, LocalDateTime createdAt,
+                             LocalDateTime windowStart, LocalDateTime windowEnd) {
+
+        static Candidate of(WaitlistEntry entry) {
+            return new Candidate(entry.getId(), entry.getDoctorId(), entry.getPriority(), entry.getCreatedAt(),
+                    entry.getWindowStart(), entry.getWindowEnd());
+        }
+
+        boolean accepts(LocalDateTime slot) {
+            return !slot.isBefore(windowStart) && slot.isBefore(windowEnd);
+        }
+    }
+}
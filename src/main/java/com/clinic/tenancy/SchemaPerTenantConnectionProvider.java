@@ -0,0 +1,81 @@
+package com.clinic.tenancy;
+
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Dostawca połączeń Hibernate dla trybu wielu klinik (schemat na klinikę).
+ *
+ * Połączenia pochodzą ze wspólnej puli; przed przekazaniem do sesji Hibernate ustawiany jest schemat
+ * kliniki, a przy zwrocie - przywracany schemat domyślny. Każde połączenie zajmuje miejsce w limicie
+ * kliniki (TenantRegistry), dzięki czemu jedna klinika nie może zająć całej puli.
+ */
+public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionProvider<String> {
+
+    private final DataSource dataSource;
+    private final TenantRegistry tenantRegistry;
+
+    public SchemaPerTenantConnectionProvider(DataSource dataSource, TenantRegistry tenantRegistry) {
+        this.dataSource = dataSource;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public Connection getConnection(String tenant) throws SQLException {
+        tenantRegistry.acquireConnection(tenant);
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setSchema(tenant);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            if (connection != null) {
+                connection.close();
+            }
+            tenantRegistry.releaseConnection(tenant);
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(String tenant, Connection connection) throws SQLException {
+        try {
+            connection.setSchema(TenantContext.DEFAULT_TENANT);
+            connection.close();
+        } finally {
+            tenantRegistry.releaseConnection(tenant);
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return unwrapType.cast(this);
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+}
@@ -0,0 +1,58 @@
+package com.clinic.tenancy;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Konfiguracja trybu wielu klinik (włączana przez app.tenancy.enabled=true).
+ *
+ * Włącza wielodostępność Hibernate na poziomie schematów: repozytoria pracują na schemacie kliniki
+ * wskazanej przez TenantContext. Przy starcie schematy wszystkich klinik są tworzone i migrowane
+ * tymi samymi migracjami Flyway co schemat domyślny.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.tenancy.enabled", havingValue = "true")
+public class TenancyConfig {
+
+    @Bean
+    public SchemaPerTenantConnectionProvider schemaPerTenantConnectionProvider(DataSource dataSource, TenantRegistry tenantRegistry) {
+        return new SchemaPerTenantConnectionProvider(dataSource, tenantRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer tenancyHibernatePropertiesCustomizer(SchemaPerTenantConnectionProvider connectionProvider) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new TenantIdentifierResolver());
+        };
+    }
+
+    /**
+     * Migruje schematy klinik (schemat domyślny migruje automatyczna konfiguracja Flyway).
+     */
+    @Bean
+    public InitializingBean tenantSchemaMigrator(DataSource dataSource, TenantRegistry tenantRegistry,
+                                                 @Value("${spring.flyway.locations:classpath:db/migration}") List<String> locations) {
+        return () -> {
+            for (String tenant : tenantRegistry.getTenants()) {
+                if (!TenantContext.DEFAULT_TENANT.equals(tenant)) {
+                    Flyway.configure()
+                            .dataSource(dataSource)
+                            .schemas(tenant)
+                            .locations(locations.toArray(String[]::new))
+                            .load()
+                            .migrate();
+                }
+            }
+        };
+    }
+}
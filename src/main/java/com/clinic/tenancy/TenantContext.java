@@ -0,0 +1,79 @@
+package com.clinic.tenancy;
+
+import java.util.function.Supplier;
+
+/**
+ * Bieżąca klinika (najemca) wątku obsługującego żądanie lub zadanie w tle.
+ *
+ * Ustawiana przez TenantFilter dla żądań HTTP; zadania w tle i wątki pomocnicze ustawiają ją
+ * jawnie przez runAs/callAs. Bez ustawionej kliniki używany jest najemca domyślny (schemat PUBLIC),
+ * czyli dotychczasowa baza jednej przychodni.
+ */
+public final class TenantContext {
+
+    /**
+     * Najemca domyślny - schemat bazy używany w trybie jednej kliniki.
+     */
+    public static final String DEFAULT_TENANT = "PUBLIC";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * Zwraca klinikę bieżącego wątku.
+     * @return Identyfikator kliniki (nazwa schematu) lub DEFAULT_TENANT.
+     */
+    public static String getTenant() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : DEFAULT_TENANT;
+    }
+
+    /**
+     * Ustawia klinikę bieżącego wątku (do wyczyszczenia przez clear() po zakończeniu żądania).
+     * @param tenant Identyfikator kliniki.
+     */
+    public static void setTenant(String tenant) {
+        CURRENT.set(tenant);
+    }
+
+    /**
+     * Usuwa klinikę bieżącego wątku.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Wykonuje operację w kontekście kliniki, przywracając poprzedni kontekst po jej zakończeniu.
+     * @param tenant Identyfikator kliniki.
+     * @param action Operacja do wykonania.
+     */
+    public static void runAs(String tenant, Runnable action) {
+        callAs(tenant, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Wykonuje operację w kontekście kliniki i zwraca jej wynik.
+     * @param tenant Identyfikator kliniki.
+     * @param action Operacja do wykonania.
+     * @return Wynik operacji.
+     */
+    public static <T> T callAs(String tenant, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.clinic.tenancy;
+
+import com.clinic.security.JwtTokenProvider;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtr ustalający klinikę żądania w trybie wielu klinik.
+ *
+ * Klinika pochodzi z claimu "tenant" tokena JWT, a przy jego braku (np. logowanie) - z nagłówka X-Tenant-ID.
+ * Żądanie z tokenem jednej kliniki i nagłówkiem innej jest odrzucane (403), żądanie do nieznanej
+ * kliniki - z kodem 400. Filtr działa przed JwtAuthenticationFilter, aby użytkownik tokena był
+ * wczytywany ze schematu właściwej kliniki.
+ */
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_HEADER = "X-Tenant-ID";
+
+    private final TenantRegistry tenantRegistry;
+    private final JwtTokenProvider tokenProvider;
+
+    public TenantFilter(TenantRegistry tenantRegistry, JwtTokenProvider tokenProvider) {
+        this.tenantRegistry = tenantRegistry;
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!tenantRegistry.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String tenant;
+        try {
+            String fromToken = getTenantFromToken(request);
+            String header = request.getHeader(TENANT_HEADER);
+            String fromHeader = StringUtils.hasText(header) ? TenantRegistry.normalize(header) : null;
+            if (fromToken != null && fromHeader != null && !fromToken.equals(fromHeader)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "Token został wydany dla innej kliniki.");
+                return;
+            }
+            tenant = fromToken != null ? fromToken : fromHeader != null ? fromHeader : TenantContext.DEFAULT_TENANT;
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (!tenantRegistry.isKnown(tenant)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Nieznana klinika: " + tenant);
+            return;
+        }
+
+        TenantContext.setTenant(tenant);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private String getTenantFromToken(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith("Bearer ")) {
+            return null;
+        }
+        String tenant;
+        try {
+            tenant = tokenProvider.getTenantFromJWT(bearerToken.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            return null; // Niepoprawny token odrzuci JwtAuthenticationFilter i reguły autoryzacji
+        }
+        return tenant != null ? TenantRegistry.normalize(tenant) : null;
+    }
+}
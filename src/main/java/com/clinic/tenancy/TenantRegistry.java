@@ -0,0 +1,178 @@
+package com.clinic.tenancy;
+
+import com.clinic.dto.TenantConnectionStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Rejestr klinik (najemców) obsługiwanych przez jedno wdrożenie aplikacji.
+ *
+ * W trybie wielu klinik (app.tenancy.enabled=true) każda klinika z listy app.tenancy.tenants ma własny
+ * schemat bazy danych o tej samej nazwie. Każda klinika może jednocześnie używać co najwyżej
+ * app.tenancy.maxConnectionsPerTenant połączeń ze wspólnej puli - skok obciążenia jednej kliniki
+ * wyczerpuje tylko jej limit, a nie całą pulę. Bez trybu wielu klinik rejestr zawiera tylko
+ * najemcę domyślnego i nie ogranicza połączeń.
+ */
+@Component
+public class TenantRegistry {
+
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Z][A-Z0-9_]{0,62}");
+
+    @Value("${app.tenancy.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.tenancy.tenants:}")
+    private List<String> configuredTenants;
+
+    @Value("${app.tenancy.maxConnectionsPerTenant:8}")
+    private int maxConnectionsPerTenant;
+
+    @Value("${app.tenancy.acquireTimeoutMs:2000}")
+    private long acquireTimeoutMs;
+
+    private final Map<String, ConnectionLimiter> limiters = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        limiters.put(TenantContext.DEFAULT_TENANT, new ConnectionLimiter());
+        if (enabled) {
+            for (String tenant : configuredTenants) {
+                if (!tenant.isBlank()) {
+                    limiters.putIfAbsent(normalize(tenant), new ConnectionLimiter());
+                }
+            }
+        }
+    }
+
+    /**
+     * Czy aplikacja działa w trybie wielu klinik.
+     * @return true, jeśli app.tenancy.enabled=true.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Zwraca wszystkie kliniki (najemca domyślny jako pierwszy).
+     * @return Lista identyfikatorów klinik.
+     */
+    public List<String> getTenants() {
+        return List.copyOf(limiters.keySet());
+    }
+
+    /**
+     * Sprawdza, czy klinika jest obsługiwana przez to wdrożenie.
+     * @param tenant Identyfikator kliniki (po normalizacji).
+     * @return true, jeśli klinika jest zarejestrowana.
+     */
+    public boolean isKnown(String tenant) {
+        return limiters.containsKey(tenant);
+    }
+
+    /**
+     * Normalizuje identyfikator kliniki (nagłówek, claim tokena) do nazwy schematu.
+     * @param tenant Identyfikator podany przez klienta.
+     * @return Identyfikator zapisany wielkimi literami.
+     * @throws IllegalArgumentException Jeśli identyfikator nie jest poprawną nazwą schematu.
+     */
+    public static String normalize(String tenant) {
+        String normalized = tenant.trim().toUpperCase(Locale.ROOT);
+        if (!TENANT_ID.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Niepoprawny identyfikator kliniki: " + tenant);
+        }
+        return normalized;
+    }
+
+    /**
+     * Zajmuje miejsce w limicie połączeń kliniki, czekając co najwyżej app.tenancy.acquireTimeoutMs.
+     * @param tenant Identyfikator kliniki.
+     * @throws SQLException Jeśli limit kliniki jest wyczerpany lub wątek został przerwany.
+     */
+    public void acquireConnection(String tenant) throws SQLException {
+        ConnectionLimiter limiter = limiters.get(tenant);
+        if (limiter == null) {
+            throw new SQLException("Nieznana klinika: " + tenant);
+        }
+        limiter.acquire(tenant);
+    }
+
+    /**
+     * Zwalnia miejsce w limicie połączeń kliniki.
+     * @param tenant Identyfikator kliniki.
+     */
+    public void releaseConnection(String tenant) {
+        ConnectionLimiter limiter = limiters.get(tenant);
+        if (limiter != null) {
+            limiter.release();
+        }
+    }
+
+    /**
+     * Zwraca metryki połączeń wszystkich klinik.
+     * @return Lista metryk (po jednej na klinikę).
+     */
+    public List<TenantConnectionStats> getStats() {
+        List<TenantConnectionStats> stats = new ArrayList<>(limiters.size());
+        limiters.forEach((tenant, limiter) -> stats.add(limiter.toStats(tenant)));
+        return stats;
+    }
+
+    private final class ConnectionLimiter {
+        private final Semaphore permits = new Semaphore(maxConnectionsPerTenant, true);
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        private void acquire(String tenant) throws SQLException {
+            if (!enabled) {
+                return;
+            }
+            long start = System.nanoTime();
+            boolean granted;
+            try {
+                granted = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Przerwano oczekiwanie na połączenie kliniki " + tenant);
+            }
+            waitNanos.add(System.nanoTime() - start);
+            if (!granted) {
+                rejected.increment();
+                throw new SQLTransientConnectionException("Wyczerpano limit połączeń kliniki " + tenant);
+            }
+            acquired.increment();
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+        }
+
+        private void release() {
+            if (!enabled) {
+                return;
+            }
+            active.decrementAndGet();
+            permits.release();
+        }
+
+        private TenantConnectionStats toStats(String tenant) {
+            long count = acquired.sum() + rejected.sum();
+            double averageWaitMs = count == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / count;
+            return new TenantConnectionStats(tenant, enabled ? maxConnectionsPerTenant : 0, active.get(), peak.get(),
+                    acquired.sum(), rejected.sum(), averageWaitMs);
+        }
+    }
+}
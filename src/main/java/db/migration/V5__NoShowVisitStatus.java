@@ -0,0 +1,50 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * V5: dodaje status wizyty NO_SHOW (pacjent nie stawił się).
+ *
+ * Ograniczenie CHECK na kolumnie visit.status powstało w V1 bez nazwy (lub przez ddl-auto=update),
+ * więc jego nazwa nadana przez bazę jest odczytywana z INFORMATION_SCHEMA. Stare ograniczenie
+ * jest usuwane, a w jego miejsce dodawane nazwane chk_visit_status z rozszerzoną listą statusów.
+ */
+public class V5__NoShowVisitStatus extends BaseJavaMigration {
+
+    private static final String FIND_STATUS_CHECKS =
+            "SELECT tc.CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc " +
+            "JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS cc " +
+            "ON cc.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND cc.CONSTRAINT_NAME = tc.CONSTRAINT_NAME " +
+            "WHERE tc.CONSTRAINT_TYPE = 'CHECK' AND tc.TABLE_SCHEMA = CURRENT_SCHEMA " +
+            "AND UPPER(tc.TABLE_NAME) = 'VISIT' AND UPPER(cc.CHECK_CLAUSE) LIKE '%STATUS%'";
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+
+        List<String> constraints = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(FIND_STATUS_CHECKS);
+             ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                constraints.add(rs.getString(1));
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            for (String constraint : constraints) {
+                statement.execute("ALTER TABLE visit DROP CONSTRAINT \"" + constraint.replace("\"", "\"\"") + "\"");
+            }
+            statement.execute("ALTER TABLE visit ADD CONSTRAINT chk_visit_status " +
+                    "CHECK (status IN ('SCHEDULED', 'COMPLETED', 'CANCELLED', 'NO_SHOW'))");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+-- V10: cykliczne serie wizyt (np. rehabilitacja co tydzień). Wizyty serii są zwykłymi wizytami
+-- powiązanymi z serią przez series_id.
+
+CREATE TABLE IF NOT EXISTS visit_series (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    doctor_id      BIGINT       NOT NULL REFERENCES doctor (id) ON DELETE CASCADE,
+    patient_id     BIGINT       NOT NULL REFERENCES patient (id) ON DELETE CASCADE,
+    frequency      VARCHAR(16)  NOT NULL CHECK (frequency IN ('DAILY', 'WEEKLY', 'MONTHLY')),
+    interval_count INT          NOT NULL CHECK (interval_count > 0),
+    first_visit    TIMESTAMP(6) NOT NULL,
+    occurrences    INT          NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL
+);
+
+ALTER TABLE visit ADD COLUMN IF NOT EXISTS series_id BIGINT REFERENCES visit_series (id) ON DELETE SET NULL;
+
+-- Operacje na całej serii (anulowanie, przesunięcie) od podanej chwili
+CREATE INDEX IF NOT EXISTS idx_visit_series_datetime ON visit (series_id, visit_date_time);
@@ -0,0 +1,19 @@
+-- V11: zasoby przychodni (gabinety, sprzęt) rezerwowane razem z lekarzem dla wizyty.
+
+CREATE TABLE IF NOT EXISTS clinic_resource (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE,
+    type VARCHAR(16)  NOT NULL CHECK (type IN ('ROOM', 'EQUIPMENT'))
+);
+
+-- Rezerwacja zasobu na wizytę. Termin wizyty jest powielony, aby sprawdzanie kolizji zasobu
+-- korzystało z indeksu przedziałowego (resource_id, visit_date_time) bez złączenia z tabelą visit.
+CREATE TABLE IF NOT EXISTS resource_reservation (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    resource_id     BIGINT       NOT NULL REFERENCES clinic_resource (id) ON DELETE CASCADE,
+    visit_id        BIGINT       NOT NULL REFERENCES visit (id) ON DELETE CASCADE,
+    visit_date_time TIMESTAMP(6) NOT NULL,
+    UNIQUE (visit_id, resource_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_resource_reservation_resource_datetime ON resource_reservation (resource_id, visit_date_time);
@@ -0,0 +1,8 @@
+-- V12: miękkie usuwanie lekarzy i pacjentów. Usunięcie ustawia deleted_at, a powiązane dane
+-- (wizyty, dokumenty, archiwum, statystyki) są usuwane w tle paczkami (EntityPurgeService).
+
+ALTER TABLE doctor ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP(6);
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP(6);
+
+CREATE INDEX IF NOT EXISTS idx_doctor_deleted_at ON doctor (deleted_at);
+CREATE INDEX IF NOT EXISTS idx_patient_deleted_at ON patient (deleted_at);
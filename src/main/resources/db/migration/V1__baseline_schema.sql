@@ -0,0 +1,47 @@
+-- V1: bazowy schemat bazy danych przychodni (odpowiada encjom z pakietu com.clinic.model).
+-- Polecenia są idempotentne (IF NOT EXISTS), aby migracja mogła zostać zastosowana
+-- również na bazach utworzonych wcześniej przez ddl-auto=update.
+
+CREATE TABLE IF NOT EXISTS app_user (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(255) NOT NULL CHECK (role IN ('ROLE_ADMIN', 'ROLE_LEKARZ', 'ROLE_PACJENT', 'ROLE_RECEPCJONISTA'))
+);
+
+CREATE TABLE IF NOT EXISTS doctor (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    imie          VARCHAR(255) NOT NULL,
+    nazwisko      VARCHAR(255) NOT NULL,
+    specjalizacja VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    telefon       VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS patient (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    imie           VARCHAR(255) NOT NULL,
+    nazwisko       VARCHAR(255) NOT NULL,
+    data_urodzenia DATE,
+    email          VARCHAR(255) NOT NULL UNIQUE,
+    telefon        VARCHAR(255),
+    pesel          VARCHAR(255) UNIQUE,
+    adres          VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS visit (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    visit_date_time TIMESTAMP(6) NOT NULL,
+    status          VARCHAR(255) NOT NULL CHECK (status IN ('SCHEDULED', 'COMPLETED', 'CANCELLED')),
+    doctor_id       BIGINT NOT NULL REFERENCES doctor (id),
+    patient_id      BIGINT NOT NULL REFERENCES patient (id)
+);
+
+CREATE TABLE IF NOT EXISTS medical_document (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name          VARCHAR(255) NOT NULL,
+    content       CLOB NOT NULL,
+    creation_date TIMESTAMP(6) NOT NULL,
+    patient_id    BIGINT NOT NULL REFERENCES patient (id),
+    visit_id      BIGINT REFERENCES visit (id)
+);
@@ -0,0 +1,17 @@
+-- V2: indeksy dopasowane do zapytań repozytoriów (VisitRepository, MedicalDocumentRepository).
+
+-- VisitRepository.findByDoctorOrderByVisitDateTimeAsc
+-- VisitRepository.findByDoctorAndVisitDateTimeBetween
+-- VisitRepository.findByDoctorAndStatusNotAndVisitDateTimeAfter
+-- Zakres po visit_date_time w obrębie lekarza, status dołączony jako kolumna pokrywająca filtr.
+CREATE INDEX IF NOT EXISTS idx_visit_doctor_datetime_status ON visit (doctor_id, visit_date_time, status);
+
+-- VisitRepository.findByPatientOrderByVisitDateTimeAsc
+-- Kolejność indeksu odpowiada sortowaniu, więc historia pacjenta nie wymaga sortowania.
+CREATE INDEX IF NOT EXISTS idx_visit_patient_datetime ON visit (patient_id, visit_date_time);
+
+-- MedicalDocumentRepository.findByPatient
+CREATE INDEX IF NOT EXISTS idx_medical_document_patient_created ON medical_document (patient_id, creation_date);
+
+-- MedicalDocumentRepository.findByVisit
+CREATE INDEX IF NOT EXISTS idx_medical_document_visit ON medical_document (visit_id);
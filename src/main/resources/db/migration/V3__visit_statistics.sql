@@ -0,0 +1,13 @@
+-- V3: liczniki statystyk wizyt utrzymywane przyrostowo przez VisitService
+-- (liczba wizyt danego lekarza, dnia i statusu).
+
+CREATE TABLE IF NOT EXISTS visit_stats_daily (
+    doctor_id   BIGINT       NOT NULL REFERENCES doctor (id) ON DELETE CASCADE,
+    stat_date   DATE         NOT NULL,
+    status      VARCHAR(32)  NOT NULL,
+    visit_count BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (doctor_id, stat_date, status)
+);
+
+-- Raporty według dnia i specjalizacji filtrują po zakresie dat niezależnie od lekarza
+CREATE INDEX IF NOT EXISTS idx_visit_stats_date ON visit_stats_daily (stat_date, doctor_id, status);
@@ -0,0 +1,18 @@
+-- V4: lista oczekujących na zwolnione terminy (per lekarz, z preferowanym przedziałem czasu).
+
+CREATE TABLE IF NOT EXISTS waitlist_entry (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    doctor_id    BIGINT       NOT NULL REFERENCES doctor (id) ON DELETE CASCADE,
+    patient_id   BIGINT       NOT NULL REFERENCES patient (id) ON DELETE CASCADE,
+    window_start TIMESTAMP(6) NOT NULL,
+    window_end   TIMESTAMP(6) NOT NULL,
+    priority     INT          NOT NULL DEFAULT 0,
+    created_at   TIMESTAMP(6) NOT NULL,
+    status       VARCHAR(32)  NOT NULL CHECK (status IN ('WAITING', 'BOOKED', 'CANCELLED', 'EXPIRED')),
+    visit_id     BIGINT       REFERENCES visit (id) ON DELETE SET NULL,
+    CHECK (window_end > window_start)
+);
+
+-- Ładowanie kolejek oczekujących przy starcie i lista oczekujących danego lekarza
+CREATE INDEX IF NOT EXISTS idx_waitlist_doctor_status ON waitlist_entry (doctor_id, status);
+CREATE INDEX IF NOT EXISTS idx_waitlist_patient ON waitlist_entry (patient_id);
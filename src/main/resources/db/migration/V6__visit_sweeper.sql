@@ -0,0 +1,12 @@
+-- V6: punkty kontrolne zadań wsadowych oraz indeks dla porządkowania przeterminowanych wizyt.
+
+CREATE TABLE IF NOT EXISTS job_checkpoint (
+    job_name        VARCHAR(64)  PRIMARY KEY,
+    last_date_time  TIMESTAMP(6),
+    last_id         BIGINT,
+    processed_total BIGINT       NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP(6) NOT NULL
+);
+
+-- Wyszukiwanie przeterminowanych wizyt SCHEDULED (status, termin) bez przeglądania całej tabeli
+CREATE INDEX IF NOT EXISTS idx_visit_status_datetime ON visit (status, visit_date_time, id);
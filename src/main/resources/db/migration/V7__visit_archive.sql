@@ -0,0 +1,19 @@
+-- V7: archiwum wizyt (warstwa "zimna"). Zakończone wizyty starsze niż zadany wiek są przenoszone
+-- z tabeli visit do visit_archive; dokumenty medyczne zachowują powiązanie przez archived_visit_id.
+
+CREATE TABLE IF NOT EXISTS visit_archive (
+    id              BIGINT       PRIMARY KEY,
+    visit_date_time TIMESTAMP(6) NOT NULL,
+    status          VARCHAR(32)  NOT NULL,
+    doctor_id       BIGINT       NOT NULL REFERENCES doctor (id) ON DELETE CASCADE,
+    patient_id      BIGINT       NOT NULL REFERENCES patient (id) ON DELETE CASCADE,
+    archived_at     TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_visit_archive_patient_datetime ON visit_archive (patient_id, visit_date_time);
+CREATE INDEX IF NOT EXISTS idx_visit_archive_doctor_datetime ON visit_archive (doctor_id, visit_date_time);
+
+ALTER TABLE medical_document ADD COLUMN IF NOT EXISTS archived_visit_id BIGINT
+    REFERENCES visit_archive (id) ON DELETE SET NULL;
+
+CREATE INDEX IF NOT EXISTS idx_medical_document_archived_visit ON medical_document (archived_visit_id);
@@ -0,0 +1,20 @@
+-- V8: koordynacja wielu instancji aplikacji korzystających z jednej bazy danych.
+
+-- Blokady z dzierżawą (np. zadania wsadowe wykonywane tylko przez jedną instancję naraz)
+CREATE TABLE IF NOT EXISTS cluster_lock (
+    lock_name    VARCHAR(64)  PRIMARY KEY,
+    owner        VARCHAR(64)  NOT NULL,
+    locked_until TIMESTAMP(6) NOT NULL
+);
+
+-- Dziennik zmian, na podstawie którego pozostałe instancje unieważniają swoje pamięci podręczne
+CREATE TABLE IF NOT EXISTS cache_change_log (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    node_id    VARCHAR(64)  NOT NULL,
+    cache_name VARCHAR(32)  NOT NULL,
+    doctor_id  BIGINT,
+    change_day DATE,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cache_change_log_created ON cache_change_log (created_at, id);
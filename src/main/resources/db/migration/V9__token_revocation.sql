@@ -0,0 +1,13 @@
+-- V9: unieważnianie tokenów JWT użytkownika (usunięcie konta, zmiana roli).
+-- Token jest unieważniony, jeśli wydano go nie później niż revoked_before. Po expires_at wszystkie
+-- takie tokeny i tak wygasły, więc wpis jest usuwany przez okresowe porządkowanie.
+
+CREATE TABLE IF NOT EXISTS token_revocation (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    subject        VARCHAR(255) NOT NULL,
+    revoked_before TIMESTAMP(6) NOT NULL,
+    expires_at     TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_revocation_subject ON token_revocation (subject, revoked_before);
+CREATE INDEX IF NOT EXISTS idx_token_revocation_expires ON token_revocation (expires_at);
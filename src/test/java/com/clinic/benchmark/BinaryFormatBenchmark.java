@@ -0,0 +1,84 @@
+package com.clinic.benchmark;
+
+import com.clinic.dto.AgendaEntry;
+import com.clinic.dto.PatientSummary;
+import com.clinic.model.VisitStatus;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark rozmiaru i czasu kodowania/dekodowania list zwracanych integracjom w formatach JSON, CBOR i Smile.
+ *
+ * Porównuje listę wizyt (AgendaEntry) i listę pacjentów (PatientSummary) o zadanej liczbie elementów.
+ * Mappery są skonfigurowane jak w aplikacji (moduły java.time, daty w ISO-8601). Pierwsze WARMUP
+ * powtórzeń rozgrzewa JIT i nie jest mierzone.
+ *
+ * Uruchomienie (po mvn test-compile):
+ *   java -cp target/classes:target/test-classes:&lt;classpath&gt; com.clinic.benchmark.BinaryFormatBenchmark 10000
+ */
+public class BinaryFormatBenchmark {
+
+    private static final int WARMUP = 50;
+    private static final int RUNS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length == 0 ? 10_000 : Integer.parseInt(args[0]);
+
+        List<AgendaEntry> visits = new ArrayList<>(size);
+        List<PatientSummary> patients = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 1; i <= size; i++) {
+            visits.add(new AgendaEntry((long) i, start.plusMinutes(30L * i), VisitStatus.values()[i % VisitStatus.values().length],
+                    (long) (i % 500 + 1), "Anna", "Pacjent" + i));
+            patients.add(new PatientSummary((long) i, "Anna", "Pacjent" + i, LocalDate.of(1950, 1, 1).plusDays(i),
+                    "pacjent" + i + "@example.com", "500" + String.format("%06d", i), String.format("%011d", i),
+                    "ul. Przykładowa " + i + ", Warszawa"));
+        }
+
+        ObjectMapper[] mappers = {configure(new ObjectMapper()), configure(new CBORMapper()), configure(new SmileMapper())};
+        String[] names = {"JSON", "CBOR", "Smile"};
+
+        System.out.printf("%-14s %-8s %-14s %-16s %-16s%n", "lista", "format", "rozmiar [kB]", "kodowanie [ms]", "dekodowanie [ms]");
+        for (int m = 0; m < mappers.length; m++) {
+            measure("wizyty", names[m], mappers[m], visits, AgendaEntry.class);
+        }
+        for (int m = 0; m < mappers.length; m++) {
+            measure("pacjenci", names[m], mappers[m], patients, PatientSummary.class);
+        }
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static void measure(String list, String format, ObjectMapper mapper, List<?> values, Class<?> elementType) throws Exception {
+        JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, elementType);
+        byte[] encoded = mapper.writeValueAsBytes(values);
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            long begin = System.nanoTime();
+            encoded = mapper.writeValueAsBytes(values);
+            long encodedAt = System.nanoTime();
+            List<?> decoded = mapper.readValue(encoded, type);
+            long decodedAt = System.nanoTime();
+            if (decoded.size() != values.size()) {
+                throw new IllegalStateException("Zdekodowano " + decoded.size() + " z " + values.size() + " elementów");
+            }
+            if (i >= WARMUP) {
+                encodeNanos += encodedAt - begin;
+                decodeNanos += decodedAt - encodedAt;
+            }
+        }
+        System.out.printf("%-14s %-8s %-14d %-16.2f %-16.2f%n", list, format, encoded.length / 1024,
+                encodeNanos / 1_000_000.0 / RUNS, decodeNanos / 1_000_000.0 / RUNS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.clinic.benchmark;
+
+import com.clinic.ClinicApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark czasu zimnego startu aplikacji w profilu "persistent" w zależności od rozmiaru danych.
+ *
+ * Dla każdego rozmiaru (liczba wizyt) tworzy plikową bazę H2, wypełnia ją danymi
+ * (INSERT ... SELECT z SYSTEM_RANGE, bez przechodzenia przez JPA), a następnie kilkukrotnie
+ * mierzy czas uruchomienia kontekstu Springa na istniejących danych.
+ *
+ * Uruchomienie (po mvn test-compile):
+ *   java -cp target/classes:target/test-classes:&lt;classpath&gt; com.clinic.benchmark.ColdStartBenchmark 10000 100000 1000000
+ */
+public class ColdStartBenchmark {
+
+    private static final int DOCTORS = 50;
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws Exception {
+        long[] sizes = args.length == 0
+                ? new long[]{10_000, 100_000, 1_000_000}
+                : Stream.of(args).mapToLong(Long::parseLong).toArray();
+
+        System.out.printf("%-12s %-12s %-12s %-12s%n", "wizyty", "dysk [MB]", "min [ms]", "śr. [ms]");
+        for (long visits : sizes) {
+            Path dataDirectory = Files.createTempDirectory("clinic-coldstart-");
+            try {
+                // Pierwszy start tworzy schemat
+                start(dataDirectory).close();
+                populate(dataDirectory, visits);
+
+                long min = Long.MAX_VALUE;
+                long total = 0;
+                for (int i = 0; i < RUNS; i++) {
+                    long begin = System.nanoTime();
+                    try (ConfigurableApplicationContext ignored = start(dataDirectory)) {
+                        long elapsed = (System.nanoTime() - begin) / 1_000_000;
+                        min = Math.min(min, elapsed);
+                        total += elapsed;
+                    }
+                }
+                System.out.printf("%-12d %-12d %-12d %-12d%n", visits, directorySize(dataDirectory) / (1024 * 1024), min, total / RUNS);
+            } finally {
+                deleteRecursively(dataDirectory);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Path dataDirectory) {
+        return SpringApplication.run(ClinicApplication.class,
+                "--spring.profiles.active=persistent",
+                "--app.dataDirectory=" + dataDirectory.toAbsolutePath(),
+                "--server.port=0",
+                "--app.audit.directory=" + dataDirectory.resolve("audit").toAbsolutePath(),
+                "--logging.level.root=WARN");
+    }
+
+    private static void populate(Path dataDirectory, long visits) throws SQLException {
+        long patients = Math.max(1, visits / 20);
+        String url = "jdbc:h2:file:" + dataDirectory.toAbsolutePath() + "/przychodnia_db;MODE=MySQL";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO doctor (imie, nazwisko, specjalizacja, email) "
+                    + "SELECT 'Jan', 'Lekarz' || X, 'Specjalizacja' || MOD(X, 10), 'lekarz' || X || '@example.com' "
+                    + "FROM SYSTEM_RANGE(1, " + DOCTORS + ")");
+            statement.execute("INSERT INTO patient (imie, nazwisko, email, pesel) "
+                    + "SELECT 'Anna', 'Pacjent' || X, 'pacjent' || X || '@example.com', LPAD(X, 11, '0') "
+                    + "FROM SYSTEM_RANGE(1, " + patients + ")");
+            statement.execute("INSERT INTO visit (visit_date_time, status, doctor_id, patient_id) "
+                    + "SELECT DATEADD('MINUTE', X * 30, TIMESTAMP '2020-01-01 08:00:00'), "
+                    + "CASEWHEN(MOD(X, 10) = 0, 'CANCELLED', 'COMPLETED'), "
+                    + "MOD(X, " + DOCTORS + ") + 1, MOD(X, " + patients + ") + 1 "
+                    + "FROM SYSTEM_RANGE(1, " + visits + ")");
+            statement.execute("SHUTDOWN COMPACT");
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.clinic.benchmark;
+
+import com.clinic.ClinicApplication;
+import com.clinic.model.Role;
+import com.clinic.security.JwtTokenProvider;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+/**
+ * Benchmark endpointu GET /api/patients (lista pacjentów) dla 10 000 pacjentów.
+ *
+ * Uruchamia aplikację na losowym porcie, wypełnia bazę pacjentami (INSERT ... SELECT z SYSTEM_RANGE),
+ * a następnie mierzy czas odpowiedzi i jej rozmiar bez kompresji oraz z Accept-Encoding: gzip.
+ * Pierwsze WARMUP żądań rozgrzewa JIT i nie jest mierzone.
+ *
+ * Uruchomienie (po mvn test-compile):
+ *   java -cp target/classes:target/test-classes:&lt;classpath&gt; com.clinic.benchmark.PatientListBenchmark 10000
+ */
+public class PatientListBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length == 0 ? 10_000 : Integer.parseInt(args[0]);
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(ClinicApplication.class,
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN")) {
+            context.getBean(JdbcTemplate.class).execute("INSERT INTO patient (imie, nazwisko, data_urodzenia, email, telefon, pesel, adres) "
+                    + "SELECT 'Anna', 'Pacjent' || X, DATEADD('DAY', -X, DATE '2000-01-01'), 'pacjent' || X || '@example.com', "
+                    + "'500' || LPAD(X, 6, '0'), LPAD(X, 11, '0'), 'ul. Przykładowa ' || X || ', Warszawa' "
+                    + "FROM SYSTEM_RANGE(1, " + patients + ")");
+
+            String token = context.getBean(JwtTokenProvider.class).generateToken(new UsernamePasswordAuthenticationToken(
+                    "benchmark@example.com", null, List.of(new SimpleGrantedAuthority(Role.ROLE_ADMIN.name()))));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/patients");
+            HttpClient client = HttpClient.newHttpClient();
+
+            System.out.printf("%-10s %-14s %-12s %-12s%n", "kodowanie", "rozmiar [kB]", "min [ms]", "śr. [ms]");
+            for (String encoding : new String[]{"identity", "gzip"}) {
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept-Encoding", encoding)
+                        .GET()
+                        .build();
+                int size = 0;
+                long min = Long.MAX_VALUE;
+                long total = 0;
+                for (int i = 0; i < WARMUP + RUNS; i++) {
+                    long begin = System.nanoTime();
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    long elapsed = (System.nanoTime() - begin) / 1_000_000;
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("GET /api/patients zwrócił " + response.statusCode());
+                    }
+                    size = response.body().length;
+                    if (i >= WARMUP) {
+                        min = Math.min(min, elapsed);
+                        total += elapsed;
+                    }
+                }
+                System.out.printf("%-10s %-14d %-12d %-12d%n", encoding, size / 1024, min, total / RUNS);
+            }
+        }
+    }
+}
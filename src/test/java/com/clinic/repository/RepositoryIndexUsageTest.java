@@ -0,0 +1,217 @@
+package com.clinic.repository;
+
+import com.clinic.model.Doctor;
+import com.clinic.model.Patient;
+import com.clinic.model.Visit;
+import com.clinic.model.VisitStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sprawdza, że zapytania generowane przez metody repozytoriów korzystają z indeksów
+ * (EXPLAIN w H2), a nie przeszukują całej tabeli. Plan musi używać wskazanego indeksu z migracji -
+ * indeks klucza obcego utworzony automatycznie przez H2 nie jest akceptowany.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.clinic.repository.RepositoryIndexUsageTest$SqlCaptor",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryIndexUsageTest {
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private MedicalDocumentRepository medicalDocumentRepository;
+
+    @Autowired
+    private ArchivedVisitRepository archivedVisitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ResourceReservationRepository resourceReservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Visit visit;
+
+    @BeforeEach
+    void setUp() {
+        doctor = new Doctor();
+        doctor.setImie("Jan");
+        doctor.setNazwisko("Kowalski");
+        doctor.setSpecjalizacja("Kardiolog");
+        doctor.setEmail("jan.kowalski@example.com");
+        doctor = doctorRepository.save(doctor);
+
+        patient = new Patient();
+        patient.setImie("Anna");
+        patient.setNazwisko("Nowak");
+        patient.setEmail("anna.nowak@example.com");
+        patient = patientRepository.save(patient);
+
+        visit = new Visit();
+        visit.setDoctor(doctor);
+        visit.setPatient(patient);
+        visit.setVisitDateTime(LocalDateTime.now());
+        visit.setStatus(VisitStatus.SCHEDULED);
+        visit = visitRepository.save(visit);
+    }
+
+    @Test
+    void findByPatientOrderByVisitDateTimeAscUsesIndex() {
+        String sql = capture(() -> visitRepository.findByPatientOrderByVisitDateTimeAsc(patient));
+        assertUsesIndex(sql, "IDX_VISIT_PATIENT_DATETIME", patient.getId());
+    }
+
+    @Test
+    void findByDoctorOrderByVisitDateTimeAscUsesIndex() {
+        String sql = capture(() -> visitRepository.findByDoctorOrderByVisitDateTimeAsc(doctor));
+        assertUsesIndex(sql, "IDX_VISIT_DOCTOR_DATETIME_STATUS", doctor.getId());
+    }
+
+    @Test
+    void findByDoctorAndVisitDateTimeBetweenUsesIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = capture(() -> visitRepository.findByDoctorAndVisitDateTimeBetween(doctor, now.minusHours(1), now.plusHours(1)));
+        assertUsesIndex(sql, "IDX_VISIT_DOCTOR_DATETIME_STATUS",
+                doctor.getId(), Timestamp.valueOf(now.minusHours(1)), Timestamp.valueOf(now.plusHours(1)));
+    }
+
+    @Test
+    void softDeleteRestrictionOfConflictCheckLooksUpOwnersByPrimaryKey() {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = capture(() -> visitRepository.findByDoctorAndVisitDateTimeBetween(doctor, now.minusHours(1), now.plusHours(1)));
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class,
+                doctor.getId(), Timestamp.valueOf(now.minusHours(1)), Timestamp.valueOf(now.plusHours(1)))).toUpperCase();
+        // Warunek SQLRestriction sprawdza lekarza i pacjenta każdej znalezionej wizyty po kluczu głównym,
+        // zamiast przeglądać indeks deleted_at wszystkich lekarzy i pacjentów przy każdym zapytaniu
+        assertThat(plan)
+                .as("Plan zapytania: %s", plan)
+                .containsPattern("PRIMARY_KEY_\\w+: ID = V1_0\\.DOCTOR_ID")
+                .containsPattern("PRIMARY_KEY_\\w+: ID = V1_0\\.PATIENT_ID")
+                .doesNotContain("DELETED_AT */");
+    }
+
+    @Test
+    void findByDoctorAndStatusNotAndVisitDateTimeAfterUsesIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = capture(() -> visitRepository.findByDoctorAndStatusNotAndVisitDateTimeAfter(doctor, VisitStatus.CANCELLED, now));
+        assertUsesIndex(sql, "IDX_VISIT_DOCTOR_DATETIME_STATUS",
+                doctor.getId(), VisitStatus.CANCELLED.name(), Timestamp.valueOf(now));
+    }
+
+    @Test
+    void findDocumentsByPatientUsesIndex() {
+        String sql = capture(() -> medicalDocumentRepository.findByPatient(patient));
+        assertUsesIndex(sql, "IDX_MEDICAL_DOCUMENT_PATIENT_CREATED", patient.getId());
+    }
+
+    @Test
+    void findDocumentsByVisitUsesIndex() {
+        String sql = capture(() -> medicalDocumentRepository.findByVisit(visit));
+        assertUsesIndex(sql, "IDX_MEDICAL_DOCUMENT_VISIT", visit.getId());
+    }
+
+    @Test
+    void findVisitTimelinePageUsesIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = capture(() -> visitRepository.findTimelinePage(patient.getId(), now, Long.MAX_VALUE, Limit.of(51)));
+        assertUsesIndex(sql, "IDX_VISIT_PATIENT_DATETIME",
+                patient.getId(), Timestamp.valueOf(now), Timestamp.valueOf(now), Long.MAX_VALUE, 51);
+    }
+
+    @Test
+    void findDocumentTimelinePageUsesIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = capture(() -> medicalDocumentRepository.findTimelinePage(patient.getId(), now, Long.MAX_VALUE, Limit.of(51)));
+        assertUsesIndex(sql, "IDX_MEDICAL_DOCUMENT_PATIENT_CREATED",
+                patient.getId(), Timestamp.valueOf(now), Timestamp.valueOf(now), Long.MAX_VALUE, 51);
+    }
+
+    @Test
+    void findVisitIdsByDoctorForPurgeUsesIndex() {
+        String sql = capture(() -> visitRepository.findIdsByDoctorId(doctor.getId(), Limit.of(500)));
+        assertUsesIndex(sql, "IDX_VISIT_DOCTOR_DATETIME_STATUS", doctor.getId(), 500);
+    }
+
+    @Test
+    void findDocumentIdsByPatientForPurgeUsesIndex() {
+        String sql = capture(() -> medicalDocumentRepository.findIdsByPatientId(patient.getId(), Limit.of(500)));
+        assertUsesIndex(sql, "IDX_MEDICAL_DOCUMENT_PATIENT_CREATED", patient.getId(), 500);
+    }
+
+    @Test
+    void findArchivedVisitIdsByDoctorForPurgeUsesIndex() {
+        String sql = capture(() -> archivedVisitRepository.findIdsByDoctorId(doctor.getId(), Limit.of(500)));
+        assertUsesIndex(sql, "IDX_VISIT_ARCHIVE_DOCTOR_DATETIME", doctor.getId(), 500);
+    }
+
+    @Test
+    void findArchivedVisitsByPatientForPurgeUsesIndex() {
+        String sql = capture(() -> archivedVisitRepository.findPurgeBatchByPatientId(patient.getId(), Limit.of(500)));
+        assertUsesIndex(sql, "IDX_VISIT_ARCHIVE_PATIENT_DATETIME", patient.getId(), 500);
+    }
+
+    @Test
+    void findResourceScheduledTimesUsesIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = capture(() -> resourceReservationRepository.findScheduledTimes(List.of(1L), now.minusMinutes(30), now.plusMinutes(30)));
+        assertUsesIndex(sql, "IDX_RESOURCE_RESERVATION_RESOURCE_DATETIME",
+                1L, Timestamp.valueOf(now.minusMinutes(30)), Timestamp.valueOf(now.plusMinutes(30)));
+    }
+
+    private String capture(Runnable query) {
+        SqlCaptor.STATEMENTS.clear();
+        query.run();
+        return SqlCaptor.STATEMENTS.stream()
+                .filter(s -> s.toLowerCase().startsWith("select"))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("Nie przechwycono zapytania SELECT"));
+    }
+
+    private void assertUsesIndex(String sql, String expectedIndex, Object... params) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, params);
+        String joinedPlan = String.join("\n", plan).toUpperCase();
+        assertThat(joinedPlan)
+                .as("Oczekiwano indeksu %s, plan zapytania: %s", expectedIndex, joinedPlan)
+                .contains(expectedIndex)
+                .doesNotContain("TABLESCAN");
+    }
+
+    /**
+     * Przechwytuje SQL generowany przez Hibernate dla metod repozytoriów.
+     */
+    public static class SqlCaptor implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.clinic.service;
+
+import com.clinic.ClinicApplication;
+import com.clinic.dto.AgendaEntry;
+import com.clinic.model.Doctor;
+import com.clinic.model.Patient;
+import com.clinic.model.Visit;
+import com.clinic.model.VisitStatus;
+import com.clinic.repository.DoctorRepository;
+import com.clinic.repository.PatientRepository;
+import com.clinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Uruchamia dwie instancje aplikacji na jednej wbudowanej bazie H2 i sprawdza, że równoległe rezerwacje
+ * u tego samego lekarza, rozłożone na obie instancje, nie prowadzą do nakładających się wizyt, a zmiany
+ * zapisane na jednej instancji unieważniają pamięć podręczną agendy na drugiej (dziennik zmian).
+ */
+class ClusterSchedulingIntegrationTest {
+
+    private static final String DATABASE_URL =
+            "jdbc:h2:mem:cluster_it;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000";
+
+    @TempDir
+    static Path auditDirectory;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        // Kolejno - druga instancja zastaje schemat już zmigrowany przez pierwszą
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void concurrentBookingsOnBothNodesNeverOverlap() throws Exception {
+        Doctor doctor = createDoctor("hammer");
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            patients.add(createPatient("hammer" + i));
+        }
+        LocalDateTime base = LocalDate.now().plusDays(7).atTime(8, 0);
+
+        // 16 terminów co 10 minut, każdy zamawiany 4 razy - wiele prób nachodzi na siebie (wizyta trwa 30 minut)
+        int attempts = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                VisitService visitService = (i % 2 == 0 ? nodeA : nodeB).getBean(VisitService.class);
+                Long patientId = patients.get(i % patients.size()).getId();
+                LocalDateTime slot = base.plusMinutes(10L * (i % 16));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        visitService.scheduleVisit(patientId, doctor.getId(), slot);
+                        booked.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        // Termin zajęty - oczekiwany wynik części prób
+                    } catch (RuntimeException e) {
+                        unexpected.add(e);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(unexpected).isEmpty();
+        List<LocalDateTime> scheduled = nodeA.getBean(VisitRepository.class).findAll().stream()
+                .filter(visit -> visit.getDoctor().getId().equals(doctor.getId()))
+                .filter(visit -> visit.getStatus() == VisitStatus.SCHEDULED)
+                .map(Visit::getVisitDateTime)
+                .sorted()
+                .toList();
+        assertThat(scheduled).hasSize(booked.get()).isNotEmpty();
+        for (int i = 1; i < scheduled.size(); i++) {
+            assertThat(Duration.between(scheduled.get(i - 1), scheduled.get(i)))
+                    .as("Wizyty %s i %s nachodzą na siebie", scheduled.get(i - 1), scheduled.get(i))
+                    .isGreaterThanOrEqualTo(Duration.ofMinutes(30));
+        }
+    }
+
+    @Test
+    void bookingOnOneNodeInvalidatesAgendaCachedOnTheOther() throws Exception {
+        Doctor doctor = createDoctor("agenda");
+        Patient patient = createPatient("agenda");
+        LocalDate day = LocalDate.now().plusDays(3);
+
+        AgendaService agendaOnB = nodeB.getBean(AgendaService.class);
+        assertThat(agendaOnB.getAgenda(doctor.getId(), day, day)).isEmpty(); // Dzień trafia do pamięci instancji B
+
+        Visit visit = nodeA.getBean(VisitService.class).scheduleVisit(patient.getId(), doctor.getId(), day.atTime(9, 0));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        List<AgendaEntry> agenda = agendaOnB.getAgenda(doctor.getId(), day, day);
+        while (agenda.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            agenda = agendaOnB.getAgenda(doctor.getId(), day, day);
+        }
+        assertThat(agenda).extracting(AgendaEntry::getVisitId).containsExactly(visit.getId());
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(ClinicApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + DATABASE_URL,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.springframework.security=INFO",
+                "--app.cluster.nodeId=" + nodeId,
+                "--app.cluster.changeLog.pollMs=100",
+                "--app.audit.directory=" + auditDirectory.resolve(nodeId),
+                "--app.visitSweeper.enabled=false",
+                "--app.archive.enabled=false");
+    }
+
+    private static Doctor createDoctor(String suffix) {
+        Doctor doctor = new Doctor();
+        doctor.setImie("Jan");
+        doctor.setNazwisko("Kowalski");
+        doctor.setSpecjalizacja("Kardiolog");
+        doctor.setEmail("lekarz." + suffix + "@example.com");
+        return nodeA.getBean(DoctorRepository.class).save(doctor);
+    }
+
+    private static Patient createPatient(String suffix) {
+        Patient patient = new Patient();
+        patient.setImie("Anna");
+        patient.setNazwisko("Nowak");
+        patient.setEmail("pacjent." + suffix + "@example.com");
+        return nodeA.getBean(PatientRepository.class).save(patient);
+    }
+}
@@ -0,0 +1,102 @@
+package com.clinic.service;
+
+import com.clinic.ClinicApplication;
+import com.clinic.model.Doctor;
+import com.clinic.model.Patient;
+import com.clinic.repository.DoctorRepository;
+import com.clinic.repository.PatientRepository;
+import com.clinic.tenancy.TenantContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sprawdza w trybie wielu klinik, że równoległe przeliczenie statystyk (dni przetwarzane na wątkach wspólnej puli)
+ * odtwarza liczniki w schemacie kliniki wywołującego i nie zmienia liczników schematu domyślnego.
+ */
+class VisitStatisticsRebuildTenancyTest {
+
+    private static final String TENANT = "CLINIC_A";
+    private static final int DAYS = 20;
+
+    @TempDir
+    static Path auditDirectory;
+
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void startApplication() {
+        context = new SpringApplicationBuilder(ClinicApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:stats_tenancy;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.springframework.security=INFO",
+                "--app.tenancy.enabled=true",
+                "--app.tenancy.tenants=" + TENANT,
+                "--app.audit.directory=" + auditDirectory,
+                "--app.visitSweeper.enabled=false",
+                "--app.archive.enabled=false",
+                "--app.purge.enabled=false");
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void rebuildRestoresCountersOfCallersTenant() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        TenantContext.runAs(TenantContext.DEFAULT_TENANT, () -> scheduleVisits("public", from, 1));
+        TenantContext.runAs(TENANT, () -> scheduleVisits("clinic", from, DAYS));
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        assertThat(countVisits(jdbcTemplate, TENANT)).isEqualTo(DAYS);
+        assertThat(countVisits(jdbcTemplate, TenantContext.DEFAULT_TENANT)).isEqualTo(1);
+
+        jdbcTemplate.update("DELETE FROM " + TENANT + ".visit_stats_daily");
+        long days = TenantContext.callAs(TENANT, () ->
+                context.getBean(VisitStatisticsService.class).rebuild(from, from.plusDays(DAYS - 1)));
+
+        assertThat(days).isEqualTo(DAYS);
+        assertThat(countVisits(jdbcTemplate, TENANT)).isEqualTo(DAYS);
+        assertThat(countVisits(jdbcTemplate, TenantContext.DEFAULT_TENANT)).isEqualTo(1);
+    }
+
+    private static void scheduleVisits(String suffix, LocalDate from, int days) {
+        Doctor doctor = new Doctor();
+        doctor.setImie("Jan");
+        doctor.setNazwisko("Kowalski");
+        doctor.setSpecjalizacja("Kardiolog");
+        doctor.setEmail("lekarz." + suffix + "@example.com");
+        doctor = context.getBean(DoctorRepository.class).save(doctor);
+
+        Patient patient = new Patient();
+        patient.setImie("Anna");
+        patient.setNazwisko("Nowak");
+        patient.setEmail("pacjent." + suffix + "@example.com");
+        patient = context.getBean(PatientRepository.class).save(patient);
+
+        VisitService visitService = context.getBean(VisitService.class);
+        for (int i = 0; i < days; i++) {
+            visitService.scheduleVisit(patient.getId(), doctor.getId(), from.plusDays(i).atTime(10, 0));
+        }
+    }
+
+    private static long countVisits(JdbcTemplate jdbcTemplate, String schema) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(visit_count), 0) FROM " + schema + ".visit_stats_daily", Long.class);
+        return count == null ? 0 : count;
+    }
+}